@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("org.jetbrains.kotlin.jvm") version "1.9.25"
     id("org.jetbrains.intellij") version "1.17.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "ch.coop.intellij.plugin"
@@ -20,6 +21,25 @@ intellij {
     plugins.set(listOf(/* Plugin Dependencies */))
 }
 
+// Microbenchmarks der heissen Pfade (Branch-Namen, Suchmuster, Repository-Suche, Jira-Antworten)
+// Ausführen mit: ./gradlew jmh
+configurations {
+    // Die Benchmarks laufen ohne IDE, brauchen aber die Plattform-Klassen (Logger, Gson) auf dem Klassenpfad
+    named("jmhImplementation") {
+        extendsFrom(configurations.compileOnly.get())
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // Allokationsrate pro Aufruf (gc.alloc.rate.norm) neben der Laufzeit ausgeben
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 tasks {
     // Set the JVM compatibility versions
     withType<JavaCompile> {
@@ -0,0 +1,61 @@
+package ch.coop.intellij.plugins.branchcreator;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import ch.coop.intellij.plugins.vcs.BranchNameValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst das Bereinigen und Zusammensetzen von Branch-Namen, das bei jedem Tastendruck im Dialog läuft.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BranchNameBenchmark {
+
+    @Param({"Fix login", "Überarbeitung der Preisberechnung für Aktionen (Filiale & Online)"})
+    public String description;
+
+    @Param({CoopPluginSettings.State.DEFAULT_BRANCH_NAME_TEMPLATE, "{prefix}{issue}-{summary|translit|slug|max:40}"})
+    public String template;
+
+    public String issueId = "SHOP-4711";
+
+    private SettingsSnapshot settings;
+
+    @Setup
+    public void setUp() {
+        CoopPluginSettings.State state = new CoopPluginSettings.State();
+        state.branchNameTemplate = template;
+        settings = SettingsSnapshot.of(state);
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return BranchNameGenerator.sanitize(description);
+    }
+
+    @Benchmark
+    public String generate() {
+        return BranchNameGenerator.generate(settings, issueId, description);
+    }
+
+    @Benchmark
+    public BranchNameTemplate compile() {
+        return BranchNameTemplate.compile(template, settings.spaceReplacement);
+    }
+
+    @Benchmark
+    public String validateGit() {
+        return BranchNameValidator.validateGit(BranchNameGenerator.generate(settings, issueId, description));
+    }
+}
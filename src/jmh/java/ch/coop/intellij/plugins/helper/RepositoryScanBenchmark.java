@@ -0,0 +1,79 @@
+package ch.coop.intellij.plugins.helper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Misst die Repository-Suche auf einem synthetischen Verzeichnisbaum.
+ * <p>
+ * Der Baum hat {@code modules} Module mit je einem Repository, darin Quellverzeichnisse und einen
+ * "node_modules"-Ordner, der über die Ausschlussmuster übersprungen wird.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RepositoryScanBenchmark {
+
+    @Param({"10", "100"})
+    public int modules;
+
+    @Param({"false", "true"})
+    public boolean includeNested;
+
+    private Path root;
+    private RepositoryScanner scanner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("repository-scan-benchmark");
+        for (int module = 0; module < modules; module++) {
+            Path repository = root.resolve("group" + (module % 5)).resolve("module" + module);
+            Files.createDirectories(repository.resolve(module % 2 == 0 ? ".git" : ".hg"));
+            for (int source = 0; source < 5; source++) {
+                Files.createDirectories(repository.resolve("src/main/java/package" + source));
+            }
+            Files.createDirectories(repository.resolve("node_modules/dependency/lib"));
+        }
+        scanner = new RepositoryScanner(Set.of(".git", ".hg"), List.of("node_modules", "target"), 8, includeNested,
+                FileSystems.getDefault());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<Path, String> scan() {
+        return scanner.scan(root);
+    }
+
+    @Benchmark
+    public Map<Path, String> scanMissingRoot() {
+        return scanner.scan(Paths.get(root.toString(), "missing"));
+    }
+}
@@ -0,0 +1,55 @@
+package ch.coop.intellij.plugins.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst das Parsen einer Jira-Suchantwort. Die Issues enthalten neben "key" und "summary" weitere Felder,
+ * die übersprungen werden müssen, wie in einer echten Antwort.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JiraResponseParserBenchmark {
+
+    @Param({"10", "50"})
+    public int issueCount;
+
+    private String response;
+
+    @Setup
+    public void setUp() {
+        StringBuilder json = new StringBuilder("{\"expand\":\"names,schema\",\"startAt\":0,\"maxResults\":50,\"total\":")
+                .append(issueCount).append(",\"issues\":[");
+        for (int i = 0; i < issueCount; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"expand\":\"operations\",\"id\":\"").append(10000 + i)
+                    .append("\",\"self\":\"https://jira.example.com/rest/api/2/issue/").append(10000 + i)
+                    .append("\",\"key\":\"SHOP-").append(i)
+                    .append("\",\"fields\":{\"summary\":\"Preisberechnung für Aktion ").append(i)
+                    .append(" überarbeiten\",\"status\":{\"name\":\"In Progress\",\"id\":\"3\"}")
+                    .append(",\"labels\":[\"backend\",\"pricing\"],\"description\":\"")
+                    .append("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(10))
+                    .append("\"}}");
+        }
+        response = json.append("]}").toString();
+    }
+
+    @Benchmark
+    public List<JiraIssue> parseIssues() throws IOException {
+        return JiraResponseParser.parseIssues(new StringReader(response));
+    }
+}
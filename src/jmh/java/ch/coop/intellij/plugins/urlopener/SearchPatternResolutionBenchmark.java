@@ -0,0 +1,79 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misst die Auflösung und die Vervollständigung der Eingabe der URL-Opener-Suchleiste für unterschiedlich viele
+ * Suchmuster.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SearchPatternResolutionBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int patternCount;
+
+    private SearchPatternIndex index;
+    private UrlTemplate template;
+    private String lastShortcutInput;
+    private String unknownShortcutInput;
+
+    @Setup
+    public void setUp() {
+        List<SearchPattern> searchPatterns = new ArrayList<>(patternCount);
+        for (int i = 0; i < patternCount; i++) {
+            searchPatterns.add(new SearchPattern("Pattern " + i, "s" + i, "https://search.example.com/" + i + "?q=%s"));
+        }
+        lastShortcutInput = "s" + (patternCount - 1) + " price calculation";
+        unknownShortcutInput = "unknown price calculation";
+        index = new SearchPatternIndex(searchPatterns, 0);
+        template = UrlTemplate.compile("https://git.example.com/{project}/tree/{branch}?q={term}&issue={issue}");
+    }
+
+    @Benchmark
+    public SearchPatternResolver.Resolution defaultPattern() {
+        return SearchPatternResolver.resolve("price", index);
+    }
+
+    @Benchmark
+    public SearchPatternResolver.Resolution lastShortcut() {
+        return SearchPatternResolver.resolve(lastShortcutInput, index);
+    }
+
+    @Benchmark
+    public SearchPatternResolver.Resolution unknownShortcut() {
+        return SearchPatternResolver.resolve(unknownShortcutInput, index);
+    }
+
+    @Benchmark
+    public List<SearchPattern> completeShortcutPrefix() {
+        return index.complete("s1", 20, pattern -> 0);
+    }
+
+    @Benchmark
+    public List<SearchPattern> completeFuzzy() {
+        return index.complete("ptn", 20, pattern -> 0);
+    }
+
+    @Benchmark
+    public UrlTemplate compileTemplate() {
+        return UrlTemplate.compile("https://git.example.com/{project}/tree/{branch}?q={term}&issue={issue}");
+    }
+
+    @Benchmark
+    public String renderTemplate() {
+        return template.render("Preis & Lieferung für Zürich", "price-engine", "feature/PRICE-1234-rounding", "PRICE-1234");
+    }
+}
@@ -1,6 +1,8 @@
 package ch.coop.intellij.plugins;
 
 import ch.coop.intellij.plugins.urlopener.SearchPattern;
+import ch.coop.intellij.plugins.urlopener.SearchPatternIndex;
+import com.intellij.openapi.application.Application;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.PersistentStateComponent;
 import com.intellij.openapi.components.State;
@@ -15,9 +17,13 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Persistent settings for the Branch Creator plugin.
+ * <p>
+ * Leser verwenden {@link #getSnapshot()}, Schreiber {@link #update}; jede Änderung wird über
+ * {@link CoopPluginSettingsListener#TOPIC} gemeldet.
  */
 @State(
         name = "CoopPluginSettings",
@@ -32,23 +38,106 @@ public final class CoopPluginSettings implements PersistentStateComponent<CoopPl
         private static final long serialVersionUID = 1L; // Füge eine serialVersionUID hinzu
         public static final String DEFAULT_PREFIX = "feature/";
         public static final String DEFAULT_SPACE_REPLACEMENT = "_";
+        public static final String DEFAULT_BRANCH_NAME_TEMPLATE = "{prefix}{issue|sanitize}-{summary|sanitize}";
         public static final boolean DEFAULT_AUTO_PUSH = false;
         public static final String DEFAULT_JIRA_API_URL = "";
         public static final String DEFAULT_JIRA_API_TOKEN = "";
+        public static final String DEFAULT_REPOSITORY_SCAN_EXCLUDES = "node_modules, build, target, out, .idea, .gradle";
+        public static final int DEFAULT_REPOSITORY_SCAN_MAX_DEPTH = 10;
+        public static final boolean DEFAULT_NESTED_REPOSITORIES = false;
+        public static final String DEFAULT_GIT_EXECUTABLE = "git";
+        public static final String DEFAULT_HG_EXECUTABLE = "hg";
+        public static final int DEFAULT_JIRA_CACHE_TTL_SECONDS = 300;
+        public static final int DEFAULT_JIRA_CACHE_MAX_ENTRIES = 200;
+        public static final int DEFAULT_JIRA_CONNECT_TIMEOUT_MILLIS = 5_000;
+        public static final int DEFAULT_JIRA_REQUEST_TIMEOUT_MILLIS = 10_000;
+        public static final boolean DEFAULT_JIRA_INDEX_ENABLED = true;
+        public static final String DEFAULT_JIRA_INDEX_PROJECTS = "";
+        public static final int DEFAULT_JIRA_INDEX_SYNC_MINUTES = 15;
 
         @Nullable
         public String prefix = DEFAULT_PREFIX;
         public String spaceReplacement = DEFAULT_SPACE_REPLACEMENT;
+        // Vorlage für den Branch-Namen, siehe BranchNameTemplate
+        public String branchNameTemplate = DEFAULT_BRANCH_NAME_TEMPLATE;
         public boolean autoPush = DEFAULT_AUTO_PUSH;
         public String jiraApiUrl = DEFAULT_JIRA_API_URL;
         public String jiraApiToken = DEFAULT_JIRA_API_TOKEN;
 
+        // Einstellungen für die Repository-Suche
+        public String repositoryScanExcludes = DEFAULT_REPOSITORY_SCAN_EXCLUDES;
+        public int repositoryScanMaxDepth = DEFAULT_REPOSITORY_SCAN_MAX_DEPTH;
+        public boolean nestedRepositories = DEFAULT_NESTED_REPOSITORIES;
+
+        // Pfade zu den VCS-Programmen
+        public String gitExecutable = DEFAULT_GIT_EXECUTABLE;
+        public String hgExecutable = DEFAULT_HG_EXECUTABLE;
+
+        // Zwischenspeicher für Jira-Suchergebnisse
+        public int jiraCacheTtlSeconds = DEFAULT_JIRA_CACHE_TTL_SECONDS;
+        public int jiraCacheMaxEntries = DEFAULT_JIRA_CACHE_MAX_ENTRIES;
+
+        // Timeouts für Jira-Anfragen
+        public int jiraConnectTimeoutMillis = DEFAULT_JIRA_CONNECT_TIMEOUT_MILLIS;
+        public int jiraRequestTimeoutMillis = DEFAULT_JIRA_REQUEST_TIMEOUT_MILLIS;
+
+        // Lokaler Jira-Issue-Index
+        public boolean jiraIndexEnabled = DEFAULT_JIRA_INDEX_ENABLED;
+        public String jiraIndexProjects = DEFAULT_JIRA_INDEX_PROJECTS;
+        public int jiraIndexSyncMinutes = DEFAULT_JIRA_INDEX_SYNC_MINUTES;
+
         // Liste der Suchmuster
         public List<SearchPattern> searchPatterns = new ArrayList<>();
         public int defaultSearchPatternIndex = -1; // Index der Standard-URL
+
+        /**
+         * Erstellt eine tiefe Kopie, die geändert werden kann, ohne den veröffentlichten Stand zu berühren.
+         */
+        @NotNull
+        State copy() {
+            State copy = new State();
+            copy.prefix = prefix;
+            copy.spaceReplacement = spaceReplacement;
+            copy.branchNameTemplate = branchNameTemplate;
+            copy.autoPush = autoPush;
+            copy.jiraApiUrl = jiraApiUrl;
+            copy.jiraApiToken = jiraApiToken;
+            copy.repositoryScanExcludes = repositoryScanExcludes;
+            copy.repositoryScanMaxDepth = repositoryScanMaxDepth;
+            copy.nestedRepositories = nestedRepositories;
+            copy.gitExecutable = gitExecutable;
+            copy.hgExecutable = hgExecutable;
+            copy.jiraCacheTtlSeconds = jiraCacheTtlSeconds;
+            copy.jiraCacheMaxEntries = jiraCacheMaxEntries;
+            copy.jiraConnectTimeoutMillis = jiraConnectTimeoutMillis;
+            copy.jiraRequestTimeoutMillis = jiraRequestTimeoutMillis;
+            copy.jiraIndexEnabled = jiraIndexEnabled;
+            copy.jiraIndexProjects = jiraIndexProjects;
+            copy.jiraIndexSyncMinutes = jiraIndexSyncMinutes;
+            copy.searchPatterns = copyPatterns(searchPatterns);
+            copy.defaultSearchPatternIndex = defaultSearchPatternIndex;
+            return copy;
+        }
+
+        /**
+         * Kopiert Suchmuster in veränderbare Instanzen, damit keine Objekte mit Snapshots oder Aufrufern geteilt
+         * werden.
+         */
+        @NotNull
+        static List<SearchPattern> copyPatterns(@Nullable List<SearchPattern> patterns) {
+            List<SearchPattern> copies = new ArrayList<>();
+            if (patterns != null) {
+                for (SearchPattern pattern : patterns) {
+                    copies.add(new SearchPattern(pattern.getName(), pattern.getShortcut(), pattern.getUrl()));
+                }
+            }
+            return copies;
+        }
     }
 
+    // Der persistierte Stand; wird nie verändert, sondern bei jeder Änderung durch eine Kopie ersetzt
     private volatile State myState = new State();
+    private volatile SettingsSnapshot snapshot = new SettingsSnapshot(myState, 0);
 
     /**
      * Returns the singleton instance of CoopPluginSettings.
@@ -60,14 +149,73 @@ public final class CoopPluginSettings implements PersistentStateComponent<CoopPl
                 .getService(CoopPluginSettings.class);
     }
 
+    /**
+     * Gibt eine Kopie des persistierten Stands für die Plattform zurück. Änderungen daran werden weder gespeichert
+     * noch veröffentlicht; zum Lesen {@link #getSnapshot()}, zum Schreiben {@link #update} verwenden.
+     */
     @Override
     public @NotNull State getState() {
-        return myState;
+        return myState.copy();
     }
 
     @Override
-    public synchronized void loadState(@NotNull State state) {
+    public void loadState(@NotNull State state) {
+        SettingsSnapshot oldSnapshot;
+        SettingsSnapshot newSnapshot;
+        synchronized (this) {
+            oldSnapshot = snapshot;
+            // Der übergebene Stand bleibt beim Aufrufer und wird daher nicht übernommen, sondern kopiert
+            newSnapshot = replace(state.copy());
+        }
+        notifyListeners(oldSnapshot, newSnapshot);
+    }
+
+    /**
+     * Gibt den aktuellen Stand der Einstellungen zurück, ohne zu sperren.
+     *
+     * @return Der unveränderliche Snapshot.
+     */
+    @NotNull
+    public SettingsSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Ändert die Einstellungen atomar. Die Änderung wird auf einer Kopie ausgeführt und danach als neue Version
+     * veröffentlicht; anschliessend werden die {@link CoopPluginSettingsListener} benachrichtigt.
+     *
+     * @param change Ändert die Felder der Kopie.
+     * @return Der neue Snapshot.
+     */
+    @NotNull
+    public SettingsSnapshot update(@NotNull Consumer<State> change) {
+        SettingsSnapshot oldSnapshot;
+        SettingsSnapshot newSnapshot;
+        // Schreiber werden serialisiert, damit keine Änderung verloren geht; Leser sperren nie
+        synchronized (this) {
+            oldSnapshot = snapshot;
+            State copy = myState.copy();
+            change.accept(copy);
+            // Erneut kopieren, falls die Änderung Objekte des Aufrufers (z. B. Suchmuster) übernommen hat
+            newSnapshot = replace(copy.copy());
+        }
+        notifyListeners(oldSnapshot, newSnapshot);
+        return newSnapshot;
+    }
+
+    @NotNull
+    private SettingsSnapshot replace(@NotNull State state) {
+        SettingsSnapshot newSnapshot = new SettingsSnapshot(state, snapshot.version + 1);
         myState = state;
+        snapshot = newSnapshot;
+        return newSnapshot;
+    }
+
+    private static void notifyListeners(@NotNull SettingsSnapshot oldSnapshot, @NotNull SettingsSnapshot newSnapshot) {
+        Application application = ApplicationManager.getApplication();
+        if (application != null) {
+            application.getMessageBus().syncPublisher(CoopPluginSettingsListener.TOPIC).settingsChanged(oldSnapshot, newSnapshot);
+        }
     }
 
     /**
@@ -76,16 +224,17 @@ public final class CoopPluginSettings implements PersistentStateComponent<CoopPl
      * @throws ConfigurationException If the settings are invalid.
      */
     public void validate() throws ConfigurationException {
-        if (myState.prefix == null || myState.prefix.trim().isEmpty()) {
+        SettingsSnapshot settings = snapshot;
+        if (settings.prefix == null || settings.prefix.trim().isEmpty()) {
             throw new ConfigurationException("Prefix cannot be empty.");
         }
-        if (myState.spaceReplacement == null || myState.spaceReplacement.trim().isEmpty()) {
+        if (settings.spaceReplacement == null || settings.spaceReplacement.trim().isEmpty()) {
             throw new ConfigurationException("Space replacement cannot be empty.");
         }
-        if (myState.jiraApiUrl != null && !myState.jiraApiUrl.isEmpty() && !isValidUrl(myState.jiraApiUrl)) {
+        if (settings.jiraApiUrl != null && !settings.jiraApiUrl.isEmpty() && !isValidUrl(settings.jiraApiUrl)) {
             throw new ConfigurationException("Invalid Jira API URL.");
         }
-        if (myState.jiraApiToken == null || myState.jiraApiToken.trim().isEmpty()) {
+        if (settings.jiraApiToken == null || settings.jiraApiToken.trim().isEmpty()) {
             throw new ConfigurationException("Jira API Token cannot be empty.");
         }
     }
@@ -101,19 +250,29 @@ public final class CoopPluginSettings implements PersistentStateComponent<CoopPl
 
     // Getter und Setter für die Suchmuster
     public List<SearchPattern> getSearchPatterns() {
-        return myState.searchPatterns;
+        return snapshot.searchPatterns;
     }
 
     public void setSearchPatterns(List<SearchPattern> searchPatterns) {
-        myState.searchPatterns = searchPatterns;
+        update(state -> state.searchPatterns = State.copyPatterns(searchPatterns));
     }
 
     // Getter und Setter für den Standard-Index
     public int getDefaultSearchPatternIndex() {
-        return myState.defaultSearchPatternIndex;
+        return snapshot.defaultSearchPatternIndex;
     }
 
     public void setDefaultSearchPatternIndex(int defaultSearchPatternIndex) {
-        myState.defaultSearchPatternIndex = defaultSearchPatternIndex;
+        update(state -> state.defaultSearchPatternIndex = defaultSearchPatternIndex);
+    }
+
+    /**
+     * Gibt den Index über die Suchmuster des aktuellen Snapshots zurück. Er wird pro Änderung einmal aufgebaut.
+     *
+     * @return Der Index der Suchmuster.
+     */
+    @NotNull
+    public SearchPatternIndex getSearchPatternIndex() {
+        return snapshot.getSearchPatternIndex();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package ch.coop.intellij.plugins;
+
+import com.intellij.util.messages.Topic;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Wird über den Message-Bus der Applikation benachrichtigt, nachdem eine neue Version der Einstellungen
+ * veröffentlicht wurde.
+ */
+public interface CoopPluginSettingsListener {
+    Topic<CoopPluginSettingsListener> TOPIC = Topic.create("Coop Plugin Settings", CoopPluginSettingsListener.class);
+
+    /**
+     * Die Einstellungen wurden geändert.
+     *
+     * @param oldSettings Der bisherige Snapshot.
+     * @param newSettings Der neue Snapshot, bereits über {@link CoopPluginSettings#getSnapshot()} sichtbar.
+     */
+    void settingsChanged(@NotNull SettingsSnapshot oldSettings, @NotNull SettingsSnapshot newSettings);
+}
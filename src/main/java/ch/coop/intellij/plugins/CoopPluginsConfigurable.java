@@ -1,6 +1,7 @@
 package ch.coop.intellij.plugins;
 
 import ch.coop.intellij.plugins.urlopener.SearchPattern;
+import ch.coop.intellij.plugins.urlopener.UrlTemplate;
 import com.intellij.openapi.options.Configurable;
 import com.intellij.ui.*;
 import com.intellij.ui.components.JBLabel;
@@ -10,17 +11,15 @@ import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class CoopPluginsConfigurable implements Configurable {
     private JPanel mainPanel;
     private JBTable table;
-    private DefaultTableModel tableModel;
+    private SearchPatternTableModel tableModel;
+    // Version der Einstellungen, gegen die die Tabelle zuletzt verglichen wurde
+    private long loadedSettingsVersion;
 
     @Nls(capitalization = Nls.Capitalization.Title)
     @Override
@@ -39,12 +38,7 @@ public class CoopPluginsConfigurable implements Configurable {
         mainPanel.add(titleLabel, BorderLayout.NORTH);
 
         // Tabelle für Suchmuster
-        tableModel = new DefaultTableModel(new Object[]{"Name", "Shortcut", "URL"}, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Tabelle nicht editierbar machen
-            }
-        };
+        tableModel = new SearchPatternTableModel();
         table = new JBTable(tableModel);
         table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
@@ -54,23 +48,23 @@ public class CoopPluginsConfigurable implements Configurable {
                     // Erstelle ein neues, leeres Suchmuster
                     SearchPattern newPattern = new SearchPattern("", "", "");
                     // Öffne den Dialog zum Bearbeiten
-                    if (editSearchPattern(newPattern)) {
-                        addPatternToTable(newPattern); // Füge das neue Suchmuster zur Tabelle hinzu
+                    if (editSearchPattern(newPattern, -1)) {
+                        tableModel.addPattern(newPattern); // Füge das neue Suchmuster zur Tabelle hinzu
                         table.setRowSelectionInterval(tableModel.getRowCount() - 1, tableModel.getRowCount() - 1); // Markiere das neue Suchmuster
                     }
                 })
                 .setRemoveAction(button -> {
                     int selectedRow = table.getSelectedRow();
                     if (selectedRow >= 0) {
-                        tableModel.removeRow(selectedRow); // Entferne das ausgewählte Suchmuster
+                        tableModel.removePattern(selectedRow); // Entferne das ausgewählte Suchmuster
                     }
                 })
                 .setEditAction(button -> {
                     int selectedRow = table.getSelectedRow();
                     if (selectedRow >= 0) {
-                        SearchPattern selectedPattern = getPatternFromTable(selectedRow);
-                        if (editSearchPattern(selectedPattern)) {
-                            updatePatternInTable(selectedRow, selectedPattern); // Aktualisiere das Suchmuster in der Tabelle
+                        SearchPattern selectedPattern = tableModel.getPattern(selectedRow);
+                        if (editSearchPattern(selectedPattern, selectedRow)) {
+                            tableModel.setPattern(selectedRow, selectedPattern); // Aktualisiere das Suchmuster in der Tabelle
                         }
                     }
                 });
@@ -86,39 +80,41 @@ public class CoopPluginsConfigurable implements Configurable {
 
     @Override
     public boolean isModified() {
-        List<SearchPattern> currentPatterns = getPatternsFromTable();
-        List<SearchPattern> savedPatterns = CoopPluginSettings.getInstance().getSearchPatterns();
-        return !currentPatterns.equals(savedPatterns); // Nur true zurückgeben, wenn die Listen unterschiedlich sind
+        // Wird vom Einstellungsdialog ständig abgefragt; das Modell beantwortet es ohne die Tabelle zu durchlaufen
+        SettingsSnapshot settings = CoopPluginSettings.getInstance().getSnapshot();
+        if (settings.version != loadedSettingsVersion) {
+            // Die Einstellungen wurden ausserhalb dieser Seite geändert
+            tableModel.setBaseline(settings.searchPatterns);
+            loadedSettingsVersion = settings.version;
+        }
+        return tableModel.isModified();
     }
 
     @Override
     public void apply() {
         // Überprüfe die URLs und doppelten Shortcuts vor dem Speichern
-        List<SearchPattern> searchPatterns = getPatternsFromTable();
+        List<SearchPattern> searchPatterns = tableModel.getPatterns();
 
         // Überprüfe auf doppelte Shortcuts
-        Set<String> shortcuts = new HashSet<>();
-        for (SearchPattern pattern : searchPatterns) {
-            String shortcut = pattern.getShortcut();
-            if (shortcuts.contains(shortcut)) {
-                // Zeige eine Fehlermeldung an, wenn ein doppelter Shortcut gefunden wird
-                Messages.showErrorDialog(
-                        mainPanel,
-                        "Der Shortcut '" + shortcut + "' ist bereits vorhanden. Bitte verwende einen eindeutigen Shortcut.",
-                        "Fehler"
-                );
-                return; // Breche den Speichervorgang ab
-            }
-            shortcuts.add(shortcut);
+        String duplicateShortcut = tableModel.findDuplicateShortcut();
+        if (duplicateShortcut != null) {
+            // Zeige eine Fehlermeldung an, wenn ein doppelter Shortcut gefunden wird
+            Messages.showErrorDialog(
+                    mainPanel,
+                    "Der Shortcut '" + duplicateShortcut + "' ist bereits vorhanden. Bitte verwende einen eindeutigen Shortcut.",
+                    "Fehler"
+            );
+            return; // Breche den Speichervorgang ab
         }
 
         // Überprüfe die URLs
         for (SearchPattern pattern : searchPatterns) {
-            if (!isValidUrl(pattern.getUrl())) {
+            String urlError = validateUrl(pattern.getUrl());
+            if (urlError != null) {
                 // Zeige eine Fehlermeldung an, wenn die URL ungültig ist
                 Messages.showErrorDialog(
                         mainPanel,
-                        "Die URL für das Suchmuster '" + pattern.getName() + "' ist ungültig. Sie muss '%s' enthalten.",
+                        "Die URL für das Suchmuster '" + pattern.getName() + "' ist ungültig: " + urlError,
                         "Fehler"
                 );
                 return; // Breche den Speichervorgang ab
@@ -127,6 +123,9 @@ public class CoopPluginsConfigurable implements Configurable {
 
         // Speichere die Suchmuster, wenn alle Überprüfungen bestanden sind
         CoopPluginSettings.getInstance().setSearchPatterns(searchPatterns);
+        SettingsSnapshot settings = CoopPluginSettings.getInstance().getSnapshot();
+        tableModel.setBaseline(settings.searchPatterns);
+        loadedSettingsVersion = settings.version;
     }
 
     @Override
@@ -141,43 +140,25 @@ public class CoopPluginsConfigurable implements Configurable {
     }
 
     private void loadSearchPatterns() {
-        tableModel.setRowCount(0); // Tabelle leeren
-        for (SearchPattern pattern : CoopPluginSettings.getInstance().getSearchPatterns()) {
-            addPatternToTable(pattern); // Suchmuster zur Tabelle hinzufügen
-        }
+        SettingsSnapshot settings = CoopPluginSettings.getInstance().getSnapshot();
+        tableModel.load(settings.searchPatterns);
+        loadedSettingsVersion = settings.version;
     }
 
-    private void addPatternToTable(SearchPattern pattern) {
-        tableModel.addRow(new Object[]{pattern.getName(), pattern.getShortcut(), pattern.getUrl()});
-    }
-
-    private void updatePatternInTable(int row, SearchPattern pattern) {
-        tableModel.setValueAt(pattern.getName(), row, 0);
-        tableModel.setValueAt(pattern.getShortcut(), row, 1);
-        tableModel.setValueAt(pattern.getUrl(), row, 2);
-    }
-
-    private SearchPattern getPatternFromTable(int row) {
-        return new SearchPattern(
-                (String) tableModel.getValueAt(row, 0), // Name
-                (String) tableModel.getValueAt(row, 1), // Shortcut
-                (String) tableModel.getValueAt(row, 2)  // URL
-        );
-    }
-
-    private List<SearchPattern> getPatternsFromTable() {
-        List<SearchPattern> patterns = new ArrayList<>();
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            patterns.add(getPatternFromTable(i));
-        }
-        return patterns;
-    }
-
-    private boolean editSearchPattern(SearchPattern pattern) {
+    /**
+     * Öffnet den Dialog zum Bearbeiten eines Suchmusters.
+     *
+     * @param pattern Das Suchmuster, wird bei OK geändert.
+     * @param row     Die Zeile des Suchmusters in der Tabelle oder -1 für ein neues Suchmuster.
+     * @return true, wenn der Dialog mit OK geschlossen wurde.
+     */
+    private boolean editSearchPattern(SearchPattern pattern, int row) {
         // Dialogfenster erstellen
         JTextField nameField = new JTextField(pattern.getName());
         JTextField shortcutField = new JTextField(pattern.getShortcut());
         JTextField urlField = new JTextField(pattern.getUrl());
+        urlField.setToolTipText("Platzhalter: {term} (Suchbegriff, auch %s), {project}, {branch}, {issue}. "
+                + "Kodierung ändern mit {term|raw}, {term|path} oder {branch|component}.");
 
         JPanel panel = new JPanel(new GridLayout(3, 2));
         panel.add(new JBLabel("Name:"));
@@ -200,11 +181,7 @@ public class CoopPluginsConfigurable implements Configurable {
                 String newShortcut = shortcutField.getText().trim();
 
                 // Überprüfe, ob der Shortcut bereits vorhanden ist (außer beim Bearbeiten des aktuellen Musters)
-                boolean isDuplicate = getPatternsFromTable().stream()
-                        .filter(p -> !p.equals(pattern)) // Ignoriere das aktuelle Muster beim Bearbeiten
-                        .anyMatch(p -> p.getShortcut().equals(newShortcut));
-
-                if (isDuplicate) {
+                if (tableModel.isShortcutUsed(newShortcut, row)) {
                     // Zeige eine Fehlermeldung an, wenn der Shortcut bereits vorhanden ist
                     Messages.showErrorDialog(
                             mainPanel,
@@ -215,10 +192,11 @@ public class CoopPluginsConfigurable implements Configurable {
                 }
 
                 // Überprüfe, ob die URL gültig ist
-                if (!isValidUrl(urlField.getText())) {
+                String urlError = validateUrl(urlField.getText());
+                if (urlError != null) {
                     Messages.showErrorDialog(
                             mainPanel,
-                            "Die URL muss den Platzhalter '%s' enthalten.",
+                            "Die URL ist ungültig: " + urlError,
                             "Fehler"
                     );
                     continue; // Zeige den Dialog erneut an
@@ -235,7 +213,22 @@ public class CoopPluginsConfigurable implements Configurable {
         }
     }
 
-    private boolean isValidUrl(String url) {
-        return url != null && url.contains("%s"); // Überprüfe, ob die URL den Platzhalter '%s' enthält
+    /**
+     * Prüft die URL, indem sie wie beim Öffnen zu einer {@link UrlTemplate} kompiliert wird.
+     *
+     * @param url Die URL mit Platzhaltern ({term}, {project}, {branch}, {issue} oder %s).
+     * @return Die Fehlermeldung oder null, wenn die URL gültig ist.
+     */
+    @Nullable
+    private String validateUrl(String url) {
+        if (url == null || url.isBlank()) {
+            return "Die URL ist leer.";
+        }
+        try {
+            UrlTemplate.compile(url);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
     }
 }
\ No newline at end of file
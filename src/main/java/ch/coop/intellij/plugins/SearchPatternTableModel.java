@@ -0,0 +1,249 @@
+package ch.coop.intellij.plugins;
+
+import ch.coop.intellij.plugins.urlopener.SearchPattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabellenmodell der Suchmuster in den Einstellungen.
+ * <p>
+ * Das Modell führt einen Änderungszähler, einen laufend nachgeführten Hash über den Inhalt (abhängig von der
+ * Reihenfolge) und einen Index der Shortcuts. {@link #isModified()} wird vom Einstellungsdialog ständig abgefragt
+ * und ist damit in O(1): ohne Änderung seit dem Laden reicht der Zähler, sonst unterscheiden sich meist schon
+ * Grösse oder Hash. Nur bei gleichem Hash wird einmal pro Änderung vollständig verglichen.
+ */
+final class SearchPatternTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {"Name", "Shortcut", "URL"};
+
+    private final List<SearchPattern> patterns = new ArrayList<>();
+    // Anzahl Zeilen pro Shortcut und Anzahl Shortcuts, die mehr als einmal vorkommen
+    private final Map<String, Integer> shortcutCounts = new HashMap<>();
+    private int duplicateShortcuts;
+    private long contentHash;
+    private int modificationCount;
+
+    // Der gespeicherte Stand, mit dem verglichen wird
+    private List<SearchPattern> baseline = List.of();
+    private long baselineHash;
+    private int baselineModificationCount;
+    // Ergebnis des letzten vollständigen Vergleichs und der Zählerstand, für den es gilt
+    private int comparedModificationCount = -1;
+    private boolean comparedModified;
+
+    @Override
+    public int getRowCount() {
+        return patterns.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        SearchPattern pattern = patterns.get(row);
+        switch (column) {
+            case 0:
+                return pattern.getName();
+            case 1:
+                return pattern.getShortcut();
+            case 2:
+                return pattern.getUrl();
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Bearbeitet wird über den Dialog
+    }
+
+    /**
+     * Lädt die gespeicherten Suchmuster; sie gelten danach als unverändert.
+     *
+     * @param savedPatterns Die gespeicherten Suchmuster.
+     */
+    void load(@NotNull List<SearchPattern> savedPatterns) {
+        patterns.clear();
+        shortcutCounts.clear();
+        duplicateShortcuts = 0;
+        for (SearchPattern pattern : savedPatterns) {
+            SearchPattern copy = copy(pattern);
+            patterns.add(copy);
+            addShortcut(copy.getShortcut());
+        }
+        contentHash = computeHash(patterns, 0);
+        modificationCount++;
+        setBaseline(savedPatterns);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Legt den gespeicherten Stand fest, mit dem {@link #isModified()} vergleicht, ohne die Tabelle zu ändern.
+     *
+     * @param savedPatterns Die gespeicherten Suchmuster.
+     */
+    void setBaseline(@NotNull List<SearchPattern> savedPatterns) {
+        List<SearchPattern> copies = new ArrayList<>(savedPatterns.size());
+        for (SearchPattern pattern : savedPatterns) {
+            copies.add(copy(pattern));
+        }
+        baseline = copies;
+        baselineHash = computeHash(copies, 0);
+        // Gleicht die Tabelle dem neuen Stand, gilt sie als unverändert; sonst beim nächsten Aufruf vergleichen
+        baselineModificationCount = patterns.equals(copies) ? modificationCount : -1;
+        comparedModificationCount = -1;
+    }
+
+    /**
+     * Prüft, ob sich die Tabelle vom gespeicherten Stand unterscheidet.
+     */
+    boolean isModified() {
+        if (modificationCount == baselineModificationCount) {
+            return false;
+        }
+        if (modificationCount != comparedModificationCount) {
+            comparedModified = patterns.size() != baseline.size() || contentHash != baselineHash || !patterns.equals(baseline);
+            comparedModificationCount = modificationCount;
+        }
+        return comparedModified;
+    }
+
+    /**
+     * Gibt eine Kopie des Suchmusters in einer Zeile zurück.
+     */
+    @NotNull
+    SearchPattern getPattern(int row) {
+        return copy(patterns.get(row));
+    }
+
+    /**
+     * Gibt Kopien aller Suchmuster in der Reihenfolge der Tabelle zurück.
+     */
+    @NotNull
+    List<SearchPattern> getPatterns() {
+        List<SearchPattern> copies = new ArrayList<>(patterns.size());
+        for (SearchPattern pattern : patterns) {
+            copies.add(copy(pattern));
+        }
+        return copies;
+    }
+
+    void addPattern(@NotNull SearchPattern pattern) {
+        SearchPattern copy = copy(pattern);
+        int row = patterns.size();
+        patterns.add(copy);
+        addShortcut(copy.getShortcut());
+        contentHash += rowHash(row, copy);
+        modificationCount++;
+        fireTableRowsInserted(row, row);
+    }
+
+    void setPattern(int row, @NotNull SearchPattern pattern) {
+        SearchPattern copy = copy(pattern);
+        SearchPattern previous = patterns.set(row, copy);
+        removeShortcut(previous.getShortcut());
+        addShortcut(copy.getShortcut());
+        contentHash += rowHash(row, copy) - rowHash(row, previous);
+        modificationCount++;
+        fireTableRowsUpdated(row, row);
+    }
+
+    void removePattern(int row) {
+        // Die nachfolgenden Zeilen rücken nach, ihr Anteil am Hash ändert sich mit der Position
+        contentHash -= computeHash(patterns, row);
+        SearchPattern removed = patterns.remove(row);
+        removeShortcut(removed.getShortcut());
+        contentHash += computeHash(patterns, row);
+        modificationCount++;
+        fireTableRowsDeleted(row, row);
+    }
+
+    /**
+     * Prüft, ob ein Shortcut in einer anderen Zeile bereits verwendet wird.
+     *
+     * @param shortcut    Der Shortcut.
+     * @param excludedRow Die Zeile, die gerade bearbeitet wird, oder -1 für ein neues Suchmuster.
+     * @return true, wenn der Shortcut in einer anderen Zeile vorkommt.
+     */
+    boolean isShortcutUsed(@NotNull String shortcut, int excludedRow) {
+        int count = shortcutCounts.getOrDefault(shortcut, 0);
+        if (excludedRow >= 0 && shortcut.equals(patterns.get(excludedRow).getShortcut())) {
+            count--;
+        }
+        return count > 0;
+    }
+
+    /**
+     * Gibt einen Shortcut zurück, der in mehreren Zeilen vorkommt.
+     *
+     * @return Der doppelte Shortcut oder null, wenn alle eindeutig sind.
+     */
+    @Nullable
+    String findDuplicateShortcut() {
+        if (duplicateShortcuts == 0) {
+            return null;
+        }
+        for (SearchPattern pattern : patterns) {
+            if (shortcutCounts.getOrDefault(pattern.getShortcut(), 0) > 1) {
+                return pattern.getShortcut();
+            }
+        }
+        return null;
+    }
+
+    private void addShortcut(@Nullable String shortcut) {
+        if (shortcutCounts.merge(String.valueOf(shortcut), 1, Integer::sum) == 2) {
+            duplicateShortcuts++;
+        }
+    }
+
+    private void removeShortcut(@Nullable String shortcut) {
+        String key = String.valueOf(shortcut);
+        int count = shortcutCounts.getOrDefault(key, 0);
+        if (count <= 1) {
+            shortcutCounts.remove(key);
+        } else {
+            shortcutCounts.put(key, count - 1);
+            if (count == 2) {
+                duplicateShortcuts--;
+            }
+        }
+    }
+
+    private static long computeHash(@NotNull List<SearchPattern> patterns, int fromRow) {
+        long hash = 0;
+        for (int row = fromRow; row < patterns.size(); row++) {
+            hash += rowHash(row, patterns.get(row));
+        }
+        return hash;
+    }
+
+    /**
+     * Anteil einer Zeile am Hash. Die Position wird eingemischt, damit auch vertauschte Zeilen als Änderung gelten.
+     */
+    private static long rowHash(int row, @NotNull SearchPattern pattern) {
+        long hash = (pattern.hashCode() & 0xFFFFFFFFL) + row * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    @NotNull
+    private static SearchPattern copy(@NotNull SearchPattern pattern) {
+        return new SearchPattern(pattern.getName(), pattern.getShortcut(), pattern.getUrl());
+    }
+}
@@ -0,0 +1,83 @@
+package ch.coop.intellij.plugins;
+
+import ch.coop.intellij.plugins.services.JiraHttpClient;
+import ch.coop.intellij.plugins.services.JiraIssueIndex;
+import ch.coop.intellij.plugins.services.JiraSearchCache;
+import ch.coop.intellij.plugins.vcs.RepositoryCatalog;
+import ch.coop.intellij.plugins.vcs.VcsToolRegistry;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Passt die Dienste an eine neue Version der Einstellungen an, aber nur die, deren Einstellungen sich geändert
+ * haben und die bereits erzeugt wurden. Ein noch nicht erzeugter Dienst liest beim Start ohnehin den neuen Stand.
+ */
+public final class SettingsChangeHandler implements CoopPluginSettingsListener {
+
+    @Override
+    public void settingsChanged(@NotNull SettingsSnapshot oldSettings, @NotNull SettingsSnapshot newSettings) {
+        if (!Objects.equals(oldSettings.gitExecutable, newSettings.gitExecutable)
+                || !Objects.equals(oldSettings.hgExecutable, newSettings.hgExecutable)) {
+            // Werkzeuge beim nächsten Zugriff neu prüfen
+            VcsToolRegistry registry = getServiceIfCreated(VcsToolRegistry.class);
+            if (registry != null) {
+                registry.invalidate();
+            }
+        }
+
+        if (oldSettings.jiraConnectTimeoutMillis != newSettings.jiraConnectTimeoutMillis) {
+            JiraHttpClient client = getServiceIfCreated(JiraHttpClient.class);
+            if (client != null) {
+                client.resetClient();
+            }
+        }
+
+        if (!Objects.equals(oldSettings.jiraApiUrl, newSettings.jiraApiUrl)
+                || !Objects.equals(oldSettings.jiraApiToken, newSettings.jiraApiToken)) {
+            // Mit einem anderen Token sind andere Issues sichtbar
+            JiraSearchCache cache = getServiceIfCreated(JiraSearchCache.class);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+
+        if (oldSettings.jiraIndexEnabled != newSettings.jiraIndexEnabled
+                || oldSettings.jiraIndexSyncMinutes != newSettings.jiraIndexSyncMinutes) {
+            // Synchronisation des Jira-Index an die neuen Einstellungen anpassen
+            JiraIssueIndex index = getServiceIfCreated(JiraIssueIndex.class);
+            if (index != null) {
+                index.reschedule();
+            }
+        }
+
+        if (!Objects.equals(oldSettings.jiraIndexProjects, newSettings.jiraIndexProjects)
+                || !Objects.equals(oldSettings.jiraApiUrl, newSettings.jiraApiUrl)
+                || !Objects.equals(oldSettings.jiraApiToken, newSettings.jiraApiToken)) {
+            // Der Index gehört zu Server, Projekten und Token; er wird bei der Synchronisation neu aufgebaut
+            JiraIssueIndex index = getServiceIfCreated(JiraIssueIndex.class);
+            if (index != null) {
+                index.syncInBackground();
+            }
+        }
+
+        if (!Objects.equals(oldSettings.repositoryScanExcludes, newSettings.repositoryScanExcludes)
+                || oldSettings.repositoryScanMaxDepth != newSettings.repositoryScanMaxDepth
+                || oldSettings.nestedRepositories != newSettings.nestedRepositories) {
+            // Repository-Kataloge der geöffneten Projekte neu scannen
+            for (Project project : ProjectManager.getInstance().getOpenProjects()) {
+                RepositoryCatalog catalog = project.isDisposed() ? null : project.getServiceIfCreated(RepositoryCatalog.class);
+                if (catalog != null) {
+                    catalog.scheduleRescan();
+                }
+            }
+        }
+    }
+
+    private static <T> T getServiceIfCreated(@NotNull Class<T> serviceClass) {
+        return ApplicationManager.getApplication().getServiceIfCreated(serviceClass);
+    }
+}
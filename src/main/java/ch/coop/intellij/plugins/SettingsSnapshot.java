@@ -0,0 +1,134 @@
+package ch.coop.intellij.plugins;
+
+import ch.coop.intellij.plugins.branchcreator.BranchNameGenerator;
+import ch.coop.intellij.plugins.branchcreator.BranchNameTemplate;
+import ch.coop.intellij.plugins.urlopener.SearchPattern;
+import ch.coop.intellij.plugins.urlopener.SearchPatternIndex;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unveränderlicher, versionierter Stand der Einstellungen.
+ * <p>
+ * {@link CoopPluginSettings#getSnapshot()} liefert ihn ohne Sperre; ein Aufrufer, der mehrere Werte liest, sieht
+ * damit immer einen zusammengehörigen Stand. Jede Änderung über {@link CoopPluginSettings#update} erzeugt einen
+ * neuen Snapshot mit höherer Version. Abgeleitete Objekte (Index der Suchmuster, kompilierte Branch-Vorlage)
+ * werden pro Snapshot höchstens einmal beim ersten Zugriff erzeugt.
+ */
+public final class SettingsSnapshot {
+    public final long version;
+
+    @Nullable
+    public final String prefix;
+    public final String spaceReplacement;
+    public final String branchNameTemplate;
+    public final boolean autoPush;
+    public final String jiraApiUrl;
+    public final String jiraApiToken;
+
+    public final String repositoryScanExcludes;
+    public final int repositoryScanMaxDepth;
+    public final boolean nestedRepositories;
+
+    public final String gitExecutable;
+    public final String hgExecutable;
+
+    public final int jiraCacheTtlSeconds;
+    public final int jiraCacheMaxEntries;
+    public final int jiraConnectTimeoutMillis;
+    public final int jiraRequestTimeoutMillis;
+
+    public final boolean jiraIndexEnabled;
+    public final String jiraIndexProjects;
+    public final int jiraIndexSyncMinutes;
+
+    // Unveränderliche Kopien der Suchmuster, damit weder Änderungen am Stand noch Aufrufer den Snapshot verändern
+    public final List<SearchPattern> searchPatterns;
+    public final int defaultSearchPatternIndex;
+
+    // Abgeleitete Objekte; bei gleichzeitigem ersten Zugriff werden sie schlimmstenfalls doppelt erzeugt
+    private volatile SearchPatternIndex searchPatternIndex;
+    private volatile BranchNameTemplate compiledBranchNameTemplate;
+
+    SettingsSnapshot(@NotNull CoopPluginSettings.State state, long version) {
+        this.version = version;
+        this.prefix = state.prefix;
+        this.spaceReplacement = state.spaceReplacement;
+        this.branchNameTemplate = state.branchNameTemplate;
+        this.autoPush = state.autoPush;
+        this.jiraApiUrl = state.jiraApiUrl;
+        this.jiraApiToken = state.jiraApiToken;
+        this.repositoryScanExcludes = state.repositoryScanExcludes;
+        this.repositoryScanMaxDepth = state.repositoryScanMaxDepth;
+        this.nestedRepositories = state.nestedRepositories;
+        this.gitExecutable = state.gitExecutable;
+        this.hgExecutable = state.hgExecutable;
+        this.jiraCacheTtlSeconds = state.jiraCacheTtlSeconds;
+        this.jiraCacheMaxEntries = state.jiraCacheMaxEntries;
+        this.jiraConnectTimeoutMillis = state.jiraConnectTimeoutMillis;
+        this.jiraRequestTimeoutMillis = state.jiraRequestTimeoutMillis;
+        this.jiraIndexEnabled = state.jiraIndexEnabled;
+        this.jiraIndexProjects = state.jiraIndexProjects;
+        this.jiraIndexSyncMinutes = state.jiraIndexSyncMinutes;
+        this.searchPatterns = copyPatterns(state.searchPatterns);
+        this.defaultSearchPatternIndex = state.defaultSearchPatternIndex;
+    }
+
+    /**
+     * Erzeugt einen Snapshot ausserhalb des Einstellungs-Service, z. B. für Benchmarks.
+     *
+     * @param state Die Einstellungen.
+     * @return Der Snapshot mit Version 0.
+     */
+    @NotNull
+    public static SettingsSnapshot of(@NotNull CoopPluginSettings.State state) {
+        return new SettingsSnapshot(state, 0);
+    }
+
+    /**
+     * Gibt den Index über die Suchmuster dieses Snapshots zurück.
+     *
+     * @return Der Index der Suchmuster.
+     */
+    @NotNull
+    public SearchPatternIndex getSearchPatternIndex() {
+        SearchPatternIndex index = searchPatternIndex;
+        if (index == null) {
+            index = new SearchPatternIndex(searchPatterns, defaultSearchPatternIndex);
+            searchPatternIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Gibt die kompilierte Branch-Vorlage dieses Snapshots zurück. Eine ungültige gespeicherte Vorlage wird durch
+     * die Standardvorlage ersetzt.
+     *
+     * @return Die kompilierte Vorlage.
+     */
+    @NotNull
+    public BranchNameTemplate getBranchNameTemplate() {
+        BranchNameTemplate template = compiledBranchNameTemplate;
+        if (template == null) {
+            template = BranchNameGenerator.compileTemplate(branchNameTemplate, spaceReplacement);
+            compiledBranchNameTemplate = template;
+        }
+        return template;
+    }
+
+    @NotNull
+    private static List<SearchPattern> copyPatterns(@Nullable List<SearchPattern> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<SearchPattern> copies = new ArrayList<>(patterns.size());
+        for (SearchPattern pattern : patterns) {
+            copies.add(pattern.immutableCopy());
+        }
+        return Collections.unmodifiableList(copies);
+    }
+}
@@ -1,8 +1,7 @@
 package ch.coop.intellij.plugins.branchcreator;
 
 import ch.coop.intellij.plugins.CoopPluginSettings;
-import ch.coop.intellij.plugins.vcs.VcsHandler;
-import ch.coop.intellij.plugins.vcs.VcsHandlerManager;
+import ch.coop.intellij.plugins.vcs.RepositoryDescriptor;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.diagnostic.Logger;
@@ -10,11 +9,11 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 public class BranchCreatorAction extends AnAction {
     private static final Logger LOG = Logger.getInstance(BranchCreatorAction.class);
 
-    private final VcsHandlerManager vcsHandlerManager = new VcsHandlerManager();
-
     @Override
     public void actionPerformed(@NotNull AnActionEvent e) {
         Project project = e.getProject();
@@ -23,16 +22,12 @@ public class BranchCreatorAction extends AnAction {
         BranchCreatorDialog dialog = new BranchCreatorDialog(project);
         if (dialog.showAndGet()) {
             String branchName = dialog.getNewBranchName();
-            String repositoryPath = dialog.getSelectedRepositoryPath();
+            List<RepositoryDescriptor> repositories = dialog.getSelectedRepositories();
             CoopPluginSettings settings = CoopPluginSettings.getInstance();
-            boolean push = settings.getState().autoPush;
-            VcsHandler handler = vcsHandlerManager.getSupportedHandler(project);
-            if (handler != null) {
-                try {
-                    handler.createBranch(project, branchName, repositoryPath, push);
-                } catch (Exception ex) {
-                    Messages.showErrorDialog(project, "Failed to create branch: " + ex.getMessage(), "Error");
-                }
+            boolean push = settings.getSnapshot().autoPush;
+            if (!repositories.isEmpty()) {
+                // Branches im Hintergrund erstellen, bei mehreren Repositorys parallel
+                new MultiRepositoryBranchCreator(project, branchName, dialog.getBaseBranch(), repositories, push).queue();
             } else {
                 Messages.showErrorDialog(project, "No supported VCS repository found. Please ensure your project is under version control.", "Error");
             }
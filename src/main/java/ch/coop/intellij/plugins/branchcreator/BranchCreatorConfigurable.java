@@ -1,6 +1,10 @@
 package ch.coop.intellij.plugins.branchcreator;
 
 import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import ch.coop.intellij.plugins.services.JiraHttpClient;
+import ch.coop.intellij.plugins.services.JiraSearchCache;
+import ch.coop.intellij.plugins.vcs.BranchNameValidator;
 import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.options.ConfigurationException;
 import org.jetbrains.annotations.Nls;
@@ -16,9 +20,24 @@ public class BranchCreatorConfigurable implements Configurable {
     private JPanel mainPanel;
     private JTextField prefixField;
     private JTextField spaceReplacementField;
+    private JTextField branchNameTemplateField;
     private JCheckBox autoPushCheckBox;
     private JTextField jiraApiUrlField;
     private JPasswordField jiraApiTokenField;
+    private JTextField repositoryScanExcludesField;
+    private JSpinner repositoryScanMaxDepthSpinner;
+    private JCheckBox nestedRepositoriesCheckBox;
+    private JTextField gitExecutableField;
+    private JTextField hgExecutableField;
+    private JSpinner jiraCacheTtlSpinner;
+    private JSpinner jiraCacheMaxEntriesSpinner;
+    private JLabel jiraCacheStatisticsLabel;
+    private JSpinner jiraConnectTimeoutSpinner;
+    private JSpinner jiraRequestTimeoutSpinner;
+    private JLabel jiraHttpStatisticsLabel;
+    private JCheckBox jiraIndexEnabledCheckBox;
+    private JTextField jiraIndexProjectsField;
+    private JSpinner jiraIndexSyncMinutesSpinner;
 
     private final CoopPluginSettings settings;
 
@@ -43,6 +62,56 @@ public class BranchCreatorConfigurable implements Configurable {
         jiraApiTokenField = new JPasswordField();
         addLabelAndComponent(mainPanel, gbc, 4, "Jira API Token:", jiraApiTokenField);
 
+        repositoryScanExcludesField = new JTextField();
+        repositoryScanExcludesField.setToolTipText("Comma-separated glob patterns of directories that are not scanned for repositories.");
+        addLabelAndComponent(mainPanel, gbc, 5, "Scan Excludes:", repositoryScanExcludesField);
+
+        repositoryScanMaxDepthSpinner = new JSpinner(new SpinnerNumberModel(CoopPluginSettings.State.DEFAULT_REPOSITORY_SCAN_MAX_DEPTH, 0, 100, 1));
+        addLabelAndComponent(mainPanel, gbc, 6, "Scan Max Depth:", repositoryScanMaxDepthSpinner);
+
+        nestedRepositoriesCheckBox = new JCheckBox();
+        addLabelAndComponent(mainPanel, gbc, 7, "Nested Repositories:", nestedRepositoriesCheckBox);
+
+        gitExecutableField = new JTextField();
+        addLabelAndComponent(mainPanel, gbc, 8, "Git Executable:", gitExecutableField);
+
+        hgExecutableField = new JTextField();
+        addLabelAndComponent(mainPanel, gbc, 9, "Mercurial Executable:", hgExecutableField);
+
+        jiraCacheTtlSpinner = new JSpinner(new SpinnerNumberModel(CoopPluginSettings.State.DEFAULT_JIRA_CACHE_TTL_SECONDS, 0, 86_400, 30));
+        addLabelAndComponent(mainPanel, gbc, 10, "Jira Cache TTL (s):", jiraCacheTtlSpinner);
+
+        jiraCacheMaxEntriesSpinner = new JSpinner(new SpinnerNumberModel(CoopPluginSettings.State.DEFAULT_JIRA_CACHE_MAX_ENTRIES, 1, 10_000, 50));
+        addLabelAndComponent(mainPanel, gbc, 11, "Jira Cache Max Entries:", jiraCacheMaxEntriesSpinner);
+
+        jiraCacheStatisticsLabel = new JLabel();
+        addLabelAndComponent(mainPanel, gbc, 12, "Jira Cache:", jiraCacheStatisticsLabel);
+
+        jiraConnectTimeoutSpinner = new JSpinner(new SpinnerNumberModel(CoopPluginSettings.State.DEFAULT_JIRA_CONNECT_TIMEOUT_MILLIS, 100, 120_000, 500));
+        addLabelAndComponent(mainPanel, gbc, 13, "Jira Connect Timeout (ms):", jiraConnectTimeoutSpinner);
+
+        jiraRequestTimeoutSpinner = new JSpinner(new SpinnerNumberModel(CoopPluginSettings.State.DEFAULT_JIRA_REQUEST_TIMEOUT_MILLIS, 100, 300_000, 500));
+        addLabelAndComponent(mainPanel, gbc, 14, "Jira Request Timeout (ms):", jiraRequestTimeoutSpinner);
+
+        jiraHttpStatisticsLabel = new JLabel();
+        addLabelAndComponent(mainPanel, gbc, 15, "Jira Requests:", jiraHttpStatisticsLabel);
+
+        jiraIndexEnabledCheckBox = new JCheckBox();
+        addLabelAndComponent(mainPanel, gbc, 16, "Offline Jira Index:", jiraIndexEnabledCheckBox);
+
+        jiraIndexProjectsField = new JTextField();
+        jiraIndexProjectsField.setToolTipText("Comma-separated Jira project keys that are synchronized in addition to your own and recently viewed issues.");
+        addLabelAndComponent(mainPanel, gbc, 17, "Indexed Projects:", jiraIndexProjectsField);
+
+        jiraIndexSyncMinutesSpinner = new JSpinner(new SpinnerNumberModel(CoopPluginSettings.State.DEFAULT_JIRA_INDEX_SYNC_MINUTES, 1, 1_440, 5));
+        addLabelAndComponent(mainPanel, gbc, 18, "Index Sync Interval (min):", jiraIndexSyncMinutesSpinner);
+
+        branchNameTemplateField = new JTextField();
+        branchNameTemplateField.setToolTipText("<html>Placeholders: {prefix}, {issue}, {summary}<br>"
+                + "Filters: translit, slug, sanitize, lower, upper, max:N<br>"
+                + "Example: {prefix}{issue}-{summary|translit|slug|max:40}</html>");
+        addLabelAndComponent(mainPanel, gbc, 19, "Branch Name Template:", branchNameTemplateField);
+
         loadSettings();
     }
 
@@ -62,11 +131,27 @@ public class BranchCreatorConfigurable implements Configurable {
     }
 
     private void loadSettings() {
-        prefixField.setText(settings.getState().prefix);
-        spaceReplacementField.setText(settings.getState().spaceReplacement);
-        autoPushCheckBox.setSelected(settings.getState().autoPush);
-        jiraApiUrlField.setText(settings.getState().jiraApiUrl);
-        jiraApiTokenField.setText(settings.getState().jiraApiToken);
+        SettingsSnapshot current = settings.getSnapshot();
+        prefixField.setText(current.prefix);
+        spaceReplacementField.setText(current.spaceReplacement);
+        autoPushCheckBox.setSelected(current.autoPush);
+        jiraApiUrlField.setText(current.jiraApiUrl);
+        jiraApiTokenField.setText(current.jiraApiToken);
+        repositoryScanExcludesField.setText(current.repositoryScanExcludes);
+        repositoryScanMaxDepthSpinner.setValue(current.repositoryScanMaxDepth);
+        nestedRepositoriesCheckBox.setSelected(current.nestedRepositories);
+        gitExecutableField.setText(current.gitExecutable);
+        hgExecutableField.setText(current.hgExecutable);
+        jiraCacheTtlSpinner.setValue(current.jiraCacheTtlSeconds);
+        jiraCacheMaxEntriesSpinner.setValue(current.jiraCacheMaxEntries);
+        jiraCacheStatisticsLabel.setText(JiraSearchCache.getInstance().toString());
+        jiraConnectTimeoutSpinner.setValue(current.jiraConnectTimeoutMillis);
+        jiraRequestTimeoutSpinner.setValue(current.jiraRequestTimeoutMillis);
+        jiraHttpStatisticsLabel.setText(JiraHttpClient.getInstance().toString());
+        jiraIndexEnabledCheckBox.setSelected(current.jiraIndexEnabled);
+        jiraIndexProjectsField.setText(current.jiraIndexProjects);
+        jiraIndexSyncMinutesSpinner.setValue(current.jiraIndexSyncMinutes);
+        branchNameTemplateField.setText(current.branchNameTemplate);
     }
 
     @Nls(capitalization = Nls.Capitalization.Title)
@@ -83,11 +168,25 @@ public class BranchCreatorConfigurable implements Configurable {
 
     @Override
     public boolean isModified() {
-        return !prefixField.getText().equals(settings.getState().prefix) ||
-                !spaceReplacementField.getText().equals(settings.getState().spaceReplacement) ||
-                autoPushCheckBox.isSelected() != settings.getState().autoPush ||
-                !jiraApiUrlField.getText().equals(settings.getState().jiraApiUrl) ||
-                !new String(jiraApiTokenField.getPassword()).equals(settings.getState().jiraApiToken);
+        SettingsSnapshot current = settings.getSnapshot();
+        return !prefixField.getText().equals(current.prefix) ||
+                !spaceReplacementField.getText().equals(current.spaceReplacement) ||
+                autoPushCheckBox.isSelected() != current.autoPush ||
+                !jiraApiUrlField.getText().equals(current.jiraApiUrl) ||
+                !new String(jiraApiTokenField.getPassword()).equals(current.jiraApiToken) ||
+                !repositoryScanExcludesField.getText().equals(current.repositoryScanExcludes) ||
+                (Integer) repositoryScanMaxDepthSpinner.getValue() != current.repositoryScanMaxDepth ||
+                nestedRepositoriesCheckBox.isSelected() != current.nestedRepositories ||
+                !gitExecutableField.getText().equals(current.gitExecutable) ||
+                !hgExecutableField.getText().equals(current.hgExecutable) ||
+                (Integer) jiraCacheTtlSpinner.getValue() != current.jiraCacheTtlSeconds ||
+                (Integer) jiraCacheMaxEntriesSpinner.getValue() != current.jiraCacheMaxEntries ||
+                (Integer) jiraConnectTimeoutSpinner.getValue() != current.jiraConnectTimeoutMillis ||
+                (Integer) jiraRequestTimeoutSpinner.getValue() != current.jiraRequestTimeoutMillis ||
+                jiraIndexEnabledCheckBox.isSelected() != current.jiraIndexEnabled ||
+                !jiraIndexProjectsField.getText().equals(current.jiraIndexProjects) ||
+                (Integer) jiraIndexSyncMinutesSpinner.getValue() != current.jiraIndexSyncMinutes ||
+                !branchNameTemplateField.getText().equals(current.branchNameTemplate);
     }
 
     @Override
@@ -102,11 +201,45 @@ public class BranchCreatorConfigurable implements Configurable {
             throw new ConfigurationException("Jira API Token is required.");
         }
 
-        settings.getState().prefix = prefixField.getText();
-        settings.getState().spaceReplacement = spaceReplacementField.getText();
-        settings.getState().autoPush = autoPushCheckBox.isSelected();
-        settings.getState().jiraApiUrl = jiraApiUrl;
-        settings.getState().jiraApiToken = jiraApiToken;
+        String branchNameTemplate = branchNameTemplateField.getText();
+        validateBranchNameTemplate(branchNameTemplate, prefixField.getText(), spaceReplacementField.getText());
+
+        // Alle Felder auf einmal veröffentlichen; Caches und Dienste reagieren über CoopPluginSettingsListener
+        settings.update(state -> {
+            state.prefix = prefixField.getText();
+            state.spaceReplacement = spaceReplacementField.getText();
+            state.autoPush = autoPushCheckBox.isSelected();
+            state.jiraApiUrl = jiraApiUrl;
+            state.jiraApiToken = jiraApiToken;
+            state.repositoryScanExcludes = repositoryScanExcludesField.getText();
+            state.repositoryScanMaxDepth = (Integer) repositoryScanMaxDepthSpinner.getValue();
+            state.nestedRepositories = nestedRepositoriesCheckBox.isSelected();
+            state.gitExecutable = gitExecutableField.getText();
+            state.hgExecutable = hgExecutableField.getText();
+            state.jiraCacheTtlSeconds = (Integer) jiraCacheTtlSpinner.getValue();
+            state.jiraCacheMaxEntries = (Integer) jiraCacheMaxEntriesSpinner.getValue();
+            state.jiraConnectTimeoutMillis = (Integer) jiraConnectTimeoutSpinner.getValue();
+            state.jiraRequestTimeoutMillis = (Integer) jiraRequestTimeoutSpinner.getValue();
+            state.jiraIndexEnabled = jiraIndexEnabledCheckBox.isSelected();
+            state.jiraIndexProjects = jiraIndexProjectsField.getText();
+            state.jiraIndexSyncMinutes = (Integer) jiraIndexSyncMinutesSpinner.getValue();
+            state.branchNameTemplate = branchNameTemplate;
+        });
+    }
+
+    private void validateBranchNameTemplate(String template, String prefix, String spaceReplacement) throws ConfigurationException {
+        BranchNameTemplate compiled;
+        try {
+            compiled = BranchNameTemplate.compile(template, spaceReplacement);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid branch name template: " + e.getMessage());
+        }
+        // Mit einem Beispiel prüfen, ob die Vorlage überhaupt gültige Namen erzeugen kann
+        String example = compiled.render(prefix, "ABC-123", "Example summary");
+        String error = BranchNameValidator.validateGit(example);
+        if (error != null) {
+            throw new ConfigurationException("The branch name template produces '" + example + "', which is not a valid branch name: " + error);
+        }
     }
 
     private boolean isValidUrl(String url) {
@@ -131,5 +264,20 @@ public class BranchCreatorConfigurable implements Configurable {
         autoPushCheckBox = null;
         jiraApiUrlField = null;
         jiraApiTokenField = null;
+        repositoryScanExcludesField = null;
+        repositoryScanMaxDepthSpinner = null;
+        nestedRepositoriesCheckBox = null;
+        gitExecutableField = null;
+        hgExecutableField = null;
+        jiraCacheTtlSpinner = null;
+        jiraCacheMaxEntriesSpinner = null;
+        jiraCacheStatisticsLabel = null;
+        jiraConnectTimeoutSpinner = null;
+        jiraRequestTimeoutSpinner = null;
+        jiraHttpStatisticsLabel = null;
+        jiraIndexEnabledCheckBox = null;
+        jiraIndexProjectsField = null;
+        jiraIndexSyncMinutesSpinner = null;
+        branchNameTemplateField = null;
     }
 }
\ No newline at end of file
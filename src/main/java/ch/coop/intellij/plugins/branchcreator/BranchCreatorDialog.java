@@ -1,48 +1,99 @@
 package ch.coop.intellij.plugins.branchcreator;
 
 import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
 import ch.coop.intellij.plugins.helper.UIHelper;
+import ch.coop.intellij.plugins.metrics.DialogOpenEvent;
+import ch.coop.intellij.plugins.metrics.PluginMetrics;
+import ch.coop.intellij.plugins.services.JiraIssue;
+import ch.coop.intellij.plugins.services.JiraIssueIndex;
 import ch.coop.intellij.plugins.services.JiraService;
+import ch.coop.intellij.plugins.services.JiraSuggestionEngine;
+import ch.coop.intellij.plugins.vcs.BranchNameValidator;
+import ch.coop.intellij.plugins.vcs.GitHandler;
+import ch.coop.intellij.plugins.vcs.GitRefIndex;
+import ch.coop.intellij.plugins.vcs.GitRefSnapshot;
+import ch.coop.intellij.plugins.vcs.RepositoryCatalog;
+import ch.coop.intellij.plugins.vcs.RepositoryDescriptor;
 import ch.coop.intellij.plugins.vcs.VcsCommandException;
-import ch.coop.intellij.plugins.vcs.VcsHandler;
 import ch.coop.intellij.plugins.vcs.VcsHandlerManager;
+import ch.coop.intellij.plugins.vcs.VcsType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBScrollPane;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.JTextComponent;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
 
 public class BranchCreatorDialog extends DialogWrapper {
+    private static final int MAX_BASE_BRANCH_SUGGESTIONS = 50;
+
     private Project project;
     private JPanel contentPane;
     private GridBagConstraints gbc;
     private JTextField shortDescriptionField;
     private JLabel newBranchNameValueLabel;
-    private JComboBox<String> jiraIssueIdComboBox;
-    private JComboBox<String> repositoryComboBox;
+    private String newBranchName = "";
+    private JComboBox<JiraIssue> jiraIssueIdComboBox;
+    private JBList<RepositoryDescriptor> repositoryList;
     private JLabel configureLink;
     private JLabel vcsInfoLabel;
     private JLabel currentBranchLabel;
+    private JComboBox<String> baseBranchComboBox;
 
     private final CoopPluginSettings settings;
     private final JiraService jiraService;
     private final VcsHandlerManager vcsHandlerManager = new VcsHandlerManager();
+    private final VcsInfoLoader vcsInfoLoader;
+    private final JiraIssueSearcher jiraIssueSearcher;
+    private boolean updatingJiraIssues;
+    private JiraSuggestionEngine suggestionEngine = new JiraSuggestionEngine();
+    private String completeJiraQuery;
+    private List<JiraIssue> completeJiraIssues = List.of();
+    private boolean updatingBaseBranches;
+    // Mit Git geprüfte Basis-Revisionen, die der Branch-Index nicht kennt; nur auf dem EDT verwendet
+    private final Map<String, BaseBranchCheck> baseBranchChecks = new HashMap<>();
 
     public BranchCreatorDialog(@NotNull Project project) {
         super(true);
+        DialogOpenEvent openEvent = new DialogOpenEvent();
+        openEvent.begin();
+        long openStart = System.nanoTime();
         this.project = project;
         this.settings = CoopPluginSettings.getInstance();
-        this.jiraService = new JiraService(project, settings.getState().jiraApiUrl, settings.getState().jiraApiToken);
+        SettingsSnapshot current = settings.getSnapshot();
+        this.jiraService = new JiraService(project, current.jiraApiUrl, current.jiraApiToken);
+        this.vcsInfoLoader = new VcsInfoLoader(project);
+        Disposer.register(getDisposable(), vcsInfoLoader);
+        this.jiraIssueSearcher = new JiraIssueSearcher(jiraService);
+        Disposer.register(getDisposable(), jiraIssueSearcher);
+        loadIndexedSuggestions(current);
         init();
         setTitle("Create Branch");
+
+        PluginMetrics.recordDuration(PluginMetrics.DIALOG_OPEN_PREFIX + "branchCreator", System.nanoTime() - openStart);
+        if (openEvent.shouldCommit()) {
+            openEvent.dialog = "Create Branch";
+            openEvent.commit();
+        }
     }
 
     @Override
@@ -68,14 +119,30 @@ public class BranchCreatorDialog extends DialogWrapper {
     private void initComponents() {
         System.out.println("initComponents");
 
-        List<String> repositoryPaths = new ArrayList<>();
-        for (VcsHandler handler : vcsHandlerManager.getHandlers()) {
-            repositoryPaths.addAll(handler.getRepositoryPaths(project));
+        // Ist der Katalog noch nicht aktuell, wird er im Hintergrund gescannt und die Liste danach neu geladen
+        RepositoryCatalog catalog = RepositoryCatalog.getInstance(project);
+        if (!catalog.isUpToDate()) {
+            catalog.scheduleRescan().thenRun(() -> ApplicationManager.getApplication().invokeLater(
+                    this::reloadRepositories, ModalityState.any()));
         }
 
-        repositoryComboBox = new ComboBox<>(repositoryPaths.toArray(new String[0]));
-        repositoryComboBox.addActionListener(e -> updateVcsInfo());
-        addLabelAndComponent(0, "Repository:", repositoryComboBox);
+        // Alle Repositorys in einem Durchlauf, jeweils mit dem zuständigen VCS-Handler
+        List<RepositoryDescriptor> repositories = vcsHandlerManager.getRepositories(project);
+
+        // Mehrfachauswahl, damit ein Branch in mehreren Repositorys gleichzeitig erstellt werden kann
+        repositoryList = new JBList<>(repositories);
+        repositoryList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        repositoryList.setVisibleRowCount(Math.min(Math.max(repositories.size(), 1), 6));
+        repositoryList.setToolTipText("Select one or more repositories (Ctrl/Shift-click).");
+        if (!repositories.isEmpty()) {
+            repositoryList.setSelectedIndex(0);
+        }
+        repositoryList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                updateVcsInfo();
+            }
+        });
+        addLabelAndComponent(0, "Repositories:", new JBScrollPane(repositoryList));
 
         vcsInfoLabel = new JLabel();
         addLabelAndComponent(1, "VCS:", vcsInfoLabel);
@@ -83,25 +150,60 @@ public class BranchCreatorDialog extends DialogWrapper {
         currentBranchLabel = new JLabel();
         addLabelAndComponent(2, "Current Branch:", currentBranchLabel);
 
+        baseBranchComboBox = new JComboBox<>();
+        baseBranchComboBox.setEditable(true);
+        baseBranchComboBox.setToolTipText("Branch to start from (Git only). Leave empty to branch off the current branch.");
+        addLabelAndComponent(3, "Base Branch:", baseBranchComboBox);
+        updateVcsInfo();
+
         jiraIssueIdComboBox = new JComboBox<>();
         jiraIssueIdComboBox.setEditable(true);
-        addLabelAndComponent(3, "Jira Issue ID:", jiraIssueIdComboBox);
+        jiraIssueIdComboBox.setRenderer(new SimpleListCellRenderer<>() {
+            @Override
+            public void customize(@NotNull JList<? extends JiraIssue> list, JiraIssue value, int index, boolean selected, boolean hasFocus) {
+                setText(value != null ? value.getKey() + "  " + value.getSummary() : "");
+            }
+        });
+        addLabelAndComponent(4, "Jira Issue ID:", jiraIssueIdComboBox);
 
         shortDescriptionField = new JTextField();
         shortDescriptionField.setToolTipText("Enter a short description for the branch.");
-        addLabelAndComponent(4, "Short Description:", shortDescriptionField);
+        addLabelAndComponent(5, "Short Description:", shortDescriptionField);
 
         newBranchNameValueLabel = new JLabel();
         newBranchNameValueLabel.setText("<html><b>" + newBranchNameValueLabel.getText() + "</b></html>");
-        addLabelAndComponent(5, "New Branch Name:", newBranchNameValueLabel);
+        addLabelAndComponent(6, "New Branch Name:", newBranchNameValueLabel);
 
         configureLink = UIHelper.createConfigLink("Configure Repo Branch Creator", "Repo Branch Creator Settings",project);
-        addComponent(6, configureLink);
+        addComponent(7, configureLink);
 
-        jiraIssueIdComboBox.getEditor().getEditorComponent().addPropertyChangeListener("document", evt -> {
-            updateNewBranchNamePreview();
-            searchJiraIssues(jiraIssueIdComboBox.getEditor().getItem().toString());
-            validate();
+        ((JTextComponent) baseBranchComboBox.getEditor().getEditorComponent()).getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                if (updatingBaseBranches) {
+                    return;
+                }
+                // Das Modell der ComboBox erst nach der Benachrichtigung des Editor-Dokuments ändern
+                String prefix = baseBranchComboBox.getEditor().getItem().toString();
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (prefix.equals(baseBranchComboBox.getEditor().getItem().toString())) {
+                        updateBaseBranchSuggestions(prefix);
+                    }
+                }, ModalityState.any());
+                validate();
+            }
+        });
+
+        ((JTextComponent) jiraIssueIdComboBox.getEditor().getEditorComponent()).getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                if (updatingJiraIssues) {
+                    return;
+                }
+                updateNewBranchNamePreview();
+                searchJiraIssues(jiraIssueIdComboBox.getEditor().getItem().toString());
+                validate();
+            }
         });
 
         shortDescriptionField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
@@ -122,48 +224,96 @@ public class BranchCreatorDialog extends DialogWrapper {
         jiraIssueIdComboBox.requestFocusInWindow();
     }
 
+    /**
+     * Baut die Vorschläge aus dem lokalen Jira-Index im Hintergrund auf, damit das Öffnen des Dialogs nicht von der
+     * Grösse des Index abhängt, und übernimmt sie danach auf dem EDT. Gehört der Index zu einem anderen Server oder
+     * anderen Projekten, bleibt er unberücksichtigt.
+     */
+    private void loadIndexedSuggestions(@NotNull SettingsSnapshot settings) {
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            List<JiraIssue> issues = JiraIssueIndex.getInstance().getAllIssues(settings);
+            if (issues.isEmpty()) {
+                return;
+            }
+            JiraSuggestionEngine indexed = new JiraSuggestionEngine();
+            indexed.addAll(issues);
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (isDisposed()) {
+                    return;
+                }
+                // Bereits vom Server geladene Issues sind neuer als der Index und werden danach übernommen
+                indexed.addAll(suggestionEngine.getIssues());
+                suggestionEngine = indexed;
+            }, ModalityState.any());
+        });
+    }
+
+    /**
+     * Übernimmt die Repositorys aus dem neu gescannten Katalog und behält die Auswahl bei, soweit möglich.
+     */
+    private void reloadRepositories() {
+        if (isDisposed()) {
+            return;
+        }
+        List<RepositoryDescriptor> selected = getSelectedRepositories();
+        List<RepositoryDescriptor> repositories = vcsHandlerManager.getRepositories(project);
+        repositoryList.setListData(repositories.toArray(new RepositoryDescriptor[0]));
+        repositoryList.setVisibleRowCount(Math.min(Math.max(repositories.size(), 1), 6));
+        for (RepositoryDescriptor repository : selected) {
+            int index = repositories.indexOf(repository);
+            if (index >= 0) {
+                repositoryList.addSelectionInterval(index, index);
+            }
+        }
+        if (repositoryList.isSelectionEmpty() && !repositories.isEmpty()) {
+            repositoryList.setSelectedIndex(0);
+        }
+        updateVcsInfo();
+        validate();
+    }
+
     private void updateVcsInfo() {
-        String selectedRepository = (String) repositoryComboBox.getSelectedItem();
+        RepositoryDescriptor selectedRepository = getSelectedRepository();
         if (selectedRepository == null) {
             vcsInfoLabel.setText("No repository selected");
             currentBranchLabel.setText("N/A");
             return;
         }
 
-        VcsHandler handler = vcsHandlerManager.getSupportedHandler(project);
-        if (handler != null) {
-            try {
-                vcsInfoLabel.setText(handler.getClass().getSimpleName().replace("Handler", ""));
+        vcsInfoLabel.setText(selectedRepository.getVcsType().getDisplayName());
 
-                String currentBranch = handler.getCurrentBranch(project, selectedRepository);
-                currentBranchLabel.setText(currentBranch != null ? currentBranch : "N/A");
-            } catch (VcsCommandException e) {
+        // Branch-Index der ausgewählten Git-Repositorys im Hintergrund laden, damit die Prüfung beim Tippen bereitsteht
+        for (RepositoryDescriptor repository : getSelectedRepositories()) {
+            if (repository.getVcsType() == VcsType.GIT) {
+                GitRefIndex.getInstance().getSnapshot(repository.getPath());
+            }
+        }
+
+        // Branch im Hintergrund laden, damit langsame Dateisysteme den EDT nicht blockieren
+        boolean cached = vcsInfoLoader.load(selectedRepository, result -> {
+            if (result.error != null) {
                 vcsInfoLabel.setText("Error");
-                currentBranchLabel.setText("Error: " + e.getMessage());
+                currentBranchLabel.setText("Error: " + result.error);
+            } else {
+                currentBranchLabel.setText(result.branch != null ? result.describeBranch() : "N/A");
             }
-        } else {
-            vcsInfoLabel.setText("No supported VCS");
-            currentBranchLabel.setText("N/A");
+        });
+        if (!cached) {
+            currentBranchLabel.setText("Loading...");
         }
     }
 
     private void updateNewBranchNamePreview() {
         String jiraIssueId = jiraIssueIdComboBox.getEditor().getItem().toString();
-        String shortDescription = shortDescriptionField.getText().replace(" ", settings.getState().spaceReplacement);
+        String shortDescription = shortDescriptionField.getText();
         String newBranchName = generateNewBranchName(jiraIssueId, shortDescription);
+        this.newBranchName = newBranchName;
         newBranchNameValueLabel.setText("<html><b>" + newBranchName + "</b></html>");
     }
 
     @NotNull
     String generateNewBranchName(@NotNull String jiraIssueId, @NotNull String shortDescription) {
-        String sanitizedJiraIssueId = sanitizeBranchName(jiraIssueId);
-        String sanitizedShortDescription = sanitizeBranchName(shortDescription);
-        return settings.getState().prefix + sanitizedJiraIssueId + "-" + sanitizedShortDescription;
-    }
-
-    @NotNull
-    String sanitizeBranchName(String input) {
-        return input.replaceAll("[^a-zA-Z0-9-_]", "_");
+        return BranchNameGenerator.generate(settings.getSnapshot(), jiraIssueId, shortDescription);
     }
 
     @Override
@@ -171,6 +321,9 @@ public class BranchCreatorDialog extends DialogWrapper {
         String jiraIssueId = jiraIssueIdComboBox.getEditor().getItem().toString();
         String shortDescription = shortDescriptionField.getText();
 
+        if (repositoryList.isSelectionEmpty()) {
+            return new ValidationInfo("Select at least one repository", repositoryList);
+        }
         if (jiraIssueId.isEmpty()) {
             return new ValidationInfo("Jira Issue ID is required", jiraIssueIdComboBox);
         }
@@ -183,6 +336,33 @@ public class BranchCreatorDialog extends DialogWrapper {
         if (shortDescription.length() > 50) {
             return new ValidationInfo("Short Description must be less than 50 characters", shortDescriptionField);
         }
+        // Der Name muss für jedes ausgewählte Repository gültig sein (das Präfix aus den Einstellungen wird nicht bereinigt)
+        String baseBranch = getBaseBranch();
+        for (RepositoryDescriptor repository : repositoryList.getSelectedValuesList()) {
+            String error = BranchNameValidator.validate(newBranchName, repository.getVcsType());
+            if (error != null) {
+                return new ValidationInfo("Branch name '" + newBranchName + "' is not valid for "
+                        + repository.getVcsType().getDisplayName() + ": " + error, shortDescriptionField);
+            }
+            if (repository.getVcsType() != VcsType.GIT) {
+                if (baseBranch != null) {
+                    return new ValidationInfo("A base branch is only supported for Git repositories", baseBranchComboBox);
+                }
+                continue;
+            }
+            // Bestehende Branches aus dem Index prüfen, statt erst "git checkout -b" scheitern zu lassen
+            GitRefSnapshot refs = GitRefIndex.getInstance().getSnapshot(repository.getPath());
+            if (refs == null) {
+                continue; // Index wird noch geladen
+            }
+            String conflict = refs.findBranchConflict(newBranchName);
+            if (conflict != null) {
+                return new ValidationInfo("Cannot create the branch in " + repository.getPath() + ": " + conflict, shortDescriptionField);
+            }
+            if (baseBranch != null && !refs.isKnownRef(baseBranch) && !baseBranchExists(repository, refs, baseBranch)) {
+                return new ValidationInfo("Base branch '" + baseBranch + "' does not exist in " + repository.getPath(), baseBranchComboBox);
+            }
+        }
         return null;
     }
 
@@ -215,7 +395,7 @@ public class BranchCreatorDialog extends DialogWrapper {
         }
 
         String confirmationMessage = "Are you sure you want to create the branch";
-        if (settings.getState().autoPush) {
+        if (settings.getSnapshot().autoPush) {
             confirmationMessage += " and push it to the remote repository";
         }
         confirmationMessage += "?";
@@ -235,22 +415,180 @@ public class BranchCreatorDialog extends DialogWrapper {
     }
 
     public String getNewBranchName() {
-        return newBranchNameValueLabel.getText();
+        return newBranchName;
+    }
+
+    /**
+     * Gibt den Branch zurück, von dem abgezweigt werden soll.
+     *
+     * @return Der Basis-Branch oder null, wenn vom aktuellen Branch abgezweigt wird.
+     */
+    @Nullable
+    public String getBaseBranch() {
+        Object item = baseBranchComboBox.getEditor().getItem();
+        String baseBranch = item != null ? item.toString().trim() : "";
+        return baseBranch.isEmpty() ? null : baseBranch;
     }
 
     public String getSelectedRepositoryPath() {
-        return (String) repositoryComboBox.getSelectedItem();
+        RepositoryDescriptor repository = getSelectedRepository();
+        return repository != null ? repository.getPath() : null;
+    }
+
+    @Nullable
+    public RepositoryDescriptor getSelectedRepository() {
+        return repositoryList.getSelectedValue();
+    }
+
+    /**
+     * Gibt alle ausgewählten Repositorys zurück.
+     *
+     * @return Die ausgewählten Repositorys in der Reihenfolge der Liste.
+     */
+    @NotNull
+    public List<RepositoryDescriptor> getSelectedRepositories() {
+        return repositoryList.getSelectedValuesList();
     }
 
     private void searchJiraIssues(String query) {
-        List<String> issues = jiraService.searchJiraIssues(query);
-        updateJiraIssueIdComboBox(issues);
+        if (query.isBlank()) {
+            jiraIssueSearcher.cancel();
+            return;
+        }
+
+        // Verfeinerung einer vollständig geladenen Textsuche: Die Treffer sind bereits bekannt. Sie passen nicht
+        // zwingend zur lokalen Bewertung (Jira sucht auch in Beschreibung und Kommentaren), daher werden alle
+        // angezeigt und nur neu geordnet. Ein Issue-Key wird immer gesucht, da er nicht zu den Treffern der
+        // Textsuche gehören muss.
+        String normalizedQuery = query.trim().toLowerCase(Locale.ROOT);
+        if (completeJiraQuery != null && normalizedQuery.startsWith(completeJiraQuery) && !JiraService.isIssueKey(query)) {
+            jiraIssueSearcher.cancel();
+            List<JiraIssue> refined = suggestionEngine.rank(query, completeJiraIssues);
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (query.equals(jiraIssueIdComboBox.getEditor().getItem().toString())) {
+                    updateJiraIssueIdComboBox(refined);
+                }
+            }, ModalityState.any());
+            return;
+        }
+
+        // Bereits geladene Issues sofort lokal rangieren. Das Modell der ComboBox darf nicht während der
+        // Benachrichtigung ihres Editor-Dokuments geändert werden, daher erst danach und nur für die aktuelle Eingabe.
+        List<JiraIssue> localSuggestions = suggestionEngine.suggest(query, JiraService.MAX_RESULTS);
+        if (!localSuggestions.isEmpty()) {
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (query.equals(jiraIssueIdComboBox.getEditor().getItem().toString())) {
+                    updateJiraIssueIdComboBox(localSuggestions);
+                }
+            }, ModalityState.any());
+        }
+
+        // Entprellt im Hintergrund suchen, nur das neueste Ergebnis wird übernommen. Die Treffer des Servers
+        // bilden die Vorschlagsliste und werden lokal nur neu geordnet.
+        jiraIssueSearcher.search(query, result -> {
+            suggestionEngine.addAll(result.getIssues());
+            if (result.isComplete()) {
+                completeJiraQuery = normalizedQuery;
+                completeJiraIssues = result.getIssues();
+            }
+            updateJiraIssueIdComboBox(suggestionEngine.rank(query, result.getIssues()));
+        });
     }
 
-    private void updateJiraIssueIdComboBox(List<String> issues) {
-        jiraIssueIdComboBox.removeAllItems();
-        for (String issue : issues) {
-            jiraIssueIdComboBox.addItem(issue);
+    private void updateJiraIssueIdComboBox(List<JiraIssue> issues) {
+        // Eingegebenen Text beibehalten, während die Vorschläge ersetzt werden
+        Object text = jiraIssueIdComboBox.getEditor().getItem();
+        updatingJiraIssues = true;
+        try {
+            jiraIssueIdComboBox.removeAllItems();
+            for (JiraIssue issue : issues) {
+                jiraIssueIdComboBox.addItem(issue);
+            }
+            jiraIssueIdComboBox.getEditor().setItem(text);
+        } finally {
+            updatingJiraIssues = false;
+        }
+        if (!issues.isEmpty() && jiraIssueIdComboBox.isShowing()) {
+            jiraIssueIdComboBox.setPopupVisible(true);
+        }
+    }
+
+    private void updateBaseBranchSuggestions(String prefix) {
+        // Vorschläge aller ausgewählten Git-Repositorys zusammenführen; der Index antwortet ohne Git-Prozess
+        TreeSet<String> suggestions = new TreeSet<>();
+        for (RepositoryDescriptor repository : getSelectedRepositories()) {
+            if (repository.getVcsType() != VcsType.GIT) {
+                continue;
+            }
+            GitRefSnapshot refs = GitRefIndex.getInstance().getSnapshot(repository.getPath());
+            if (refs != null) {
+                suggestions.addAll(refs.complete(prefix.trim(), MAX_BASE_BRANCH_SUGGESTIONS));
+            }
+        }
+
+        Object text = baseBranchComboBox.getEditor().getItem();
+        updatingBaseBranches = true;
+        try {
+            baseBranchComboBox.removeAllItems();
+            int count = 0;
+            for (String suggestion : suggestions) {
+                if (count++ >= MAX_BASE_BRANCH_SUGGESTIONS) {
+                    break;
+                }
+                baseBranchComboBox.addItem(suggestion);
+            }
+            baseBranchComboBox.getEditor().setItem(text);
+        } finally {
+            updatingBaseBranches = false;
+        }
+        if (!suggestions.isEmpty() && !prefix.isBlank() && baseBranchComboBox.isShowing()) {
+            baseBranchComboBox.setPopupVisible(true);
+        }
+    }
+
+    /**
+     * Prüft eine Basis-Revision, die der Branch-Index nicht kennt (Commit-ID, Ausdruck wie "main~2", noch nicht
+     * indexierte Ref), mit "git rev-parse --verify" im Hintergrund. Bis das Ergebnis vorliegt, gilt die Revision als
+     * gültig; danach wird erneut validiert. Das Ergebnis gilt, bis sich der Stand des Index ändert.
+     *
+     * @return false nur, wenn Git die Revision für den aktuellen Stand nicht auflösen konnte.
+     */
+    private boolean baseBranchExists(@NotNull RepositoryDescriptor repository, @NotNull GitRefSnapshot refs, @NotNull String baseBranch) {
+        String key = repository.getPath() + '\u0000' + baseBranch;
+        BaseBranchCheck check = baseBranchChecks.get(key);
+        if (check != null && check.refs == refs) {
+            return check.exists != Boolean.FALSE;
+        }
+        BaseBranchCheck pending = new BaseBranchCheck(refs);
+        baseBranchChecks.put(key, pending);
+        ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            Boolean exists;
+            try {
+                exists = GitHandler.revisionExists(repository.getPath(), baseBranch);
+            } catch (VcsCommandException e) {
+                exists = null; // Git nicht ausführbar: die Erstellung meldet den Fehler
+            }
+            Boolean result = exists;
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (isDisposed() || baseBranchChecks.get(key) != pending) {
+                    return;
+                }
+                pending.exists = result;
+                initValidation();
+            }, ModalityState.any());
+        });
+        return true;
+    }
+
+    /**
+     * Ergebnis einer Prüfung mit Git für einen Stand des Branch-Index; null, solange sie läuft oder fehlgeschlagen ist.
+     */
+    private static final class BaseBranchCheck {
+        final GitRefSnapshot refs;
+        Boolean exists;
+
+        BaseBranchCheck(@NotNull GitRefSnapshot refs) {
+            this.refs = refs;
         }
     }
 
@@ -0,0 +1,86 @@
+package ch.coop.intellij.plugins.branchcreator;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Erzeugt Branch-Namen aus Jira-Issue-ID und Kurzbeschreibung anhand der Vorlage aus den Einstellungen.
+ * <p>
+ * Die Vorlage wird pro Stand der Einstellungen einmal kompiliert (siehe {@link SettingsSnapshot}); bei jedem
+ * Tastendruck wird nur der fertige {@link BranchNameTemplate} ausgewertet.
+ */
+public final class BranchNameGenerator {
+    private static final Logger LOG = Logger.getInstance(BranchNameGenerator.class);
+
+    private BranchNameGenerator() {
+    }
+
+    /**
+     * Erzeugt den Branch-Namen.
+     *
+     * @param settings         Die Einstellungen mit Präfix, Vorlage und Leerzeichen-Ersatz.
+     * @param jiraIssueId      Die Jira-Issue-ID.
+     * @param shortDescription Die Kurzbeschreibung.
+     * @return Der Branch-Name.
+     */
+    @NotNull
+    public static String generate(@NotNull SettingsSnapshot settings, @NotNull String jiraIssueId, @NotNull String shortDescription) {
+        String prefix = settings.prefix != null ? settings.prefix : "";
+        return settings.getBranchNameTemplate().render(prefix, jiraIssueId, shortDescription);
+    }
+
+    /**
+     * Kompiliert die Vorlage aus den Einstellungen. Eine leere oder ungültige Vorlage wird durch die Standardvorlage
+     * ersetzt.
+     *
+     * @param template         Die gespeicherte Vorlage.
+     * @param spaceReplacement Der gespeicherte Leerzeichen-Ersatz.
+     * @return Die kompilierte Vorlage.
+     */
+    @NotNull
+    public static BranchNameTemplate compileTemplate(@Nullable String template, @Nullable String spaceReplacement) {
+        String source = template != null && !template.isBlank() ? template : BranchNameTemplate.DEFAULT_TEMPLATE;
+        String replacement = spaceReplacement != null ? spaceReplacement : CoopPluginSettings.State.DEFAULT_SPACE_REPLACEMENT;
+        try {
+            return BranchNameTemplate.compile(source, replacement);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Invalid branch name template '" + source + "', using the default: " + e.getMessage());
+            return BranchNameTemplate.compile(BranchNameTemplate.DEFAULT_TEMPLATE, replacement);
+        }
+    }
+
+    /**
+     * Ersetzt alle Zeichen ausser Buchstaben, Ziffern, '-' und '_' durch '_'.
+     * <p>
+     * Das Ergebnis enthält keine der in Git oder Mercurial verbotenen Zeichen. Ist nichts zu ersetzen, wird die
+     * Eingabe selbst zurückgegeben, sonst wird das Ergebnis in einem Durchlauf aufgebaut.
+     *
+     * @param input Der Text.
+     * @return Der bereinigte Text.
+     */
+    @NotNull
+    public static String sanitize(@NotNull String input) {
+        int length = input.length();
+        int firstInvalid = 0;
+        while (firstInvalid < length && isAllowed(input.charAt(firstInvalid))) {
+            firstInvalid++;
+        }
+        if (firstInvalid == length) {
+            return input;
+        }
+        char[] sanitized = input.toCharArray();
+        for (int i = firstInvalid; i < length; i++) {
+            if (!isAllowed(sanitized[i])) {
+                sanitized[i] = '_';
+            }
+        }
+        return new String(sanitized);
+    }
+
+    static boolean isAllowed(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+    }
+}
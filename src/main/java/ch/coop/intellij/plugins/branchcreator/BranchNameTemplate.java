@@ -0,0 +1,348 @@
+package ch.coop.intellij.plugins.branchcreator;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kompilierte Vorlage für Branch-Namen, z. B. {@code {prefix}{issue}-{summary|translit|slug|max:40}}.
+ * <p>
+ * Platzhalter: {@code {prefix}}, {@code {issue}} und {@code {summary}}. Filter werden mit '|' angehängt und von
+ * links nach rechts angewendet:
+ * <ul>
+ *     <li>{@code translit}: Umlaute und Akzente umschreiben (ä → ae, ß → ss, é → e).</li>
+ *     <li>{@code slug}: Kleinbuchstaben, alle anderen Zeichen werden zu einem einzelnen '-'.</li>
+ *     <li>{@code sanitize}: ungültige Zeichen durch '_' ersetzen. In {@code {summary}} werden Leerzeichen durch den
+ *     Leerzeichen-Ersatz ersetzt, der dafür selbst bereinigt wird.</li>
+ *     <li>{@code lower}, {@code upper}: Gross-/Kleinschreibung ändern.</li>
+ *     <li>{@code max:N}: auf N Zeichen kürzen, Trennzeichen am Ende entfernen.</li>
+ * </ul>
+ * Die Vorlage wird einmal in eine Folge von Segmenten übersetzt. {@link #render} schreibt alle Segmente in einen
+ * einzigen StringBuilder, die Filter arbeiten direkt auf dessen Zeichen, ohne Regex und ohne Zwischen-Strings.
+ */
+public final class BranchNameTemplate {
+    public static final String DEFAULT_TEMPLATE = CoopPluginSettings.State.DEFAULT_BRANCH_NAME_TEMPLATE;
+
+    private static final int PREFIX = 0;
+    private static final int ISSUE = 1;
+    private static final int SUMMARY = 2;
+
+    private static final String UNDERSCORE = "_";
+
+    // Umschreibungen für Latin-1, nach Zeichen indiziert; null = Zeichen bleibt unverändert
+    private static final String[] TRANSLITERATIONS = new String[256];
+
+    static {
+        transliterate("ä", "ae");
+        transliterate("ö", "oe");
+        transliterate("ü", "ue");
+        transliterate("Ä", "Ae");
+        transliterate("Ö", "Oe");
+        transliterate("Ü", "Ue");
+        transliterate("ß", "ss");
+        transliterate("æ", "ae");
+        transliterate("Æ", "Ae");
+        transliterate("àáâãå", "a");
+        transliterate("ÀÁÂÃÅ", "A");
+        transliterate("ç", "c");
+        transliterate("Ç", "C");
+        transliterate("èéêë", "e");
+        transliterate("ÈÉÊË", "E");
+        transliterate("ìíîï", "i");
+        transliterate("ÌÍÎÏ", "I");
+        transliterate("ñ", "n");
+        transliterate("Ñ", "N");
+        transliterate("òóôõø", "o");
+        transliterate("ÒÓÔÕØ", "O");
+        transliterate("ùúû", "u");
+        transliterate("ÙÚÛ", "U");
+        transliterate("ýÿ", "y");
+        transliterate("Ý", "Y");
+    }
+
+    private final String source;
+    private final Segment[] segments;
+
+    private BranchNameTemplate(@NotNull String source, @NotNull Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+    }
+
+    /**
+     * Übersetzt eine Vorlage.
+     *
+     * @param template         Die Vorlage.
+     * @param spaceReplacement Der Ersatz für Leerzeichen in {@code {summary}} beim Filter {@code sanitize}.
+     * @return Die kompilierte Vorlage.
+     * @throws IllegalArgumentException Wenn die Vorlage einen unbekannten Platzhalter oder Filter enthält oder
+     *                                  die Klammern nicht stimmen.
+     */
+    @NotNull
+    public static BranchNameTemplate compile(@NotNull String template, @NotNull String spaceReplacement) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                int close = template.indexOf('}', i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed '{' at position " + (i + 1));
+                }
+                if (literal.length() > 0) {
+                    segments.add(new Literal(literal.toString()));
+                    literal.setLength(0);
+                }
+                segments.add(parsePlaceholder(template.substring(i + 1, close), spaceReplacement));
+                i = close + 1;
+            } else if (c == '}') {
+                throw new IllegalArgumentException("Unexpected '}' at position " + (i + 1));
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+        }
+        return new BranchNameTemplate(template, segments.toArray(new Segment[0]));
+    }
+
+    /**
+     * Erzeugt einen Branch-Namen.
+     *
+     * @param prefix  Das Präfix aus den Einstellungen.
+     * @param issue   Die Jira-Issue-ID.
+     * @param summary Die Kurzbeschreibung.
+     * @return Der Branch-Name.
+     */
+    @NotNull
+    public String render(@NotNull String prefix, @NotNull String issue, @NotNull String summary) {
+        StringBuilder out = new StringBuilder(prefix.length() + issue.length() + summary.length() + 16);
+        for (Segment segment : segments) {
+            segment.appendTo(out, prefix, issue, summary);
+        }
+        return out.toString();
+    }
+
+    @NotNull
+    public String getSource() {
+        return source;
+    }
+
+    @NotNull
+    private static Segment parsePlaceholder(@NotNull String body, @NotNull String spaceReplacement) {
+        String[] parts = body.split("\\|");
+        int variable;
+        switch (parts[0].trim()) {
+            case "prefix":
+                variable = PREFIX;
+                break;
+            case "issue":
+                variable = ISSUE;
+                break;
+            case "summary":
+                variable = SUMMARY;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown placeholder '{" + parts[0].trim() + "}'. Use {prefix}, {issue} or {summary}.");
+        }
+        // Wie bisher gilt der Leerzeichen-Ersatz nur für die Kurzbeschreibung; er darf keine ungültigen Zeichen einfügen
+        String spaces = variable == SUMMARY ? BranchNameGenerator.sanitize(spaceReplacement) : UNDERSCORE;
+        Filter[] filters = new Filter[parts.length - 1];
+        for (int i = 1; i < parts.length; i++) {
+            filters[i - 1] = parseFilter(parts[i].trim(), spaces);
+        }
+        return new Placeholder(variable, filters);
+    }
+
+    @NotNull
+    private static Filter parseFilter(@NotNull String filter, @NotNull String spaceReplacement) {
+        int colon = filter.indexOf(':');
+        String name = colon < 0 ? filter : filter.substring(0, colon).trim();
+        String argument = colon < 0 ? null : filter.substring(colon + 1).trim();
+        if (argument != null && !"max".equals(name)) {
+            throw new IllegalArgumentException("Filter '" + name + "' does not take an argument.");
+        }
+        switch (name) {
+            case "translit":
+                return (out, start) -> replaceChars(out, start, c -> c < TRANSLITERATIONS.length ? TRANSLITERATIONS[c] : null);
+            case "slug":
+                return BranchNameTemplate::slug;
+            case "sanitize":
+                return (out, start) -> replaceChars(out, start,
+                        c -> c == ' ' ? spaceReplacement : BranchNameGenerator.isAllowed(c) ? null : UNDERSCORE);
+            case "lower":
+                return (out, start) -> {
+                    for (int i = start; i < out.length(); i++) {
+                        out.setCharAt(i, Character.toLowerCase(out.charAt(i)));
+                    }
+                };
+            case "upper":
+                return (out, start) -> {
+                    for (int i = start; i < out.length(); i++) {
+                        out.setCharAt(i, Character.toUpperCase(out.charAt(i)));
+                    }
+                };
+            case "max":
+                int maxLength = parseMaxLength(argument);
+                return (out, start) -> truncate(out, start, maxLength);
+            default:
+                throw new IllegalArgumentException("Unknown filter '" + name + "'. Use translit, slug, sanitize, lower, upper or max:N.");
+        }
+    }
+
+    private static int parseMaxLength(@Nullable String argument) {
+        try {
+            int maxLength = argument == null ? -1 : Integer.parseInt(argument);
+            if (maxLength > 0) {
+                return maxLength;
+            }
+        } catch (NumberFormatException ignored) {
+            // Meldung unten
+        }
+        throw new IllegalArgumentException("Filter 'max' needs a positive length, e.g. 'max:40'.");
+    }
+
+    /**
+     * Ersetzt Zeichen ab {@code start} direkt im StringBuilder. Wird der Text länger, wird von hinten nach vorne
+     * geschrieben, sonst von vorne nach hinten, sodass kein noch nicht gelesenes Zeichen überschrieben wird.
+     * Eine Abbildung darf deshalb nicht gleichzeitig leere und mehrstellige Ersetzungen liefern.
+     */
+    private static void replaceChars(@NotNull StringBuilder out, int start, @NotNull CharMapping mapping) {
+        int end = out.length();
+        int newEnd = end;
+        boolean changed = false;
+        for (int i = start; i < end; i++) {
+            String replacement = mapping.replacement(out.charAt(i));
+            if (replacement != null) {
+                newEnd += replacement.length() - 1;
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return;
+        }
+
+        if (newEnd > end) {
+            out.setLength(newEnd);
+            int write = newEnd;
+            for (int read = end - 1; read >= start; read--) {
+                char c = out.charAt(read);
+                String replacement = mapping.replacement(c);
+                if (replacement == null) {
+                    out.setCharAt(--write, c);
+                } else {
+                    for (int k = replacement.length() - 1; k >= 0; k--) {
+                        out.setCharAt(--write, replacement.charAt(k));
+                    }
+                }
+            }
+        } else {
+            int write = start;
+            for (int read = start; read < end; read++) {
+                char c = out.charAt(read);
+                String replacement = mapping.replacement(c);
+                if (replacement == null) {
+                    out.setCharAt(write++, c);
+                } else {
+                    for (int k = 0; k < replacement.length(); k++) {
+                        out.setCharAt(write++, replacement.charAt(k));
+                    }
+                }
+            }
+            out.setLength(newEnd);
+        }
+    }
+
+    private static void slug(@NotNull StringBuilder out, int start) {
+        int write = start;
+        boolean pendingDash = false;
+        for (int read = start; read < out.length(); read++) {
+            char c = out.charAt(read);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (pendingDash) {
+                    out.setCharAt(write++, '-');
+                    pendingDash = false;
+                }
+                out.setCharAt(write++, c);
+            } else if (write > start) {
+                // Folgen von Trennzeichen werden zu einem '-', am Anfang und Ende entfallen sie
+                pendingDash = true;
+            }
+        }
+        out.setLength(write);
+    }
+
+    private static void truncate(@NotNull StringBuilder out, int start, int maxLength) {
+        if (out.length() - start <= maxLength) {
+            return;
+        }
+        int end = start + maxLength;
+        while (end > start && isSeparator(out.charAt(end - 1))) {
+            end--;
+        }
+        out.setLength(end);
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '-' || c == '_' || c == '.' || c == '/' || c == ' ';
+    }
+
+    private static void transliterate(@NotNull String characters, @NotNull String replacement) {
+        for (int i = 0; i < characters.length(); i++) {
+            TRANSLITERATIONS[characters.charAt(i)] = replacement;
+        }
+    }
+
+    private interface Segment {
+        void appendTo(@NotNull StringBuilder out, @NotNull String prefix, @NotNull String issue, @NotNull String summary);
+    }
+
+    private interface Filter {
+        void apply(@NotNull StringBuilder out, int start);
+    }
+
+    private interface CharMapping {
+        @Nullable
+        String replacement(char c);
+    }
+
+    private static final class Literal implements Segment {
+        private final String text;
+
+        Literal(@NotNull String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void appendTo(@NotNull StringBuilder out, @NotNull String prefix, @NotNull String issue, @NotNull String summary) {
+            out.append(text);
+        }
+    }
+
+    private static final class Placeholder implements Segment {
+        private final int variable;
+        private final Filter[] filters;
+
+        Placeholder(int variable, @NotNull Filter[] filters) {
+            this.variable = variable;
+            this.filters = filters;
+        }
+
+        @Override
+        public void appendTo(@NotNull StringBuilder out, @NotNull String prefix, @NotNull String issue, @NotNull String summary) {
+            int start = out.length();
+            out.append(variable == PREFIX ? prefix : variable == ISSUE ? issue : summary);
+            for (Filter filter : filters) {
+                filter.apply(out, start);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ch.coop.intellij.plugins.branchcreator;
+
+import ch.coop.intellij.plugins.services.JiraService;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Führt die Jira-Suche des Branch-Dialogs im Hintergrund aus.
+ * <p>
+ * Tastenanschläge werden entprellt, eine neue Eingabe bricht die geplante bzw. laufende Suche ab, und nur das
+ * Ergebnis der zuletzt eingegebenen Suchanfrage wird auf dem EDT ausgeliefert.
+ */
+class JiraIssueSearcher implements Disposable {
+    static final long DEBOUNCE_MILLIS = 250;
+
+    private final JiraService jiraService;
+    private final ScheduledExecutorService executor = AppExecutorUtil.createBoundedScheduledExecutorService("Coop Jira Search", 2);
+    private ScheduledFuture<?> pending;
+    private volatile int generation;
+
+    JiraIssueSearcher(@NotNull JiraService jiraService) {
+        this.jiraService = jiraService;
+    }
+
+    /**
+     * Plant eine Suche nach Jira-Issues. Muss auf dem EDT aufgerufen werden.
+     *
+     * @param query    Die Suchanfrage.
+     * @param callback Wird auf dem EDT mit dem Suchergebnis aufgerufen, sofern in der Zwischenzeit keine neuere
+     *                 Suche geplant wurde.
+     */
+    void search(@NotNull String query, @NotNull Consumer<JiraService.SearchResult> callback) {
+        int requestGeneration = ++generation;
+        cancelPending();
+
+        pending = executor.schedule(() -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            JiraService.SearchResult result = jiraService.search(query);
+            if (requestGeneration != generation) {
+                return; // Ergebnis wurde durch eine neuere Eingabe überholt
+            }
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (requestGeneration == generation) {
+                    callback.accept(result);
+                }
+            }, ModalityState.any());
+        }, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Bricht die geplante bzw. laufende Suche ab.
+     */
+    void cancel() {
+        generation++;
+        cancelPending();
+    }
+
+    private void cancelPending() {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
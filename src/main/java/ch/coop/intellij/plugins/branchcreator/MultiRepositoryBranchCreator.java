@@ -0,0 +1,247 @@
+package ch.coop.intellij.plugins.branchcreator;
+
+import ch.coop.intellij.plugins.vcs.RepositoryDescriptor;
+import ch.coop.intellij.plugins.vcs.VcsCommandException;
+import ch.coop.intellij.plugins.vcs.VcsPushQueue;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationAction;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Erstellt einen Branch parallel in mehreren Repositorys.
+ * <p>
+ * Die Befehle laufen auf einem begrenzten Pool, der Fortschritt wird pro Repository gemeldet.
+ * Beim Abbrechen werden noch nicht gestartete Repositorys übersprungen, laufende Befehle werden
+ * zu Ende geführt, damit kein Repository in einem halben Zustand zurückbleibt. Am Ende wird ein
+ * zusammenfassender Bericht als Benachrichtigung angezeigt, auch wenn alles geklappt hat; bei
+ * teilweisem Erfolg kann der Benutzer die bereits erstellten Branches wieder entfernen lassen.
+ */
+public class MultiRepositoryBranchCreator extends Task.Backgroundable {
+    private static final Logger LOG = Logger.getInstance(MultiRepositoryBranchCreator.class);
+
+    // Git und Mercurial sind vor allem I/O-lastig, mehr parallele Prozesse bringen kaum etwas
+    private static final int MAX_PARALLEL_COMMANDS = 4;
+
+    private final String branchName;
+    private final String baseBranch;
+    private final List<RepositoryDescriptor> repositories;
+    private final boolean push;
+    private Map<RepositoryDescriptor, Outcome> outcomes = new LinkedHashMap<>();
+
+    public MultiRepositoryBranchCreator(@NotNull Project project,
+                                        @NotNull String branchName,
+                                        @Nullable String baseBranch,
+                                        @NotNull List<RepositoryDescriptor> repositories,
+                                        boolean push) {
+        super(project, "Creating branch '" + branchName + "'", true);
+        this.branchName = branchName;
+        this.baseBranch = baseBranch;
+        this.repositories = List.copyOf(repositories);
+        this.push = push;
+    }
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        outcomes = runInParallel(repositories, indicator, "created",
+                repository -> repository.getHandler().createBranch(myProject, branchName, repository.getPath(), baseBranch, push));
+    }
+
+    @Override
+    public void onFinished() {
+        List<RepositoryDescriptor> created = collect(outcomes, Status.DONE);
+        String report = buildReport("Branch '" + branchName + "'", outcomes);
+        if (created.size() == repositories.size()) {
+            LOG.info("Branch '" + branchName + "' created in " + created.size() + " repositories.");
+            notify("Branch created", report, NotificationType.INFORMATION, null);
+        } else if (created.isEmpty()) {
+            notify("Branch creation failed", report, NotificationType.ERROR, null);
+        } else {
+            // Teilweiser Erfolg: anbieten, die bereits erstellten Branches wieder zu entfernen
+            notify("Branch creation incomplete", report, NotificationType.WARNING,
+                    NotificationAction.createSimpleExpiring("Roll back " + created.size() + " repositories",
+                            () -> new RollbackTask(myProject, branchName, created).queue()));
+        }
+    }
+
+    private void notify(@NotNull String title, @NotNull String report, @NotNull NotificationType type, @Nullable NotificationAction action) {
+        Notification notification = NotificationGroupManager.getInstance()
+                .getNotificationGroup(VcsPushQueue.NOTIFICATION_GROUP)
+                .createNotification(title, StringUtil.escapeXmlEntities(report).replace("\n", "<br>"), type);
+        if (action != null) {
+            notification.addAction(action);
+        }
+        notification.notify(myProject);
+    }
+
+    /**
+     * Entfernt den Branch wieder aus den Repositorys, in denen er erstellt wurde.
+     */
+    private static final class RollbackTask extends Task.Backgroundable {
+        private final String branchName;
+        private final List<RepositoryDescriptor> repositories;
+        private Map<RepositoryDescriptor, Outcome> outcomes = new LinkedHashMap<>();
+
+        private RollbackTask(@NotNull Project project, @NotNull String branchName, @NotNull List<RepositoryDescriptor> repositories) {
+            super(project, "Rolling back branch '" + branchName + "'", true);
+            this.branchName = branchName;
+            this.repositories = repositories;
+        }
+
+        @Override
+        public void run(@NotNull ProgressIndicator indicator) {
+            outcomes = runInParallel(repositories, indicator, "rolled back",
+                    repository -> repository.getHandler().undoVcsCommand(myProject, branchName, repository.getPath()));
+        }
+
+        @Override
+        public void onFinished() {
+            if (collect(outcomes, Status.DONE).size() < repositories.size()) {
+                Messages.showErrorDialog(myProject, buildReport("Rollback of '" + branchName + "'", outcomes), "Rollback Incomplete");
+            }
+        }
+    }
+
+    /**
+     * Führt eine Operation parallel für alle Repositorys aus und sammelt die Ergebnisse in der Reihenfolge der Eingabe.
+     */
+    @NotNull
+    private static Map<RepositoryDescriptor, Outcome> runInParallel(@NotNull List<RepositoryDescriptor> repositories,
+                                                                     @NotNull ProgressIndicator indicator,
+                                                                     @NotNull String verb,
+                                                                     @NotNull RepositoryOperation operation) {
+        Map<RepositoryDescriptor, Outcome> results = new LinkedHashMap<>();
+        for (RepositoryDescriptor repository : repositories) {
+            results.put(repository, new Outcome(Status.CANCELLED, "Skipped"));
+        }
+
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Coop Branch Creation", MAX_PARALLEL_COMMANDS);
+        ExecutorCompletionService<Outcome> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<Outcome>, RepositoryDescriptor> pending = new HashMap<>();
+        try {
+            for (RepositoryDescriptor repository : repositories) {
+                pending.put(completionService.submit(() -> execute(repository, operation)), repository);
+            }
+
+            indicator.setIndeterminate(false);
+            int total = repositories.size();
+            int completed = 0;
+            boolean cancelRequested = false;
+            while (completed < total) {
+                if (!cancelRequested && indicator.isCanceled()) {
+                    // Nicht gestartete Aufträge verwerfen, laufende Befehle aber nicht unterbrechen
+                    cancelRequested = true;
+                    for (Future<Outcome> future : pending.keySet()) {
+                        future.cancel(false);
+                    }
+                }
+
+                Future<Outcome> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    continue;
+                }
+                RepositoryDescriptor repository = pending.get(future);
+                Outcome outcome = resolve(future);
+                results.put(repository, outcome);
+                completed++;
+
+                indicator.setFraction((double) completed / total);
+                indicator.setText2(completed + "/" + total + " " + repository.getPath() + ": "
+                        + (outcome.status == Status.DONE ? verb : outcome.message));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    @NotNull
+    private static Outcome execute(@NotNull RepositoryDescriptor repository, @NotNull RepositoryOperation operation) {
+        try {
+            operation.run(repository);
+            return new Outcome(Status.DONE, "");
+        } catch (VcsCommandException e) {
+            LOG.warn("VCS command failed in " + repository.getPath(), e);
+            return new Outcome(Status.FAILED, String.valueOf(e.getMessage()));
+        }
+    }
+
+    @NotNull
+    private static Outcome resolve(@NotNull Future<Outcome> future) {
+        try {
+            return future.get();
+        } catch (CancellationException e) {
+            return new Outcome(Status.CANCELLED, "Cancelled");
+        } catch (ExecutionException e) {
+            return new Outcome(Status.FAILED, String.valueOf(e.getCause().getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(Status.CANCELLED, "Interrupted");
+        }
+    }
+
+    @NotNull
+    private static List<RepositoryDescriptor> collect(@NotNull Map<RepositoryDescriptor, Outcome> outcomes, @NotNull Status status) {
+        List<RepositoryDescriptor> result = new ArrayList<>();
+        outcomes.forEach((repository, outcome) -> {
+            if (outcome.status == status) {
+                result.add(repository);
+            }
+        });
+        return result;
+    }
+
+    @NotNull
+    private static String buildReport(@NotNull String title, @NotNull Map<RepositoryDescriptor, Outcome> outcomes) {
+        StringBuilder report = new StringBuilder(title).append(':');
+        outcomes.forEach((repository, outcome) -> {
+            report.append("\n• ").append(repository.getPath()).append(" – ");
+            switch (outcome.status) {
+                case DONE -> report.append("OK");
+                case FAILED -> report.append("failed: ").append(outcome.message);
+                case CANCELLED -> report.append("cancelled");
+            }
+        });
+        return report.toString();
+    }
+
+    @FunctionalInterface
+    private interface RepositoryOperation {
+        void run(@NotNull RepositoryDescriptor repository) throws VcsCommandException;
+    }
+
+    private enum Status {DONE, FAILED, CANCELLED}
+
+    private static final class Outcome {
+        private final Status status;
+        private final String message;
+
+        private Outcome(@NotNull Status status, @NotNull String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+}
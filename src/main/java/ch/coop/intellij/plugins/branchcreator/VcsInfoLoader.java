@@ -0,0 +1,145 @@
+package ch.coop.intellij.plugins.branchcreator;
+
+import ch.coop.intellij.plugins.vcs.GitMetadataReader;
+import ch.coop.intellij.plugins.vcs.MercurialMetadataReader;
+import ch.coop.intellij.plugins.vcs.RepositoryDescriptor;
+import ch.coop.intellij.plugins.vcs.VcsCommandException;
+import ch.coop.intellij.plugins.vcs.VcsType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Lädt den aktuellen Branch eines Repositorys im Hintergrund, zusammen mit dem Upstream (Git) bzw. dem aktiven
+ * Bookmark (Mercurial). Beides wird direkt aus den Metadaten des Repositorys gelesen.
+ * <p>
+ * Ergebnisse werden pro Repository für kurze Zeit zwischengespeichert. Eine neue Anfrage bricht die laufende ab,
+ * und nur das Ergebnis der zuletzt angefragten Auswahl wird auf dem EDT ausgeliefert.
+ */
+class VcsInfoLoader implements Disposable {
+    static final long CACHE_TTL_MILLIS = 5_000;
+
+    /**
+     * Ergebnis einer Abfrage: der aktuelle Branch mit Upstream bzw. Bookmark oder eine Fehlermeldung.
+     */
+    static final class Result {
+        final String branch;
+        final String detail;
+        final String error;
+        final long timestamp;
+
+        Result(@Nullable String branch, @Nullable String detail, @Nullable String error) {
+            this.branch = branch;
+            this.detail = detail;
+            this.error = error;
+            this.timestamp = System.currentTimeMillis();
+        }
+
+        /**
+         * Gibt den Branch für die Anzeige zurück, z. B. "main (tracks origin/main)".
+         */
+        @Nullable
+        String describeBranch() {
+            if (branch == null || detail == null) {
+                return branch;
+            }
+            return branch + " (" + detail + ")";
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - timestamp > CACHE_TTL_MILLIS;
+        }
+    }
+
+    private final Project project;
+    private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Coop Branch Creator VCS Info", 1);
+    private final Map<RepositoryDescriptor, Result> cache = new ConcurrentHashMap<>();
+    private Future<?> pending;
+    private int generation;
+
+    VcsInfoLoader(@NotNull Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Fordert den aktuellen Branch eines Repositorys an. Muss auf dem EDT aufgerufen werden.
+     *
+     * @param repository Das ausgewählte Repository.
+     * @param callback   Wird auf dem EDT mit dem Ergebnis aufgerufen, sofern in der Zwischenzeit keine neuere
+     *                   Anfrage gestellt wurde.
+     * @return true, wenn das Ergebnis sofort aus dem Zwischenspeicher geliefert wurde.
+     */
+    boolean load(@NotNull RepositoryDescriptor repository, @NotNull Consumer<Result> callback) {
+        int requestGeneration = ++generation;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+
+        Result cached = cache.get(repository);
+        if (cached != null && !cached.isExpired()) {
+            callback.accept(cached);
+            return true;
+        }
+
+        pending = executor.submit(() -> {
+            Result result = compute(repository);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            cache.put(repository, result);
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (requestGeneration == generation) {
+                    callback.accept(result);
+                }
+            }, ModalityState.any());
+        });
+        return false;
+    }
+
+    @NotNull
+    private Result compute(@NotNull RepositoryDescriptor repository) {
+        try {
+            String branch = repository.getHandler().getCurrentBranch(project, repository.getPath());
+            return new Result(branch, branch != null ? readDetail(repository, branch) : null, null);
+        } catch (VcsCommandException e) {
+            return new Result(null, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Liest den Upstream des Git-Branches bzw. das aktive Mercurial-Bookmark.
+     */
+    @Nullable
+    private static String readDetail(@NotNull RepositoryDescriptor repository, @NotNull String branch) {
+        Path path = Paths.get(repository.getPath());
+        if (repository.getVcsType() == VcsType.GIT) {
+            String upstream = GitMetadataReader.readUpstream(path, branch);
+            return upstream != null ? "tracks " + upstream : null;
+        }
+        String bookmark = MercurialMetadataReader.readActiveBookmark(path);
+        return bookmark != null ? "bookmark " + bookmark : null;
+    }
+
+    @Override
+    public void dispose() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,58 @@
+package ch.coop.intellij.plugins.helper;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+
+/**
+ * Zeilenpuffer mit fester Obergrenze für die Ausgabe eines Prozesses.
+ * <p>
+ * Ist die Grenze erreicht, bleiben Anfang und Ende der Ausgabe erhalten, die Zeilen dazwischen werden nur noch
+ * gezählt. So füllt ein Befehl mit sehr viel Ausgabe den Speicher nicht, und die Fehlermeldung, die git und hg
+ * zuletzt ausgeben ("fatal: ...", "abort: ..."), geht nicht verloren.
+ */
+public final class BoundedTextBuffer {
+    private final int headLimit;
+    private final int tailLimit;
+    private final StringBuilder head = new StringBuilder();
+    private boolean headFull;
+    // Die letzten Zeilen als Ringpuffer, höchstens tailLimit Zeichen inklusive Zeilenumbrüchen
+    private final ArrayDeque<String> tail = new ArrayDeque<>();
+    private int tailChars;
+    private int droppedLines;
+
+    public BoundedTextBuffer(int maxChars) {
+        this.headLimit = maxChars / 2;
+        this.tailLimit = Math.max(1, maxChars - headLimit);
+    }
+
+    public synchronized void appendLine(@NotNull String line) {
+        if (!headFull) {
+            if (head.length() + line.length() + 1 <= headLimit) {
+                head.append(line).append('\n');
+                return;
+            }
+            headFull = true;
+        }
+        // Von einer überlangen Zeile bleibt das Ende, dort steht meist die eigentliche Meldung
+        String kept = line.length() + 1 > tailLimit ? line.substring(line.length() - (tailLimit - 1)) : line;
+        tail.addLast(kept);
+        tailChars += kept.length() + 1;
+        while (tailChars > tailLimit) {
+            tailChars -= tail.removeFirst().length() + 1;
+            droppedLines++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder result = new StringBuilder(head.length() + tailChars + 40).append(head);
+        if (droppedLines > 0) {
+            result.append("[").append(droppedLines).append(" lines omitted]\n");
+        }
+        for (String line : tail) {
+            result.append(line).append('\n');
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package ch.coop.intellij.plugins.helper;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Beschreibung eines auszuführenden Befehls für den {@link CommandRunner}.
+ * <p>
+ * Neben Programm und Argumenten werden Arbeitsverzeichnis, zusätzliche Umgebungsvariablen, Timeout,
+ * ein optionaler Zeilen-Listener und ein {@link ProgressIndicator} für den Abbruch festgelegt.
+ */
+public final class CommandLine {
+    /**
+     * Standard-Timeout für lokale Befehle.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 60_000;
+
+    /**
+     * Callback für jede Ausgabezeile, während der Befehl noch läuft.
+     */
+    @FunctionalInterface
+    public interface LineListener {
+        /**
+         * @param line        Die Zeile ohne Zeilenumbruch.
+         * @param errorStream true, wenn die Zeile von stderr stammt.
+         */
+        void onLine(@NotNull String line, boolean errorStream);
+    }
+
+    private final List<String> command;
+    private final Map<String, String> environment = new LinkedHashMap<>();
+    private String workingDirectory;
+    private long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+    private LineListener lineListener;
+    private ProgressIndicator indicator;
+
+    public CommandLine(@NotNull String... command) {
+        if (command.length == 0) {
+            throw new IllegalArgumentException("Command must not be empty");
+        }
+        this.command = List.of(command);
+    }
+
+    @NotNull
+    public CommandLine withWorkingDirectory(@Nullable String workingDirectory) {
+        this.workingDirectory = workingDirectory;
+        return this;
+    }
+
+    /**
+     * Setzt eine zusätzliche Umgebungsvariable; die übrige Umgebung wird vom IDE-Prozess übernommen.
+     */
+    @NotNull
+    public CommandLine withEnvironment(@NotNull String name, @NotNull String value) {
+        environment.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param timeoutMillis Maximale Laufzeit in Millisekunden, 0 für unbegrenzt.
+     */
+    @NotNull
+    public CommandLine withTimeout(long timeoutMillis) {
+        this.timeoutMillis = Math.max(0, timeoutMillis);
+        return this;
+    }
+
+    @NotNull
+    public CommandLine withLineListener(@Nullable LineListener lineListener) {
+        this.lineListener = lineListener;
+        return this;
+    }
+
+    /**
+     * Legt den Fortschrittsindikator fest, über den der Befehl abgebrochen werden kann.
+     * Ohne Angabe wird der Indikator des aufrufenden Threads verwendet, falls vorhanden.
+     */
+    @NotNull
+    public CommandLine withProgressIndicator(@Nullable ProgressIndicator indicator) {
+        this.indicator = indicator;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getCommand() {
+        return command;
+    }
+
+    @NotNull
+    public Map<String, String> getEnvironment() {
+        return Collections.unmodifiableMap(environment);
+    }
+
+    @Nullable
+    public String getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    @Nullable
+    public LineListener getLineListener() {
+        return lineListener;
+    }
+
+    @Nullable
+    public ProgressIndicator getProgressIndicator() {
+        return indicator;
+    }
+
+    /**
+     * Gibt den Programmnamen ohne Pfad und ohne Windows-Endung zurück, z. B. "git".
+     */
+    @NotNull
+    public String getExecutableName() {
+        String executable = command.get(0);
+        String name = executable.substring(Math.max(executable.lastIndexOf('/'), executable.lastIndexOf('\\')) + 1);
+        int extension = name.lastIndexOf('.');
+        return extension > 0 ? name.substring(0, extension) : name;
+    }
+
+    /**
+     * Gibt den Befehl für Log- und Fehlermeldungen zurück, mit dem Programmnamen statt des absoluten Pfads.
+     */
+    @NotNull
+    public String getDisplayString() {
+        StringBuilder display = new StringBuilder(getExecutableName());
+        for (String argument : command.subList(1, command.size())) {
+            display.append(' ').append(argument);
+        }
+        return display.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getDisplayString() + (workingDirectory != null ? " (in " + workingDirectory + ")" : "")
+                + (environment.isEmpty() ? "" : " " + environment);
+    }
+}
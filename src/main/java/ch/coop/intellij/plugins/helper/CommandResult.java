@@ -0,0 +1,60 @@
+package ch.coop.intellij.plugins.helper;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Ergebnis eines mit dem {@link CommandRunner} ausgeführten Befehls.
+ */
+public final class CommandResult {
+    private final int exitCode;
+    private final String stdout;
+    private final String stderr;
+    private final long durationMillis;
+
+    public CommandResult(int exitCode, @NotNull String stdout, @NotNull String stderr, long durationMillis) {
+        this.exitCode = exitCode;
+        this.stdout = stdout;
+        this.stderr = stderr;
+        this.durationMillis = durationMillis;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public boolean isSuccess() {
+        return exitCode == 0;
+    }
+
+    /**
+     * Gibt die (eventuell gekürzte) Standardausgabe zurück.
+     */
+    @NotNull
+    public String getStdout() {
+        return stdout;
+    }
+
+    /**
+     * Gibt die (eventuell gekürzte) Fehlerausgabe zurück.
+     */
+    @NotNull
+    public String getStderr() {
+        return stderr;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Gibt eine aussagekräftige Fehlermeldung zurück: stderr, ersatzweise stdout, sonst den Exit-Code.
+     */
+    @NotNull
+    public String getErrorMessage() {
+        String message = stderr.trim();
+        if (message.isEmpty()) {
+            message = stdout.trim();
+        }
+        return message.isEmpty() ? "Exit code: " + exitCode : message;
+    }
+}
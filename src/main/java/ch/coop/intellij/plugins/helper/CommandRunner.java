@@ -0,0 +1,202 @@
+package ch.coop.intellij.plugins.helper;
+
+import ch.coop.intellij.plugins.metrics.PluginMetrics;
+import ch.coop.intellij.plugins.metrics.VcsCommandEvent;
+import ch.coop.intellij.plugins.vcs.VcsCommandException;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Führt externe Befehle aus.
+ * <p>
+ * stdout und stderr werden parallel zum Prozess gelesen, damit ein gesprächiger Befehl (z. B. "git push")
+ * nicht an einem vollen Pipe-Puffer hängen bleibt. Die Ausgabe wird in begrenzten Puffern gehalten, der
+ * Prozess wird nach Ablauf des Timeouts oder beim Abbruch über den {@link ProgressIndicator} beendet.
+ */
+public final class CommandRunner {
+    private static final Logger LOG = Logger.getInstance(CommandRunner.class);
+
+    // Obergrenzen für die gepufferte Ausgabe; der Zeilen-Listener sieht trotzdem jede Zeile
+    private static final int MAX_STDOUT_CHARS = 256 * 1024;
+    private static final int MAX_STDERR_CHARS = 32 * 1024;
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final long DESTROY_GRACE_MILLIS = 2_000;
+
+    private CommandRunner() {
+    }
+
+    /**
+     * Führt einen Befehl aus und gibt das Ergebnis unabhängig vom Exit-Code zurück.
+     *
+     * @param commandLine Der auszuführende Befehl.
+     * @return Das Ergebnis mit Exit-Code und Ausgabe.
+     * @throws VcsCommandException       Wenn der Befehl nicht gestartet werden kann oder das Timeout überschreitet.
+     * @throws ProcessCanceledException Wenn der Befehl über den Fortschrittsindikator abgebrochen wurde.
+     */
+    @NotNull
+    public static CommandResult run(@NotNull CommandLine commandLine) throws VcsCommandException {
+        VcsCommandEvent event = new VcsCommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int exitCode = -1;
+        try {
+            CommandResult result = execute(commandLine);
+            exitCode = result.getExitCode();
+            return result;
+        } finally {
+            PluginMetrics.recordDuration(PluginMetrics.VCS_COMMAND_PREFIX + commandLine.getExecutableName(), System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.command = commandLine.getDisplayString();
+                event.workingDirectory = commandLine.getWorkingDirectory();
+                event.exitCode = exitCode;
+                event.commit();
+            }
+        }
+    }
+
+    @NotNull
+    private static CommandResult execute(@NotNull CommandLine commandLine) throws VcsCommandException {
+        ProcessBuilder builder = new ProcessBuilder(commandLine.getCommand());
+        if (commandLine.getWorkingDirectory() != null) {
+            builder.directory(new File(commandLine.getWorkingDirectory()));
+        }
+        builder.environment().putAll(commandLine.getEnvironment());
+
+        ProgressIndicator indicator = commandLine.getProgressIndicator() != null
+                ? commandLine.getProgressIndicator()
+                : ProgressManager.getGlobalProgressIndicator();
+
+        long start = System.nanoTime();
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException e) {
+            throw new VcsCommandException("Failed to execute command '" + commandLine.getDisplayString() + "': " + e.getMessage(), e);
+        }
+        // stdin wird nie benötigt; geschlossen verhindert es, dass ein Befehl auf eine Eingabe wartet
+        closeQuietly(process);
+
+        BoundedTextBuffer stdout = new BoundedTextBuffer(MAX_STDOUT_CHARS);
+        BoundedTextBuffer stderr = new BoundedTextBuffer(MAX_STDERR_CHARS);
+        Future<?> stdoutReader = AppExecutorUtil.getAppExecutorService().submit(
+                () -> drain(process.getInputStream(), stdout, commandLine.getLineListener(), false));
+        Future<?> stderrReader = AppExecutorUtil.getAppExecutorService().submit(
+                () -> drain(process.getErrorStream(), stderr, commandLine.getLineListener(), true));
+
+        try {
+            long deadline = commandLine.getTimeoutMillis() > 0 ? start + TimeUnit.MILLISECONDS.toNanos(commandLine.getTimeoutMillis()) : Long.MAX_VALUE;
+            while (!process.waitFor(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (indicator != null && indicator.isCanceled()) {
+                    destroy(process);
+                    throw new ProcessCanceledException();
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    destroy(process);
+                    awaitReader(stderrReader);
+                    throw VcsCommandException.forTimeout(commandLine.getDisplayString(), commandLine.getTimeoutMillis(), stderr.toString());
+                }
+            }
+            // Nach Prozessende die restliche Ausgabe vollständig einlesen
+            awaitReader(stdoutReader);
+            awaitReader(stderrReader);
+        } catch (InterruptedException e) {
+            destroy(process);
+            Thread.currentThread().interrupt();
+            throw new VcsCommandException("Interrupted while executing command '" + commandLine.getDisplayString() + "'", e);
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        CommandResult result = new CommandResult(process.exitValue(), stdout.toString(), stderr.toString(), durationMillis);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(commandLine + " finished with exit code " + result.getExitCode() + " in " + durationMillis + " ms");
+        }
+        return result;
+    }
+
+    /**
+     * Führt einen Befehl aus und wirft eine Exception mit der Fehlerausgabe, wenn er nicht erfolgreich ist.
+     *
+     * @param commandLine Der auszuführende Befehl.
+     * @return Das Ergebnis eines erfolgreichen Befehls.
+     * @throws VcsCommandException Wenn der Befehl fehlschlägt, nicht gestartet werden kann oder das Timeout überschreitet.
+     */
+    @NotNull
+    public static CommandResult runChecked(@NotNull CommandLine commandLine) throws VcsCommandException {
+        CommandResult result = run(commandLine);
+        if (!result.isSuccess()) {
+            throw VcsCommandException.forCommandFailure(commandLine.getDisplayString(), result.getExitCode(), result.getErrorMessage());
+        }
+        return result;
+    }
+
+    private static void drain(@NotNull InputStream stream, @NotNull BoundedTextBuffer buffer,
+                              @Nullable CommandLine.LineListener listener, boolean errorStream) {
+        // readLine trennt auch an '\r', so kommen Fortschrittsmeldungen von git einzeln an
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                buffer.appendLine(line);
+                if (listener != null) {
+                    try {
+                        listener.onLine(line, errorStream);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Line listener failed", e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Tritt auf, wenn der Prozess beendet wurde, während noch gelesen wird
+            LOG.debug("Stopped reading process output: " + e.getMessage());
+        }
+    }
+
+    private static void awaitReader(@NotNull Future<?> reader) throws InterruptedException {
+        try {
+            reader.get(DESTROY_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            LOG.warn("Reading process output failed", e.getCause());
+        } catch (TimeoutException e) {
+            // Ein Kindprozess hält die Pipe offen, die bisherige Ausgabe genügt
+            reader.cancel(true);
+        }
+    }
+
+    private static void destroy(@NotNull Process process) {
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+        try {
+            if (!process.waitFor(DESTROY_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(@NotNull Process process) {
+        try {
+            process.getOutputStream().close();
+        } catch (IOException ignored) {
+            // Nicht relevant, der Prozess liest kein stdin
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package ch.coop.intellij.plugins.helper;
 
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
 import ch.coop.intellij.plugins.vcs.VcsCommandException;
+import ch.coop.intellij.plugins.vcs.VcsType;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.vfs.VirtualFile;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class RepoHelper {
 
@@ -21,30 +32,7 @@ public class RepoHelper {
      * @throws VcsCommandException Wenn ein Fehler auftritt.
      */
     public static int executeCommand(String[] command, String workingDirectory) throws VcsCommandException {
-        try {
-            Process process = Runtime.getRuntime().exec(command, null, new File(workingDirectory));
-            return process.waitFor();
-        } catch (IOException | InterruptedException e) {
-            throw new VcsCommandException("Failed to execute command: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * Liest die Ausgabe eines Prozesses (stdout oder stderr).
-     *
-     * @param inputStream Der InputStream des Prozesses.
-     * @return Die gelesene Ausgabe als String.
-     * @throws IOException Wenn ein Fehler beim Lesen auftritt.
-     */
-    public static String readProcessOutput(InputStream inputStream) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            StringBuilder output = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            return output.toString();
-        }
+        return CommandRunner.run(new CommandLine(command).withWorkingDirectory(workingDirectory)).getExitCode();
     }
 
     /**
@@ -55,37 +43,41 @@ public class RepoHelper {
      */
     public static boolean isVcsToolAvailable(String[] command) {
         try {
-            Process process = Runtime.getRuntime().exec(command);
-            int exitCode = process.waitFor();
-            return exitCode == 0;
-        } catch (IOException | InterruptedException e) {
+            return CommandRunner.run(new CommandLine(command).withTimeout(10_000)).isSuccess();
+        } catch (VcsCommandException e) {
             return false;
         }
     }
 
     /**
-     * Durchsucht ein Verzeichnis rekursiv nach Repositorys eines bestimmten Typs.
+     * Durchsucht ein Verzeichnis nach Repositorys eines bestimmten Typs.
      *
      * @param directory Das Verzeichnis, das durchsucht werden soll.
      * @param repositoryPaths Die Liste, in die die gefundenen Repository-Pfade gespeichert werden.
      * @param repositoryDirName Der Name des Repository-Verzeichnisses (z. B. ".git" oder ".hg").
      */
     public static void findRepositories(File directory, List<String> repositoryPaths, String repositoryDirName) {
-        if (directory.isDirectory()) {
-            File repositoryDir = new File(directory, repositoryDirName);
-            if (repositoryDir.exists()) {
-                repositoryPaths.add(directory.getAbsolutePath());
-            }
-
-            File[] subDirs = directory.listFiles(File::isDirectory);
-            if (subDirs != null) {
-                for (File subDir : subDirs) {
-                    findRepositories(subDir, repositoryPaths, repositoryDirName);
-                }
-            }
+        for (Path repository : createScanner(Set.of(repositoryDirName)).scan(directory.toPath()).keySet()) {
+            repositoryPaths.add(repository.toAbsolutePath().toString());
         }
     }
 
+    /**
+     * Erstellt einen Repository-Scanner mit den Ausschlussmustern, der Suchtiefe und der Einstellung für
+     * verschachtelte Repositorys aus den Plugin-Einstellungen.
+     *
+     * @param markerNames Die Namen der Repository-Verzeichnisse (z. B. ".git" oder ".hg").
+     * @return Ein konfigurierter Repository-Scanner.
+     */
+    public static RepositoryScanner createScanner(Set<String> markerNames) {
+        SettingsSnapshot state = CoopPluginSettings.getInstance().getSnapshot();
+        List<String> excludes = state.repositoryScanExcludes != null
+                ? Arrays.asList(state.repositoryScanExcludes.split(","))
+                : List.of();
+        return new RepositoryScanner(markerNames, excludes, state.repositoryScanMaxDepth, state.nestedRepositories,
+                FileSystems.getDefault());
+    }
+
     /**
      * Gibt eine Liste der Repository-Verzeichnisse für ein bestimmtes VCS-System zurück.
      *
@@ -101,4 +93,35 @@ public class RepoHelper {
         }
         return repositoryPaths;
     }
-}
\ No newline at end of file
+
+    /**
+     * Durchsucht das Projekt in einem einzigen Durchlauf nach Repositorys aller unterstützten VCS-Systeme.
+     *
+     * @param project Das aktuelle Projekt.
+     * @return Die Repository-Verzeichnisse mit ihrem VCS-Typ, nach Pfad sortiert.
+     */
+    public static Map<String, VcsType> getRepositories(@NotNull Project project) {
+        Map<String, VcsType> repositories = new LinkedHashMap<>();
+        VirtualFile baseDir = project.getBaseDir();
+        if (baseDir == null) {
+            return repositories;
+        }
+        for (Map.Entry<Path, String> entry : createScanner().scan(new File(baseDir.getPath()).toPath()).entrySet()) {
+            repositories.put(entry.getKey().toAbsolutePath().toString(), VcsType.forMarkerName(entry.getValue()));
+        }
+        return repositories;
+    }
+
+    /**
+     * Erstellt einen Repository-Scanner für alle unterstützten VCS-Systeme mit den Plugin-Einstellungen.
+     *
+     * @return Ein konfigurierter Repository-Scanner.
+     */
+    public static RepositoryScanner createScanner() {
+        Set<String> markerNames = new HashSet<>();
+        for (VcsType type : EnumSet.allOf(VcsType.class)) {
+            markerNames.add(type.getMarkerName());
+        }
+        return createScanner(markerNames);
+    }
+}
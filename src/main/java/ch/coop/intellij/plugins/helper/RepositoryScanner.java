@@ -0,0 +1,239 @@
+package ch.coop.intellij.plugins.helper;
+
+import ch.coop.intellij.plugins.metrics.PluginMetrics;
+import ch.coop.intellij.plugins.metrics.RepositoryScanEvent;
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Paralleler Repository-Scanner auf Basis von NIO und Fork/Join.
+ * <p>
+ * Jedes Verzeichnis wird als eigene Teilaufgabe durchsucht. Der Abstieg endet, sobald ein Repository-Verzeichnis
+ * gefunden wurde (ausser verschachtelte Repositorys sind gewünscht), ausgeschlossene Verzeichnisse und
+ * Repository-Verzeichnisse selbst werden nie betreten, und über symbolische Links entstehende Zyklen werden
+ * anhand des File-Keys erkannt.
+ */
+public class RepositoryScanner {
+    private static final Logger LOG = Logger.getInstance(RepositoryScanner.class);
+
+    private final Set<String> markerNames;
+    private final List<PathMatcher> nameExcludes = new ArrayList<>();
+    private final List<PathMatcher> pathExcludes = new ArrayList<>();
+    private final int maxDepth;
+    private final boolean includeNested;
+
+    /**
+     * Erstellt einen neuen Scanner.
+     *
+     * @param markerNames   Die Namen der Repository-Verzeichnisse (z. B. ".git" oder ".hg").
+     * @param excludeGlobs  Glob-Muster für Verzeichnisse, die nicht durchsucht werden. Muster ohne '/' werden mit dem
+     *                      Verzeichnisnamen verglichen, alle anderen mit dem Pfad relativ zum Startverzeichnis.
+     * @param maxDepth      Die maximale Suchtiefe relativ zum Startverzeichnis (0 = nur das Startverzeichnis).
+     * @param includeNested true, wenn auch innerhalb gefundener Repositorys weitergesucht werden soll.
+     * @param fileSystem    Das Dateisystem, für das die Glob-Muster kompiliert werden.
+     */
+    public RepositoryScanner(@NotNull Set<String> markerNames, @NotNull Collection<String> excludeGlobs, int maxDepth,
+                             boolean includeNested, @NotNull FileSystem fileSystem) {
+        this.markerNames = Set.copyOf(markerNames);
+        this.maxDepth = maxDepth;
+        this.includeNested = includeNested;
+        for (String glob : excludeGlobs) {
+            String pattern = glob.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            PathMatcher matcher = fileSystem.getPathMatcher("glob:" + pattern);
+            if (pattern.contains("/")) {
+                pathExcludes.add(matcher);
+            } else {
+                nameExcludes.add(matcher);
+            }
+        }
+    }
+
+    /**
+     * Durchsucht ein Verzeichnis parallel nach Repositorys.
+     *
+     * @param root Das Startverzeichnis.
+     * @return Die gefundenen Repository-Verzeichnisse mit dem Namen ihres Repository-Verzeichnisses, nach Pfad sortiert.
+     */
+    @NotNull
+    public Map<Path, String> scan(@NotNull Path root) {
+        return scan(root, root, 0);
+    }
+
+    /**
+     * Durchsucht nur einen Teilbaum, z. B. ein neu angelegtes Verzeichnis. Ausschlussmuster und Suchtiefe gelten
+     * relativ zum Startverzeichnis des vollständigen Scans, das Ergebnis entspricht also dem Ausschnitt, den ein
+     * vollständiger Scan für diesen Teilbaum liefern würde.
+     *
+     * @param root      Das Startverzeichnis des vollständigen Scans.
+     * @param directory Das zu durchsuchende Verzeichnis innerhalb von {@code root}.
+     * @return Die gefundenen Repository-Verzeichnisse mit dem Namen ihres Repository-Verzeichnisses, nach Pfad sortiert.
+     */
+    @NotNull
+    public Map<Path, String> scanSubtree(@NotNull Path root, @NotNull Path directory) {
+        if (!isScanned(root, directory)) {
+            return Collections.emptyMap();
+        }
+        return scan(root, directory, root.relativize(directory).getNameCount());
+    }
+
+    /**
+     * Prüft, ob ein vollständiger Scan ab {@code root} das Verzeichnis betreten würde: Es liegt innerhalb der
+     * Suchtiefe, und weder das Verzeichnis noch eines seiner übergeordneten Verzeichnisse ist ausgeschlossen.
+     * Verschachtelte Repositorys werden dabei nicht berücksichtigt.
+     *
+     * @param root      Das Startverzeichnis des vollständigen Scans.
+     * @param directory Das zu prüfende Verzeichnis.
+     * @return true, wenn das Verzeichnis durchsucht würde.
+     */
+    public boolean isScanned(@NotNull Path root, @NotNull Path directory) {
+        if (!directory.startsWith(root)) {
+            return false;
+        }
+        Path relative = root.relativize(directory);
+        if (relative.getNameCount() > maxDepth) {
+            return false;
+        }
+        Path current = root;
+        for (Path segment : relative) {
+            if (segment.toString().isEmpty()) {
+                continue;
+            }
+            current = current.resolve(segment);
+            if (isExcluded(root, current)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @NotNull
+    private Map<Path, String> scan(@NotNull Path root, @NotNull Path directory, int depth) {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyMap();
+        }
+        Map<Path, String> result = new ConcurrentHashMap<>();
+        Set<Object> visited = ConcurrentHashMap.newKeySet();
+        RepositoryScanEvent event = new RepositoryScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(new ScanTask(root, directory, depth, result, visited));
+        } finally {
+            pool.shutdown();
+            PluginMetrics.recordDuration(PluginMetrics.REPOSITORY_SCAN, System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.root = directory.toString();
+                event.directoriesVisited = visited.size();
+                event.repositoriesFound = result.size();
+                event.commit();
+            }
+        }
+        return new TreeMap<>(result);
+    }
+
+    private boolean isExcluded(@NotNull Path root, @NotNull Path directory) {
+        Path name = directory.getFileName();
+        if (name != null) {
+            if (markerNames.contains(name.toString())) {
+                return true;
+            }
+            for (PathMatcher matcher : nameExcludes) {
+                if (matcher.matches(name)) {
+                    return true;
+                }
+            }
+        }
+        if (!pathExcludes.isEmpty()) {
+            Path relative = root.relativize(directory);
+            for (PathMatcher matcher : pathExcludes) {
+                if (matcher.matches(relative)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private final class ScanTask extends RecursiveAction {
+        private final Path root;
+        private final Path directory;
+        private final int depth;
+        private final Map<Path, String> result;
+        private final Set<Object> visited;
+
+        ScanTask(Path root, Path directory, int depth, Map<Path, String> result, Set<Object> visited) {
+            this.root = root;
+            this.directory = directory;
+            this.depth = depth;
+            this.result = result;
+            this.visited = visited;
+        }
+
+        @Override
+        protected void compute() {
+            if (!visited.add(directoryKey(directory))) {
+                return; // Zyklus über einen symbolischen Link
+            }
+
+            List<Path> subDirectories = new ArrayList<>();
+            String marker = null;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path child : stream) {
+                    String name = child.getFileName().toString();
+                    if (marker == null && markerNames.contains(name)) {
+                        marker = name;
+                    } else if (depth < maxDepth && Files.isDirectory(child) && !isExcluded(root, child)) {
+                        subDirectories.add(child);
+                    }
+                }
+            } catch (IOException | SecurityException e) {
+                LOG.debug("Skipping unreadable directory '" + directory + "': " + e.getMessage());
+                return;
+            }
+
+            if (marker != null) {
+                result.put(directory, marker);
+                if (!includeNested) {
+                    return;
+                }
+            }
+
+            List<ScanTask> tasks = new ArrayList<>(subDirectories.size());
+            for (Path subDirectory : subDirectories) {
+                tasks.add(new ScanTask(root, subDirectory, depth + 1, result, visited));
+            }
+            invokeAll(tasks);
+        }
+
+        private Object directoryKey(Path path) {
+            try {
+                Object fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+                return fileKey != null ? fileKey : path.toRealPath();
+            } catch (IOException e) {
+                return path.toAbsolutePath().normalize();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ch.coop.intellij.plugins.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis für das Öffnen eines Dialogs des Plugins.
+ */
+@Name("ch.coop.intellij.plugins.DialogOpen")
+@Label("Dialog Open")
+@Category({"Coop Plugins", "UI"})
+@Description("Time until a plugin dialog is ready to be shown")
+@StackTrace(false)
+public final class DialogOpenEvent extends Event {
+    @Label("Dialog")
+    public String dialog;
+}
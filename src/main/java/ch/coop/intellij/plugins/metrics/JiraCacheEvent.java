@@ -0,0 +1,22 @@
+package ch.coop.intellij.plugins.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis für einen Zugriff auf den Zwischenspeicher der Jira-Suchergebnisse.
+ */
+@Name("ch.coop.intellij.plugins.JiraCacheLookup")
+@Label("Jira Cache Lookup")
+@Category({"Coop Plugins", "Jira"})
+@Description("A lookup in the Jira search result cache")
+@StackTrace(false)
+public final class JiraCacheEvent extends Event {
+    @Label("Result")
+    @Description("hit, stale or miss")
+    public String result;
+}
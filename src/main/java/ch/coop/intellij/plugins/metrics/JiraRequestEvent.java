@@ -0,0 +1,26 @@
+package ch.coop.intellij.plugins.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis für eine HTTP-Anfrage an Jira.
+ */
+@Name("ch.coop.intellij.plugins.JiraRequest")
+@Label("Jira Request")
+@Category({"Coop Plugins", "Jira"})
+@Description("An HTTP request to Jira, measured until the response headers arrive")
+@StackTrace(false)
+public final class JiraRequestEvent extends Event {
+    @Label("Path")
+    @Description("Request path without query, so that no search terms are recorded")
+    public String path;
+
+    @Label("Status Code")
+    @Description("-1 if the request failed without a response")
+    public int statusCode = -1;
+}
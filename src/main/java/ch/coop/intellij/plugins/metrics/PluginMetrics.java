@@ -0,0 +1,200 @@
+package ch.coop.intellij.plugins.metrics;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sammelt Latenzen und Zähler der heissen Pfade des Plugins (VCS-Befehle, Repository-Scans, Jira-Anfragen,
+ * Cache-Zugriffe, Dialoge).
+ * <p>
+ * Die Werte liegen nur im Speicher und gelten ab IDE-Start bzw. dem letzten {@link #reset()}. Parallel dazu
+ * werden JFR-Ereignisse geschrieben, sodass sich eine Aufnahme mit Flight Recorder im Detail auswerten lässt.
+ */
+public final class PluginMetrics {
+    // Namen der Messgrössen
+    public static final String VCS_COMMAND_PREFIX = "vcs.";
+    public static final String REPOSITORY_SCAN = "scan.repositories";
+    public static final String JIRA_REQUEST = "jira.request";
+    public static final String JIRA_CACHE_HIT = "jira.cache.hit";
+    public static final String JIRA_CACHE_STALE = "jira.cache.stale";
+    public static final String JIRA_CACHE_MISS = "jira.cache.miss";
+    public static final String DIALOG_OPEN_PREFIX = "dialog.";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Momentaufnahme einer Messgrösse für Anzeige und Export.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long count;
+        private final boolean latency;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p95Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        private Snapshot(@NotNull String name, @NotNull LatencyHistogram histogram) {
+            this.name = name;
+            this.count = histogram.getCount();
+            this.latency = true;
+            this.meanMicros = histogram.getMeanMicros();
+            this.p50Micros = histogram.getPercentileMicros(50);
+            this.p95Micros = histogram.getPercentileMicros(95);
+            this.p99Micros = histogram.getPercentileMicros(99);
+            this.maxMicros = histogram.getMaxMicros();
+        }
+
+        private Snapshot(@NotNull String name, long count) {
+            this.name = name;
+            this.count = count;
+            this.latency = false;
+            this.meanMicros = 0;
+            this.p50Micros = 0;
+            this.p95Micros = 0;
+            this.p99Micros = 0;
+            this.maxMicros = 0;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return true für Latenzen, false für reine Zähler ohne Perzentile.
+         */
+        public boolean isLatency() {
+            return latency;
+        }
+
+        public long getMeanMicros() {
+            return meanMicros;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP95Micros() {
+            return p95Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+
+    /**
+     * Gibt die Instanz der Metriken zurück.
+     *
+     * @return Die Metriken des Plugins.
+     */
+    public static PluginMetrics getInstance() {
+        return ApplicationManager.getApplication().getService(PluginMetrics.class);
+    }
+
+    /**
+     * Erfasst eine Dauer, sofern die Anwendung läuft (Hilfsklassen werden auch ausserhalb der IDE verwendet).
+     *
+     * @param name  Der Name der Messgrösse.
+     * @param nanos Die Dauer in Nanosekunden.
+     */
+    public static void recordDuration(@NotNull String name, long nanos) {
+        Application application = ApplicationManager.getApplication();
+        if (application != null) {
+            application.getService(PluginMetrics.class).record(name, nanos);
+        }
+    }
+
+    /**
+     * Erhöht einen Zähler, sofern die Anwendung läuft.
+     *
+     * @param name Der Name des Zählers.
+     */
+    public static void count(@NotNull String name) {
+        Application application = ApplicationManager.getApplication();
+        if (application != null) {
+            application.getService(PluginMetrics.class).increment(name);
+        }
+    }
+
+    public void record(@NotNull String name, long nanos) {
+        histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void increment(@NotNull String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Gibt alle Messgrössen sortiert nach Namen zurück.
+     *
+     * @return Die Momentaufnahmen aller Latenzen und Zähler.
+     */
+    @NotNull
+    public List<Snapshot> getSnapshots() {
+        Map<String, Snapshot> snapshots = new ConcurrentSkipListMap<>();
+        histograms.forEach((name, histogram) -> snapshots.put(name, new Snapshot(name, histogram)));
+        counters.forEach((name, counter) -> snapshots.put(name, new Snapshot(name, counter.sum())));
+        return new ArrayList<>(snapshots.values());
+    }
+
+    /**
+     * Verwirft alle erfassten Werte.
+     */
+    public void reset() {
+        histograms.clear();
+        counters.clear();
+    }
+
+    /**
+     * Gibt alle Messgrössen als JSON zurück, z. B. zum Anhängen an eine Problemmeldung.
+     *
+     * @return Das JSON-Dokument.
+     */
+    @NotNull
+    public String toJson() {
+        JsonObject root = new JsonObject();
+        root.addProperty("exportedAt", Instant.now().toString());
+        root.addProperty("unit", "microseconds");
+        JsonArray metrics = new JsonArray();
+        for (Snapshot snapshot : getSnapshots()) {
+            JsonObject metric = new JsonObject();
+            metric.addProperty("name", snapshot.getName());
+            metric.addProperty("count", snapshot.getCount());
+            if (snapshot.isLatency()) {
+                metric.addProperty("mean", snapshot.getMeanMicros());
+                metric.addProperty("p50", snapshot.getP50Micros());
+                metric.addProperty("p95", snapshot.getP95Micros());
+                metric.addProperty("p99", snapshot.getP99Micros());
+                metric.addProperty("max", snapshot.getMaxMicros());
+            }
+            metrics.add(metric);
+        }
+        root.add("metrics", metrics);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+    }
+}
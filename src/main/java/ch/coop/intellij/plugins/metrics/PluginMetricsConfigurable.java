@@ -0,0 +1,128 @@
+package ch.coop.intellij.plugins.metrics;
+
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Einstellungsseite, die die erfassten Latenzen (p50/p95/p99) und Zähler anzeigt und als JSON exportiert.
+ */
+public class PluginMetricsConfigurable implements Configurable {
+    private JPanel mainPanel;
+    private DefaultTableModel tableModel;
+
+    @Nls(capitalization = Nls.Capitalization.Title)
+    @Override
+    public String getDisplayName() {
+        return "Metrics";
+    }
+
+    @Nullable
+    @Override
+    public JComponent createComponent() {
+        mainPanel = new JPanel(new BorderLayout());
+
+        JBLabel titleLabel = new JBLabel("Latencies since IDE start (milliseconds)");
+        titleLabel.setFont(new Font(titleLabel.getFont().getName(), Font.BOLD, 14));
+        mainPanel.add(titleLabel, BorderLayout.NORTH);
+
+        tableModel = new DefaultTableModel(new Object[]{"Name", "Count", "Mean", "p50", "p95", "p99", "Max"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JBTable table = new JBTable(tableModel);
+        mainPanel.add(new JBScrollPane(table), BorderLayout.CENTER);
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> loadMetrics());
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            PluginMetrics.getInstance().reset();
+            loadMetrics();
+        });
+        JButton exportButton = new JButton("Export JSON...");
+        exportButton.addActionListener(e -> exportMetrics());
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.add(refreshButton);
+        buttonPanel.add(resetButton);
+        buttonPanel.add(exportButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        loadMetrics();
+        return mainPanel;
+    }
+
+    @Override
+    public boolean isModified() {
+        return false; // Nur Anzeige, es gibt nichts zu speichern
+    }
+
+    @Override
+    public void apply() {
+    }
+
+    @Override
+    public void reset() {
+        loadMetrics();
+    }
+
+    @Override
+    public void disposeUIResources() {
+        mainPanel = null;
+        tableModel = null;
+    }
+
+    private void loadMetrics() {
+        if (tableModel == null) {
+            return;
+        }
+        tableModel.setRowCount(0);
+        for (PluginMetrics.Snapshot snapshot : PluginMetrics.getInstance().getSnapshots()) {
+            if (snapshot.isLatency()) {
+                tableModel.addRow(new Object[]{snapshot.getName(), snapshot.getCount(),
+                        formatMillis(snapshot.getMeanMicros()), formatMillis(snapshot.getP50Micros()),
+                        formatMillis(snapshot.getP95Micros()), formatMillis(snapshot.getP99Micros()),
+                        formatMillis(snapshot.getMaxMicros())});
+            } else {
+                tableModel.addRow(new Object[]{snapshot.getName(), snapshot.getCount(), "", "", "", "", ""});
+            }
+        }
+    }
+
+    private void exportMetrics() {
+        FileSaverDescriptor descriptor = new FileSaverDescriptor("Export Metrics", "Save the plugin metrics as JSON", "json");
+        VirtualFileWrapper target = FileChooserFactory.getInstance()
+                .createSaveFileDialog(descriptor, (Project) null)
+                .save("coop-plugin-metrics.json");
+        if (target == null) {
+            return;
+        }
+        try {
+            Files.writeString(target.getFile().toPath(), PluginMetrics.getInstance().toJson(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Messages.showErrorDialog(mainPanel, "Die Metriken konnten nicht exportiert werden: " + e.getMessage(), "Fehler");
+        }
+    }
+
+    private static String formatMillis(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,27 @@
+package ch.coop.intellij.plugins.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis für einen Scan des Dateisystems nach Repositorys.
+ */
+@Name("ch.coop.intellij.plugins.RepositoryScan")
+@Label("Repository Scan")
+@Category({"Coop Plugins", "Disk"})
+@Description("A file system scan for VCS repositories")
+@StackTrace(false)
+public final class RepositoryScanEvent extends Event {
+    @Label("Root")
+    public String root;
+
+    @Label("Directories Visited")
+    public int directoriesVisited;
+
+    @Label("Repositories Found")
+    public int repositoriesFound;
+}
@@ -0,0 +1,31 @@
+package ch.coop.intellij.plugins.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR-Ereignis für einen git- oder hg-Befehl.
+ */
+@Name("ch.coop.intellij.plugins.VcsCommand")
+@Label("VCS Command")
+@Category({"Coop Plugins", "VCS"})
+@Description("A git or hg command, run on the command line or through a Mercurial command server")
+@StackTrace(false)
+public final class VcsCommandEvent extends Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Working Directory")
+    public String workingDirectory;
+
+    @Label("Exit Code")
+    @Description("-1 if the command could not be started or did not terminate normally")
+    public int exitCode = -1;
+
+    @Label("Command Server")
+    public boolean commandServer;
+}
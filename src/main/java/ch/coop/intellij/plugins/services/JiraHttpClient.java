@@ -0,0 +1,232 @@
+package ch.coop.intellij.plugins.services;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import ch.coop.intellij.plugins.metrics.JiraRequestEvent;
+import ch.coop.intellij.plugins.metrics.PluginMetrics;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Gemeinsamer HTTP-Client für alle Jira-Aufrufe.
+ * <p>
+ * Der {@link HttpClient} wird über alle Dialoge hinweg wiederverwendet, sodass TLS-Verbindungen offen bleiben.
+ * HTTP/2 wird ausgehandelt (mit Rückfall auf HTTP/1.1), gzip-komprimierte Antworten werden akzeptiert, und
+ * Verbindungs- sowie Anfrage-Timeouts stammen aus den Einstellungen. Das Anfrage-Timeout gilt für den ganzen
+ * Austausch einschliesslich Lesen und Auswerten des Körpers, nicht nur bis zu den Antwort-Headern; ein Server, der
+ * den Körper nur tröpfchenweise sendet, hält den Aufrufer so nicht unbegrenzt fest. Für jede Anfrage wird die
+ * Latenz des ganzen Austauschs erfasst.
+ */
+public final class JiraHttpClient {
+    private static final Logger LOG = Logger.getInstance(JiraHttpClient.class);
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private final AtomicLong lastLatencyNanos = new AtomicLong();
+
+    // Wird bei einem geänderten Verbindungs-Timeout verworfen und beim nächsten Aufruf neu erzeugt
+    private HttpClient client;
+
+    /**
+     * Gibt die Instanz des HTTP-Clients zurück.
+     *
+     * @return Der gemeinsame Jira-HTTP-Client.
+     */
+    public static JiraHttpClient getInstance() {
+        return ApplicationManager.getApplication().getService(JiraHttpClient.class);
+    }
+
+    /**
+     * Führt eine GET-Anfrage mit Bearer-Token aus und wertet die Antwort aus.
+     * <p>
+     * Der Körper wird auf einem Pool-Thread gelesen, während der Aufrufer höchstens bis zum Anfrage-Timeout wartet.
+     * Läuft es ab oder wird der Aufrufer unterbrochen, wird die Anfrage abgebrochen und der Körper geschlossen, was
+     * auch ein blockiertes Lesen beendet.
+     *
+     * @param uri         Die aufzurufende URI.
+     * @param bearerToken Das API-Token.
+     * @param handler     Wertet Statuscode und (dekomprimierten) Körper aus; der Körper wird danach geschlossen.
+     * @return Das Ergebnis des Handlers.
+     * @throws IOException          Wenn die Anfrage oder die Auswertung fehlschlägt oder das Timeout überschritten wird.
+     * @throws InterruptedException Wenn der Thread während der Anfrage unterbrochen wird (z. B. durch eine neuere Suche).
+     */
+    public <T> T get(@NotNull URI uri, @NotNull String bearerToken, @NotNull ResponseHandler<T> handler)
+            throws IOException, InterruptedException {
+        SettingsSnapshot settings = CoopPluginSettings.getInstance().getSnapshot();
+        long timeoutMillis = Math.max(1, settings.jiraRequestTimeoutMillis);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .GET()
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .header("Authorization", "Bearer " + bearerToken)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .build();
+
+        JiraRequestEvent event = new JiraRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        AtomicReference<InputStream> body = new AtomicReference<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletableFuture<HttpResponse<InputStream>> sent = getClient(settings).sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        // Nicht auf dem Executor des HttpClient lesen, dort würde ein langsamer Körper andere Antworten blockieren
+        CompletableFuture<T> exchange = sent.thenApplyAsync(response -> {
+            try (InputStream in = decode(response)) {
+                body.set(in);
+                if (abandoned.get()) {
+                    throw new CompletionException(new HttpTimeoutException("Request abandoned"));
+                }
+                event.statusCode = response.statusCode();
+                return handler.handle(response.statusCode(), in);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, AppExecutorUtil.getAppExecutorService());
+        try {
+            return exchange.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            errorCount.incrementAndGet();
+            abandon(sent, exchange, abandoned, body);
+            throw new HttpTimeoutException("Jira request timed out after " + timeoutMillis + " ms");
+        } catch (InterruptedException e) {
+            errorCount.incrementAndGet();
+            abandon(sent, exchange, abandoned, body);
+            throw e;
+        } catch (ExecutionException e) {
+            errorCount.incrementAndGet();
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            recordLatency(nanos);
+            PluginMetrics.recordDuration(PluginMetrics.JIRA_REQUEST, nanos);
+            if (event.shouldCommit()) {
+                event.path = uri.getPath();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Bricht eine abgelaufene oder abgelöste Anfrage ab. Das Abbrechen der Futures unterbricht kein laufendes Lesen,
+     * daher wird zusätzlich der Körper geschlossen. Die Markierung deckt den Fall ab, dass der Körper erst danach
+     * geöffnet wird.
+     */
+    private static void abandon(@NotNull CompletableFuture<?> sent, @NotNull CompletableFuture<?> exchange,
+                                @NotNull AtomicBoolean abandoned, @NotNull AtomicReference<InputStream> bodyRef) {
+        abandoned.set(true);
+        sent.cancel(true);
+        exchange.cancel(true);
+        InputStream body = bodyRef.get();
+        if (body != null) {
+            try {
+                body.close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close abandoned Jira response", e);
+            }
+        }
+    }
+
+    private synchronized HttpClient getClient(@NotNull SettingsSnapshot settings) {
+        if (client == null) {
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(Duration.ofMillis(Math.max(1, settings.jiraConnectTimeoutMillis)))
+                    .build();
+        }
+        return client;
+    }
+
+    /**
+     * Verwirft den HTTP-Client, damit der nächste Aufruf einen mit den aktuellen Einstellungen erzeugt.
+     */
+    public synchronized void resetClient() {
+        client = null;
+    }
+
+    @NotNull
+    private static InputStream decode(@NotNull HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        if ("gzip".equalsIgnoreCase(encoding.trim())) {
+            return new GZIPInputStream(response.body());
+        }
+        return response.body();
+    }
+
+    private void recordLatency(long nanos) {
+        requestCount.incrementAndGet();
+        totalLatencyNanos.addAndGet(nanos);
+        lastLatencyNanos.set(nanos);
+        maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getAverageLatencyMillis() {
+        long count = requestCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / count);
+    }
+
+    public long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    public long getLastLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLatencyNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + getRequestCount() + ", errors=" + getErrorCount() + ", avg=" + getAverageLatencyMillis()
+                + " ms, max=" + getMaxLatencyMillis() + " ms, last=" + getLastLatencyMillis() + " ms";
+    }
+
+    /**
+     * Wertet die Antwort einer Anfrage aus.
+     */
+    @FunctionalInterface
+    public interface ResponseHandler<T> {
+        /**
+         * @param statusCode Der HTTP-Statuscode.
+         * @param body       Der bereits dekomprimierte Körper.
+         * @return Das Ergebnis der Auswertung.
+         * @throws IOException Wenn der Körper nicht gelesen oder ausgewertet werden kann.
+         */
+        T handle(int statusCode, @NotNull InputStream body) throws IOException;
+    }
+}
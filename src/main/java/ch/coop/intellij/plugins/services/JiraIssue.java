@@ -0,0 +1,53 @@
+package ch.coop.intellij.plugins.services;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Ein Jira-Issue mit den für Vorschläge benötigten Feldern.
+ */
+public final class JiraIssue {
+    private final String key;
+    private final String summary;
+
+    public JiraIssue(@NotNull String key, @NotNull String summary) {
+        this.key = key;
+        this.summary = summary;
+    }
+
+    @NotNull
+    public String getKey() {
+        return key;
+    }
+
+    @NotNull
+    public String getSummary() {
+        return summary;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JiraIssue)) {
+            return false;
+        }
+        JiraIssue that = (JiraIssue) o;
+        return key.equals(that.key) && summary.equals(that.summary);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, summary);
+    }
+
+    /**
+     * Gibt den Issue-Key zurück, damit das Issue in einer editierbaren ComboBox als Key übernommen wird.
+     */
+    @Override
+    public String toString() {
+        return key;
+    }
+}
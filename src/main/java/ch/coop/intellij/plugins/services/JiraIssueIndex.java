@@ -0,0 +1,439 @@
+package ch.coop.intellij.plugins.services;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lokaler Index der für den Benutzer relevanten Jira-Issues (zugewiesen, gemeldet, kürzlich angesehen sowie
+ * konfigurierte Projekte).
+ * <p>
+ * Der Index wird auf der Festplatte gespeichert und periodisch im Hintergrund inkrementell synchronisiert. Als
+ * Stand dient der späteste von Jira gelieferte Änderungszeitpunkt; abgefragt wird relativ zur aktuellen Zeit
+ * ({@code updated >= -Nm}), da Jira absolute Datumsangaben in der Zeitzone des Benutzerprofils auswertet. Wird die
+ * Seitenbegrenzung erreicht, setzt die nächste Synchronisation beim letzten gelieferten Issue fort. Ändern sich
+ * Server, konfigurierte Projekte oder Token, wird der Index neu aufgebaut.
+ * <p>
+ * Suchen laufen ausschliesslich im Speicher (Präfix auf dem Key, Präfix je Wort der Zusammenfassung) und
+ * funktionieren auch dann, wenn Jira langsam oder nicht erreichbar ist.
+ */
+public final class JiraIssueIndex implements Disposable {
+    private static final Logger LOG = Logger.getInstance(JiraIssueIndex.class);
+    private static final int FORMAT_VERSION = 2;
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 50;
+    private static final String SYNC_FIELDS = JiraService.SEARCH_FIELDS + ",updated";
+    // Deckt Abweichungen zwischen lokaler Uhr und Jira-Server sowie die Minutengenauigkeit der JQL ab
+    private static final long SYNC_OVERLAP_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * Unveränderlicher Stand des Index. Suchen lesen den aktuellen Stand ohne Sperre.
+     */
+    private static final class Snapshot {
+        final String server;
+        // Projekte und Fingerabdruck des Tokens, mit denen der Index aufgebaut wurde
+        final String scope;
+        // Spätester Änderungszeitpunkt (Epoch-Millisekunden laut Jira) der bisher geladenen Issues, 0 für keinen
+        final long lastSync;
+        final NavigableMap<String, JiraIssue> issuesByKey;
+        final NavigableMap<String, List<String>> keysByToken;
+
+        Snapshot(String server, String scope, long lastSync, NavigableMap<String, JiraIssue> issuesByKey) {
+            this.server = server;
+            this.scope = scope;
+            this.lastSync = lastSync;
+            this.issuesByKey = issuesByKey;
+            this.keysByToken = buildTokenIndex(issuesByKey);
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot("", "", 0, new TreeMap<>());
+    private final Object syncLock = new Object();
+    private ScheduledFuture<?> syncFuture;
+    private int scheduledIntervalMinutes;
+
+    public JiraIssueIndex() {
+        AppExecutorUtil.getAppExecutorService().execute(() -> {
+            load();
+            reschedule();
+        });
+    }
+
+    /**
+     * Gibt die Instanz des Index zurück.
+     *
+     * @return Der lokale Jira-Issue-Index.
+     */
+    public static JiraIssueIndex getInstance() {
+        return ApplicationManager.getApplication().getService(JiraIssueIndex.class);
+    }
+
+    /**
+     * Sucht im lokalen Index. Ein Suchbegriff, der wie ein Issue-Key aussieht, wird als Key-Präfix gesucht; sonst
+     * muss jedes Wort des Suchbegriffs Präfix eines Wortes der Zusammenfassung oder des Keys sein.
+     *
+     * @param server     Die URL des Jira-Servers; liefert nur Treffer, wenn der Index für diesen Server aufgebaut wurde.
+     * @param query      Der Suchbegriff.
+     * @param maxResults Die maximale Anzahl Treffer.
+     * @return Die gefundenen Issues, leer wenn nichts gefunden wurde.
+     */
+    @NotNull
+    public List<JiraIssue> search(@NotNull String server, @NotNull String query, int maxResults) {
+        Snapshot current = snapshot;
+        String normalized = query.trim();
+        if (normalized.isEmpty() || !current.server.equals(normalizeServer(server))) {
+            return Collections.emptyList();
+        }
+
+        List<JiraIssue> result = new ArrayList<>();
+        String keyPrefix = normalized.toUpperCase(Locale.ROOT);
+        for (JiraIssue issue : prefixRange(current.issuesByKey, keyPrefix).values()) {
+            if (result.size() >= maxResults) {
+                return result;
+            }
+            result.add(issue);
+        }
+
+        Set<String> matchingKeys = null;
+        for (String token : tokenize(normalized)) {
+            Set<String> keys = new LinkedHashSet<>();
+            for (List<String> tokenKeys : prefixRange(current.keysByToken, token).values()) {
+                keys.addAll(tokenKeys);
+            }
+            if (matchingKeys == null) {
+                matchingKeys = keys;
+            } else {
+                matchingKeys.retainAll(keys);
+            }
+            if (matchingKeys.isEmpty()) {
+                break;
+            }
+        }
+        if (matchingKeys != null) {
+            for (String key : matchingKeys) {
+                if (result.size() >= maxResults) {
+                    break;
+                }
+                JiraIssue issue = current.issuesByKey.get(key);
+                if (issue != null && !result.contains(issue)) {
+                    result.add(issue);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gibt alle Issues des Index zurück, sofern er für Server, Projekte und Token der angegebenen Einstellungen
+     * aufgebaut wurde.
+     *
+     * @param settings Die aktuellen Einstellungen.
+     * @return Die Issues, leer wenn der Index zu anderen Einstellungen gehört.
+     */
+    @NotNull
+    public List<JiraIssue> getAllIssues(@NotNull SettingsSnapshot settings) {
+        Snapshot current = snapshot;
+        if (settings.jiraApiUrl == null || settings.jiraApiToken == null
+                || !current.server.equals(normalizeServer(settings.jiraApiUrl))
+                || !current.scope.equals(buildScope(settings.jiraIndexProjects, settings.jiraApiToken))) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(current.issuesByKey.values());
+    }
+
+    public int size() {
+        return snapshot.issuesByKey.size();
+    }
+
+    /**
+     * Synchronisiert den Index mit Jira. Läuft im Hintergrund; ändern sich Server, Projekte oder Token, wird der
+     * Index neu aufgebaut.
+     */
+    public void sync() {
+        synchronized (syncLock) {
+            SettingsSnapshot state = CoopPluginSettings.getInstance().getSnapshot();
+            if (!state.jiraIndexEnabled || state.jiraApiUrl == null || state.jiraApiUrl.isEmpty()
+                    || state.jiraApiToken == null || state.jiraApiToken.isEmpty()) {
+                return;
+            }
+
+            String server = normalizeServer(state.jiraApiUrl);
+            String scope = buildScope(state.jiraIndexProjects, state.jiraApiToken);
+            Snapshot current = snapshot;
+            boolean incremental = server.equals(current.server) && scope.equals(current.scope) && current.lastSync > 0;
+            long lastSync = incremental ? current.lastSync : 0;
+            String jql = buildSyncJql(state.jiraIndexProjects, lastSync, System.currentTimeMillis());
+
+            NavigableMap<String, JiraIssue> issues = incremental ? new TreeMap<>(current.issuesByKey) : new TreeMap<>();
+            try {
+                int updated = 0;
+                boolean complete = false;
+                for (int page = 0; page < MAX_PAGES && !complete; page++) {
+                    JiraResponseParser.Page result = fetchPage(server, state.jiraApiToken, jql, page * PAGE_SIZE);
+                    for (JiraIssue issue : result.getIssues()) {
+                        issues.put(issue.getKey().toUpperCase(Locale.ROOT), issue);
+                    }
+                    lastSync = Math.max(lastSync, result.getLatestUpdated());
+                    updated += result.getIssues().size();
+                    complete = result.getIssues().size() < PAGE_SIZE;
+                }
+                snapshot = new Snapshot(server, scope, lastSync, issues);
+                save();
+                LOG.info("Jira issue index synchronized: " + updated + " updated, " + issues.size() + " total"
+                        + (complete ? "." : "; page limit reached, continuing with the next synchronization."));
+            } catch (IOException e) {
+                LOG.warn("Failed to synchronize Jira issue index: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @NotNull
+    private JiraResponseParser.Page fetchPage(@NotNull String server, @NotNull String token, @NotNull String jql, int startAt)
+            throws IOException, InterruptedException {
+        URI uri = URI.create(server + "/rest/api/2/search?jql=" + URLEncoder.encode(jql, StandardCharsets.UTF_8)
+                + "&fields=" + SYNC_FIELDS + "&maxResults=" + PAGE_SIZE + "&startAt=" + startAt);
+        return JiraHttpClient.getInstance().get(uri, token, (statusCode, body) -> {
+            if (statusCode != 200) {
+                throw new IOException("HTTP " + statusCode);
+            }
+            return JiraResponseParser.parsePage(new InputStreamReader(body, StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * Erstellt die JQL der Synchronisation. Der Stand wird als relative Zeitangabe in Minuten übergeben, damit die
+     * Zeitzone des Jira-Benutzerprofils keine Rolle spielt.
+     *
+     * @param projects Die zusätzlich zu indexierenden Projekte, durch Kommas getrennt.
+     * @param lastSync Der späteste bereits geladene Änderungszeitpunkt oder 0 für einen vollständigen Aufbau.
+     * @param now      Die aktuelle Zeit in Epoch-Millisekunden.
+     * @return Die JQL-Abfrage, aufsteigend nach Änderungszeitpunkt sortiert.
+     */
+    @NotNull
+    static String buildSyncJql(@Nullable String projects, long lastSync, long now) {
+        StringBuilder jql = new StringBuilder("(assignee = currentUser() OR reporter = currentUser() OR issue in issueHistory()");
+        List<String> projectKeys = parseProjects(projects);
+        if (!projectKeys.isEmpty()) {
+            List<String> quoted = new ArrayList<>(projectKeys.size());
+            for (String project : projectKeys) {
+                quoted.add('"' + project + '"');
+            }
+            jql.append(" OR project in (").append(String.join(", ", quoted)).append(')');
+        }
+        jql.append(')');
+        if (lastSync > 0) {
+            long minutes = (Math.max(0, now - lastSync) + SYNC_OVERLAP_MILLIS + TimeUnit.MINUTES.toMillis(1) - 1)
+                    / TimeUnit.MINUTES.toMillis(1);
+            jql.append(" AND updated >= \"-").append(minutes).append("m\"");
+        }
+        return jql.append(" ORDER BY updated ASC").toString();
+    }
+
+    @NotNull
+    private static List<String> parseProjects(@Nullable String projects) {
+        List<String> projectKeys = new ArrayList<>();
+        if (projects != null) {
+            for (String project : projects.split(",")) {
+                if (!project.isBlank()) {
+                    projectKeys.add(project.trim().replace("\"", ""));
+                }
+            }
+        }
+        return projectKeys;
+    }
+
+    /**
+     * Beschreibt, wofür der Index aufgebaut wurde: die Projekte (ohne Reihenfolge und Gross-/Kleinschreibung) und
+     * ein Fingerabdruck des Tokens, damit das Token selbst nicht im Index gespeichert wird.
+     */
+    @NotNull
+    static String buildScope(@Nullable String projects, @NotNull String token) {
+        Set<String> projectKeys = new TreeSet<>();
+        for (String project : parseProjects(projects)) {
+            projectKeys.add(project.toUpperCase(Locale.ROOT));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return String.join(",", projectKeys) + '\n' + HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Startet sofort eine Synchronisation im Hintergrund, z. B. nach geänderten Zugangsdaten oder Projekten. Ein
+     * dabei nötiger Neuaufbau wird von {@link #sync()} erkannt.
+     */
+    public void syncInBackground() {
+        AppExecutorUtil.getAppExecutorService().execute(this::sync);
+    }
+
+    /**
+     * Plant die periodische Synchronisation gemäss den Einstellungen (neu).
+     */
+    public void reschedule() {
+        SettingsSnapshot state = CoopPluginSettings.getInstance().getSnapshot();
+        int interval = state.jiraIndexEnabled ? Math.max(1, state.jiraIndexSyncMinutes) : 0;
+        synchronized (this) {
+            if (interval == scheduledIntervalMinutes && (syncFuture != null) == (interval > 0)) {
+                return;
+            }
+            if (syncFuture != null) {
+                syncFuture.cancel(false);
+                syncFuture = null;
+            }
+            scheduledIntervalMinutes = interval;
+            if (interval > 0) {
+                syncFuture = AppExecutorUtil.getAppScheduledExecutorService()
+                        .scheduleWithFixedDelay(this::sync, 0, interval, TimeUnit.MINUTES);
+            }
+        }
+    }
+
+    @NotNull
+    private static Path getIndexFile() {
+        return Paths.get(PathManager.getSystemPath(), "coop-plugins", "jira-issue-index.bin");
+    }
+
+    /**
+     * Lädt den gespeicherten Index. Läuft wie {@link #sync()} unter {@code syncLock}, damit eine bereits beendete
+     * Synchronisation nicht durch den älteren Stand auf der Festplatte überschrieben wird.
+     */
+    private void load() {
+        Path file = getIndexFile();
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        synchronized (syncLock) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+                String server = in.readUTF();
+                String scope = in.readUTF();
+                long lastSync = in.readLong();
+                if (snapshot.lastSync > 0) {
+                    return; // Eine Synchronisation war schneller und hat bereits einen neueren Stand gespeichert
+                }
+                int count = in.readInt();
+                NavigableMap<String, JiraIssue> issues = new TreeMap<>();
+                for (int i = 0; i < count; i++) {
+                    JiraIssue issue = new JiraIssue(in.readUTF(), in.readUTF());
+                    issues.put(issue.getKey().toUpperCase(Locale.ROOT), issue);
+                }
+                snapshot = new Snapshot(server, scope, lastSync, issues);
+            } catch (IOException e) {
+                LOG.warn("Failed to load Jira issue index: " + e.getMessage());
+            }
+        }
+    }
+
+    private void save() {
+        Snapshot current = snapshot;
+        Path file = getIndexFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(current.server);
+                out.writeUTF(current.scope);
+                out.writeLong(current.lastSync);
+                out.writeInt(current.issuesByKey.size());
+                for (JiraIssue issue : current.issuesByKey.values()) {
+                    out.writeUTF(issue.getKey());
+                    out.writeUTF(truncate(issue.getSummary()));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Failed to save Jira issue index: " + e.getMessage());
+        }
+    }
+
+    @NotNull
+    private static NavigableMap<String, List<String>> buildTokenIndex(@NotNull Map<String, JiraIssue> issuesByKey) {
+        Map<String, List<String>> keysByToken = new HashMap<>();
+        for (Map.Entry<String, JiraIssue> entry : issuesByKey.entrySet()) {
+            for (String token : tokenize(entry.getValue().getSummary())) {
+                keysByToken.computeIfAbsent(token, t -> new ArrayList<>(2)).add(entry.getKey());
+            }
+        }
+        return new TreeMap<>(keysByToken);
+    }
+
+    @NotNull
+    static Set<String> tokenize(@NotNull String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    @NotNull
+    private static <V> NavigableMap<String, V> prefixRange(@NotNull NavigableMap<String, V> map, @NotNull String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    @NotNull
+    private static String normalizeServer(@NotNull String server) {
+        return server.endsWith("/") ? server.substring(0, server.length() - 1) : server;
+    }
+
+    @NotNull
+    private static String truncate(@NotNull String value) {
+        // DataOutputStream.writeUTF ist auf 65535 Bytes begrenzt
+        return value.length() > 1000 ? value.substring(0, 1000) : value;
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            if (syncFuture != null) {
+                syncFuture.cancel(false);
+                syncFuture = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ch.coop.intellij.plugins.services;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Liest die Antwort der Jira-Suche ("/rest/api/2/search") mit einem Streaming-JSON-Reader.
+ * <p>
+ * Es werden nur "key", "fields.summary" und "fields.updated" der Issues ausgewertet, alle anderen Werte werden
+ * übersprungen, ohne sie zu materialisieren.
+ */
+public final class JiraResponseParser {
+    // Format der Zeitstempel von Jira, z. B. "2024-01-15T10:23:45.123+0100"
+    private static final DateTimeFormatter JIRA_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+    /**
+     * Eine Seite der Suchantwort.
+     */
+    public static final class Page {
+        private final List<JiraIssue> issues;
+        private final long latestUpdated;
+
+        Page(@NotNull List<JiraIssue> issues, long latestUpdated) {
+            this.issues = issues;
+            this.latestUpdated = latestUpdated;
+        }
+
+        /**
+         * Gibt die Issues in der Reihenfolge der Antwort zurück.
+         */
+        @NotNull
+        public List<JiraIssue> getIssues() {
+            return issues;
+        }
+
+        /**
+         * Gibt den spätesten Wert von "fields.updated" als Epoch-Millisekunden zurück, 0 wenn keiner vorhanden war.
+         */
+        public long getLatestUpdated() {
+            return latestUpdated;
+        }
+    }
+
+    private JiraResponseParser() {
+    }
+
+    /**
+     * Parst eine Jira-Suchantwort.
+     *
+     * @param reader Der Reader auf den Antwortkörper (UTF-8).
+     * @return Die gefundenen Issues in der Reihenfolge der Antwort.
+     * @throws IOException Wenn die Antwort nicht gelesen werden kann oder kein gültiges JSON ist.
+     */
+    @NotNull
+    public static List<JiraIssue> parseIssues(@NotNull Reader reader) throws IOException {
+        return parsePage(reader).getIssues();
+    }
+
+    /**
+     * Parst eine Jira-Suchantwort einschliesslich des Zeitpunkts der letzten Änderung, sofern "updated" angefordert
+     * wurde.
+     *
+     * @param reader Der Reader auf den Antwortkörper (UTF-8).
+     * @return Die Issues und der späteste Änderungszeitpunkt.
+     * @throws IOException Wenn die Antwort nicht gelesen werden kann oder kein gültiges JSON ist.
+     */
+    @NotNull
+    public static Page parsePage(@NotNull Reader reader) throws IOException {
+        List<JiraIssue> issues = new ArrayList<>();
+        long[] latestUpdated = {0};
+        try (JsonReader json = new JsonReader(reader)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if ("issues".equals(json.nextName()) && json.peek() == JsonToken.BEGIN_ARRAY) {
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        JiraIssue issue = readIssue(json, latestUpdated);
+                        if (issue != null) {
+                            issues.add(issue);
+                        }
+                    }
+                    json.endArray();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        } catch (IllegalStateException e) {
+            throw new IOException("Unexpected Jira response: " + e.getMessage(), e);
+        }
+        return new Page(issues, latestUpdated[0]);
+    }
+
+    private static JiraIssue readIssue(@NotNull JsonReader json, long[] latestUpdated) throws IOException {
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            json.skipValue();
+            return null;
+        }
+        String key = null;
+        String summary = "";
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if ("key".equals(name) && json.peek() == JsonToken.STRING) {
+                key = json.nextString();
+            } else if ("fields".equals(name) && json.peek() == JsonToken.BEGIN_OBJECT) {
+                json.beginObject();
+                while (json.hasNext()) {
+                    String field = json.nextName();
+                    if ("summary".equals(field) && json.peek() == JsonToken.STRING) {
+                        summary = json.nextString();
+                    } else if ("updated".equals(field) && json.peek() == JsonToken.STRING) {
+                        latestUpdated[0] = Math.max(latestUpdated[0], parseTimestamp(json.nextString()));
+                    } else {
+                        json.skipValue();
+                    }
+                }
+                json.endObject();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return key != null ? new JiraIssue(key, summary) : null;
+    }
+
+    private static long parseTimestamp(@NotNull String value) {
+        try {
+            return OffsetDateTime.parse(value, JIRA_TIMESTAMP).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ch.coop.intellij.plugins.services;
+
+import ch.coop.intellij.plugins.metrics.JiraCacheEvent;
+import ch.coop.intellij.plugins.metrics.PluginMetrics;
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import com.intellij.openapi.application.ApplicationManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Begrenzter Zwischenspeicher für Jira-Suchergebnisse (TTL + LRU).
+ * <p>
+ * Der Schlüssel besteht aus der Server-URL und der normalisierten JQL. Abgelaufene Einträge werden noch bis zum
+ * {@link #STALE_FACTOR}-fachen der TTL ausgeliefert ("stale-while-revalidate"), während der Aufrufer sie im
+ * Hintergrund aktualisiert. Treffer und Fehlzugriffe werden gezählt, damit TTL und Grösse abgestimmt werden können.
+ */
+public final class JiraSearchCache {
+    static final int STALE_FACTOR = 10;
+
+    /**
+     * Ergebnis eines Cache-Zugriffs.
+     */
+    public static final class Lookup {
+        private final List<JiraIssue> issues;
+        private final boolean stale;
+        private final boolean refreshNeeded;
+
+        Lookup(@NotNull List<JiraIssue> issues, boolean stale, boolean refreshNeeded) {
+            this.issues = issues;
+            this.stale = stale;
+            this.refreshNeeded = refreshNeeded;
+        }
+
+        @NotNull
+        public List<JiraIssue> getIssues() {
+            return issues;
+        }
+
+        /**
+         * Gibt an, ob der Eintrag abgelaufen ist.
+         */
+        public boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * Gibt an, ob der Aufrufer eine Aktualisierung im Hintergrund starten soll. Ist nur für den ersten Zugriff
+         * auf einen abgelaufenen Eintrag gesetzt, damit nicht mehrere Aktualisierungen parallel laufen.
+         */
+        public boolean isRefreshNeeded() {
+            return refreshNeeded;
+        }
+    }
+
+    private static final class Entry {
+        final List<JiraIssue> issues;
+        final long timestamp;
+        boolean refreshing;
+
+        Entry(List<JiraIssue> issues) {
+            this.issues = List.copyOf(issues);
+            this.timestamp = System.currentTimeMillis();
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Gibt die Instanz des Zwischenspeichers zurück.
+     *
+     * @return Der Jira-Suchcache.
+     */
+    public static JiraSearchCache getInstance() {
+        return ApplicationManager.getApplication().getService(JiraSearchCache.class);
+    }
+
+    /**
+     * Bildet den Cache-Schlüssel aus Server-URL und JQL. In der JQL wird nur der Leerraum zusammengefasst; die
+     * Gross-/Kleinschreibung bleibt erhalten, da sie z. B. bei Werten in Anführungszeichen oder bei Feldern wie
+     * Labels das Ergebnis verändern kann.
+     *
+     * @param serverUrl Die URL des Jira-Servers.
+     * @param jql       Die JQL-Abfrage.
+     * @return Der Cache-Schlüssel.
+     */
+    @NotNull
+    public static String key(@NotNull String serverUrl, @NotNull String jql) {
+        String server = serverUrl.endsWith("/") ? serverUrl.substring(0, serverUrl.length() - 1) : serverUrl;
+        return server + '\n' + jql.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Sucht einen Eintrag im Zwischenspeicher.
+     *
+     * @param key Der Cache-Schlüssel (siehe {@link #key(String, String)}).
+     * @return Der Eintrag oder null bei einem Fehlzugriff.
+     */
+    @Nullable
+    public synchronized Lookup get(@NotNull String key) {
+        Entry entry = entries.get(key);
+        long ttlMillis = getTtlMillis();
+        long age = entry != null ? System.currentTimeMillis() - entry.timestamp : Long.MAX_VALUE;
+        if (entry == null || age >= ttlMillis * STALE_FACTOR) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses.incrementAndGet();
+            recordLookup("miss", PluginMetrics.JIRA_CACHE_MISS);
+            return null;
+        }
+        if (age < ttlMillis) {
+            hits.incrementAndGet();
+            recordLookup("hit", PluginMetrics.JIRA_CACHE_HIT);
+            return new Lookup(entry.issues, false, false);
+        }
+        staleHits.incrementAndGet();
+        recordLookup("stale", PluginMetrics.JIRA_CACHE_STALE);
+        boolean refreshNeeded = !entry.refreshing;
+        entry.refreshing = true;
+        return new Lookup(entry.issues, true, refreshNeeded);
+    }
+
+    private static void recordLookup(@NotNull String result, @NotNull String metric) {
+        PluginMetrics.count(metric);
+        JiraCacheEvent event = new JiraCacheEvent();
+        if (event.shouldCommit()) {
+            event.result = result;
+            event.commit();
+        }
+    }
+
+    /**
+     * Legt ein Suchergebnis ab und verdrängt bei Bedarf die am längsten nicht verwendeten Einträge.
+     *
+     * @param key    Der Cache-Schlüssel.
+     * @param issues Die gefundenen Issues.
+     */
+    public synchronized void put(@NotNull String key, @NotNull List<JiraIssue> issues) {
+        entries.put(key, new Entry(issues));
+        int maxEntries = Math.max(1, CoopPluginSettings.getInstance().getSnapshot().jiraCacheMaxEntries);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Markiert eine fehlgeschlagene Aktualisierung, damit der nächste Zugriff sie erneut anstösst.
+     *
+     * @param key Der Cache-Schlüssel.
+     */
+    public synchronized void refreshFailed(@NotNull String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.refreshing = false;
+        }
+    }
+
+    /**
+     * Leert den Zwischenspeicher und setzt die Zähler zurück.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits.set(0);
+        staleHits.set(0);
+        misses.set(0);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    private static long getTtlMillis() {
+        return Math.max(0, CoopPluginSettings.getInstance().getSnapshot().jiraCacheTtlSeconds) * 1000L;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", stale hits=" + getStaleHits() + ", misses=" + getMisses() + ", entries=" + getSize();
+    }
+}
@@ -1,19 +1,63 @@
 package ch.coop.intellij.plugins.services;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.ui.Messages;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class JiraService {
+    private static final Logger LOG = Logger.getInstance(JiraService.class);
+    private static final int HTTP_OK = 200;
+    static final String SEARCH_FIELDS = "key,summary";
+    public static final int MAX_RESULTS = 20;
+    private static final Pattern ISSUE_KEY_PATTERN = Pattern.compile("[A-Za-z][A-Za-z0-9_]*-[0-9]+");
+    // Issue-Key innerhalb eines Branch-Namens, z. B. "feature/PROJECT-1234-kurzbeschreibung"
+    private static final Pattern ISSUE_KEY_IN_TEXT_PATTERN = Pattern.compile("(?<![A-Za-z0-9_])[A-Z][A-Z0-9_]*-[0-9]+");
+
+    /**
+     * Ergebnis einer Suche.
+     */
+    public static final class SearchResult {
+        private final List<JiraIssue> issues;
+        private final boolean complete;
+
+        SearchResult(@NotNull List<JiraIssue> issues, boolean complete) {
+            this.issues = issues;
+            this.complete = complete;
+        }
+
+        @NotNull
+        public List<JiraIssue> getIssues() {
+            return issues;
+        }
+
+        /**
+         * Gibt an, ob Jira für eine Textsuche soeben alle Treffer geliefert hat (weniger als {@link #MAX_RESULTS})
+         * und alle davon im Ergebnis enthalten sind. Nur dann enthält das Ergebnis auch alle Treffer jeder
+         * Verfeinerung der Suchanfrage. Ergebnisse aus dem lokalen Index oder dem Zwischenspeicher sind nie
+         * vollständig.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
     private final Project project;
     private final String apiUrl;
     private final String apiToken;
@@ -25,58 +69,166 @@ public class JiraService {
     }
 
     /**
-     * Sucht nach Jira-Issues basierend auf einer Suchanfrage.
+     * Sucht nach Jira-Issues basierend auf einer Suchanfrage. Wird im Hintergrund aufgerufen; Fehler werden
+     * protokolliert und führen zu einer leeren Liste.
+     * <p>
+     * Zuerst wird der lokale {@link JiraIssueIndex} durchsucht. Ist die Anfrage ein Issue-Key, den der Index kennt,
+     * genügt dieser Treffer. Sonst wird zusätzlich Jira abgefragt, da der Index nur einen Teil der Issues enthält;
+     * die Treffer des Index stehen vorne, danach folgen die weiteren Ergebnisse des Servers. Die Serverergebnisse
+     * werden im {@link JiraSearchCache} abgelegt; abgelaufene Einträge werden sofort verwendet und im Hintergrund
+     * aktualisiert.
      *
-     * @param query Die Suchanfrage.
-     * @return Eine Liste von Jira-Issue-IDs.
+     * @param query Die Suchanfrage (Issue-Key oder Text).
+     * @return Eine Liste von Jira-Issues (Key und Zusammenfassung).
      */
-    public List<String> searchJiraIssues(String query) {
-        List<String> issues = new ArrayList<>();
+    public List<JiraIssue> searchJiraIssues(String query) {
+        return search(query).getIssues();
+    }
 
+    /**
+     * Sucht wie {@link #searchJiraIssues(String)}, gibt aber zusätzlich an, ob das Ergebnis vollständig ist.
+     *
+     * @param query Die Suchanfrage (Issue-Key oder Text).
+     * @return Die gefundenen Issues und ob Jira alle Treffer geliefert hat.
+     */
+    @NotNull
+    public SearchResult search(String query) {
         if (apiUrl.isEmpty() || apiToken.isEmpty()) {
-            return issues;
+            return new SearchResult(new ArrayList<>(), false);
         }
 
-        try {
-            URL url = new URL(apiUrl + "/rest/api/2/search?jql=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + apiToken);
-
-            int responseCode = connection.getResponseCode();
-            if (responseCode == HttpURLConnection.HTTP_OK) {
-                BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                String inputLine;
-                StringBuilder response = new StringBuilder();
-
-                while ((inputLine = in.readLine()) != null) {
-                    response.append(inputLine);
-                }
-                in.close();
+        List<JiraIssue> localIssues = JiraIssueIndex.getInstance().search(apiUrl, query, MAX_RESULTS);
+        if (isIssueKey(query) && !localIssues.isEmpty() && localIssues.get(0).getKey().equalsIgnoreCase(query.trim())) {
+            return new SearchResult(localIssues, false);
+        }
 
-                issues = parseJiraIssues(response.toString());
-            } else {
-                Messages.showErrorDialog(project, "Failed to search Jira issues: " + responseCode, "Error");
+        String jql = buildSearchJql(query);
+        JiraSearchCache cache = JiraSearchCache.getInstance();
+        String cacheKey = JiraSearchCache.key(apiUrl, jql);
+        JiraSearchCache.Lookup cached = cache.get(cacheKey);
+        if (cached != null) {
+            if (cached.isRefreshNeeded()) {
+                ApplicationManager.getApplication().executeOnPooledThread(() -> {
+                    if (fetchAndCache(jql, cacheKey) == null) {
+                        cache.refreshFailed(cacheKey);
+                    }
+                });
             }
-        } catch (IOException e) {
-            Messages.showErrorDialog(project, "Failed to search Jira issues: " + e.getMessage(), "Error");
+            return new SearchResult(merge(localIssues, cached.getIssues()), false);
         }
 
-        return issues;
+        List<JiraIssue> issues = fetchAndCache(jql, cacheKey);
+        if (issues == null) {
+            return new SearchResult(localIssues, false);
+        }
+        List<JiraIssue> merged = merge(localIssues, issues);
+        return new SearchResult(merged, issues.size() < MAX_RESULTS && !isIssueKey(query) && containsAll(merged, issues));
     }
 
     /**
-     * Parst die JSON-Antwort von Jira und extrahiert die Issue-IDs.
+     * Prüft, ob alle Serverergebnisse die Zusammenführung mit den Treffern des Index überstanden haben.
+     */
+    private static boolean containsAll(@NotNull List<JiraIssue> merged, @NotNull List<JiraIssue> serverIssues) {
+        Set<String> keys = new HashSet<>();
+        for (JiraIssue issue : merged) {
+            keys.add(issue.getKey().toUpperCase(Locale.ROOT));
+        }
+        for (JiraIssue issue : serverIssues) {
+            if (!keys.contains(issue.getKey().toUpperCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hängt die Serverergebnisse an die Treffer des Index an, ohne doppelte Keys und höchstens {@link #MAX_RESULTS}.
+     */
+    @NotNull
+    private static List<JiraIssue> merge(@NotNull List<JiraIssue> localIssues, @NotNull List<JiraIssue> serverIssues) {
+        if (localIssues.isEmpty()) {
+            return serverIssues;
+        }
+        Map<String, JiraIssue> merged = new LinkedHashMap<>();
+        for (JiraIssue issue : localIssues) {
+            merged.put(issue.getKey().toUpperCase(Locale.ROOT), issue);
+        }
+        for (JiraIssue issue : serverIssues) {
+            if (merged.size() >= MAX_RESULTS) {
+                break;
+            }
+            merged.putIfAbsent(issue.getKey().toUpperCase(Locale.ROOT), issue);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Erstellt die JQL für eine Suchanfrage: Ein vollständiger Issue-Key wird direkt gesucht, alles andere als
+     * Präfix-Textsuche.
      *
-     * @param jsonResponse Die JSON-Antwort von Jira.
-     * @return Eine Liste von Jira-Issue-IDs.
+     * @param query Die Suchanfrage.
+     * @return Die JQL-Abfrage.
      */
-    private List<String> parseJiraIssues(String jsonResponse) {
-        // Hier könntest du die JSON-Antwort parsen und eine Liste von Jira-Issue-IDs zurückgeben
-        // Dies ist ein vereinfachtes Beispiel, das die tatsächliche Implementierung erfordert
-        List<String> issues = new ArrayList<>();
-        issues.add("JIRA-1234");
-        issues.add("JIRA-5678");
-        return issues;
+    static String buildSearchJql(String query) {
+        String trimmed = query.trim();
+        if (isIssueKey(trimmed)) {
+            return "key = \"" + trimmed.toUpperCase(Locale.ROOT) + "\"";
+        }
+        String escaped = trimmed.replace("\\", "\\\\").replace("\"", "\\\"");
+        return "text ~ \"" + escaped + "*\" ORDER BY updated DESC";
+    }
+
+    /**
+     * Überprüft, ob eine Eingabe ein vollständiger Issue-Key ist (z. B. "PROJECT-1234").
+     *
+     * @param query Die Eingabe.
+     * @return true, wenn die Eingabe ein Issue-Key ist.
+     */
+    public static boolean isIssueKey(String query) {
+        return ISSUE_KEY_PATTERN.matcher(query.trim()).matches();
+    }
+
+    /**
+     * Sucht den ersten Issue-Key in einem Text, z. B. in einem Branch-Namen.
+     *
+     * @param text Der Text.
+     * @return Der Issue-Key oder null, wenn der Text keinen enthält.
+     */
+    @Nullable
+    public static String findIssueKey(@NotNull String text) {
+        Matcher matcher = ISSUE_KEY_IN_TEXT_PATTERN.matcher(text);
+        return matcher.find() ? matcher.group() : null;
+    }
+
+    /**
+     * Führt die Suche auf dem Server aus und legt ein erfolgreiches Ergebnis im Zwischenspeicher ab.
+     * Es werden nur die Felder "key" und "summary" und höchstens {@link #MAX_RESULTS} Issues angefordert.
+     *
+     * @return Die gefundenen Issues oder null, wenn die Suche fehlgeschlagen ist.
+     */
+    @Nullable
+    private List<JiraIssue> fetchAndCache(String jql, String cacheKey) {
+        try {
+            URI uri = URI.create(apiUrl + "/rest/api/2/search?jql=" + URLEncoder.encode(jql, StandardCharsets.UTF_8)
+                    + "&fields=" + SEARCH_FIELDS + "&maxResults=" + MAX_RESULTS);
+            List<JiraIssue> issues = JiraHttpClient.getInstance().get(uri, apiToken, (statusCode, body) -> {
+                if (statusCode != HTTP_OK) {
+                    LOG.warn("Failed to search Jira issues: " + statusCode);
+                    return null;
+                }
+                return JiraResponseParser.parseIssues(new InputStreamReader(body, StandardCharsets.UTF_8));
+            });
+            if (issues != null) {
+                JiraSearchCache.getInstance().put(cacheKey, issues);
+            }
+            return issues;
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Failed to search Jira issues: " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            // Die Suche wurde durch eine neuere Eingabe abgelöst
+            Thread.currentThread().interrupt();
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,278 @@
+package ch.coop.intellij.plugins.services;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rangiert bereits geladene Jira-Issues lokal für die Vorschlagsliste.
+ * <p>
+ * Keys und Wörter der Zusammenfassungen liegen in einem Präfixbaum; Treffer darauf erhalten einen Bonus. Zusätzlich
+ * wird jedes Issue mit einer Teilfolgen-Bewertung (fuzzy) gegen die Eingabe geprüft, wobei aufeinanderfolgende
+ * Zeichen und Wortanfänge höher gewichtet werden. Die Bewertung arbeitet auf vorab kleingeschriebenen
+ * {@code char[]}-Feldern und wiederverwendeten Puffern, damit pro Tastenanschlag kaum Objekte entstehen.
+ * <p>
+ * Nicht threadsicher; eine Instanz kann im Hintergrund aufgebaut werden, wird danach aber nur noch auf dem EDT
+ * verwendet.
+ */
+public final class JiraSuggestionEngine {
+    private static final int KEY_WEIGHT = 2;
+    private static final int PREFIX_BONUS = 100;
+    private static final int CONSECUTIVE_BONUS = 5;
+    private static final int WORD_START_BONUS = 8;
+
+    /**
+     * Knoten des Präfixbaums. Jeder Knoten kennt alle Issues, deren Key oder ein Wort der Zusammenfassung mit dem
+     * Pfad zum Knoten beginnt.
+     */
+    private static final class TrieNode {
+        final Map<Character, TrieNode> children = new HashMap<>(4);
+        int[] items = new int[2];
+        int itemCount;
+
+        void addItem(int item) {
+            if (itemCount > 0 && items[itemCount - 1] == item) {
+                return;
+            }
+            if (itemCount == items.length) {
+                items = Arrays.copyOf(items, itemCount * 2);
+            }
+            items[itemCount++] = item;
+        }
+    }
+
+    private final Map<String, Integer> indexByKey = new HashMap<>();
+    private final TrieNode root = new TrieNode();
+    private JiraIssue[] issues = new JiraIssue[16];
+    private char[][] keys = new char[16][];
+    private char[][] summaries = new char[16][];
+    private int size;
+
+    // Wiederverwendete Puffer für die Bewertung
+    private char[] queryBuffer = new char[32];
+    private int[] prefixStamp = new int[16];
+    private int stamp;
+    private int[] topItems = new int[0];
+    private int[] topScores = new int[0];
+
+    /**
+     * Nimmt Issues in den Bestand auf. Bereits bekannte Keys werden aktualisiert.
+     *
+     * @param newIssues Die hinzuzufügenden Issues.
+     */
+    public void addAll(@NotNull Collection<JiraIssue> newIssues) {
+        for (JiraIssue issue : newIssues) {
+            Integer existing = indexByKey.get(issue.getKey());
+            if (existing != null) {
+                // Zusammenfassung aktualisieren; der Präfixbaum behält zusätzlich die alten Wörter, was nur den Bonus betrifft
+                issues[existing] = issue;
+                summaries[existing] = issue.getSummary().toLowerCase(Locale.ROOT).toCharArray();
+                insertWords(summaries[existing], existing);
+                continue;
+            }
+            ensureCapacity(size + 1);
+            int item = size++;
+            issues[item] = issue;
+            keys[item] = issue.getKey().toLowerCase(Locale.ROOT).toCharArray();
+            summaries[item] = issue.getSummary().toLowerCase(Locale.ROOT).toCharArray();
+            indexByKey.put(issue.getKey(), item);
+            insertWords(keys[item], item);
+            insertWords(summaries[item], item);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gibt alle aufgenommenen Issues zurück.
+     *
+     * @return Die Issues in der Reihenfolge ihrer Aufnahme.
+     */
+    @NotNull
+    public List<JiraIssue> getIssues() {
+        return new ArrayList<>(Arrays.asList(issues).subList(0, size));
+    }
+
+    /**
+     * Liefert die am besten passenden Issues für eine Eingabe.
+     *
+     * @param query Die Eingabe; Leerzeichen werden ignoriert.
+     * @param limit Die maximale Anzahl Vorschläge.
+     * @return Die Vorschläge, absteigend nach Bewertung.
+     */
+    @NotNull
+    public List<JiraIssue> suggest(@NotNull String query, int limit) {
+        int queryLength = prepareQuery(query);
+        if (queryLength == 0 || limit <= 0 || size == 0) {
+            return new ArrayList<>(0);
+        }
+        markPrefixMatches(queryLength);
+
+        if (topItems.length < limit) {
+            topItems = new int[limit];
+            topScores = new int[limit];
+        }
+        int count = 0;
+        for (int item = 0; item < size; item++) {
+            int score = score(item, queryLength);
+            if (score < 0) {
+                continue;
+            }
+            // Einfügen in die absteigend sortierte Bestenliste
+            if (count < limit) {
+                count++;
+            } else if (score <= topScores[count - 1]) {
+                continue;
+            }
+            int position = count - 1;
+            while (position > 0 && topScores[position - 1] < score) {
+                topScores[position] = topScores[position - 1];
+                topItems[position] = topItems[position - 1];
+                position--;
+            }
+            topScores[position] = score;
+            topItems[position] = item;
+        }
+
+        List<JiraIssue> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(issues[topItems[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Ordnet vorgegebene Kandidaten, z. B. die Treffer einer Serversuche, neu, ohne einen davon zu verwerfen. Jira
+     * findet Issues auch über Beschreibung und Kommentare; solche Treffer passen nicht zur lokalen Bewertung und
+     * folgen in der Reihenfolge des Servers nach den lokal passenden.
+     *
+     * @param query      Die Eingabe; Leerzeichen werden ignoriert.
+     * @param candidates Die Kandidaten in der Reihenfolge des Servers.
+     * @return Alle Kandidaten, absteigend nach Bewertung.
+     */
+    @NotNull
+    public List<JiraIssue> rank(@NotNull String query, @NotNull List<JiraIssue> candidates) {
+        List<JiraIssue> result = new ArrayList<>(candidates);
+        int queryLength = prepareQuery(query);
+        if (queryLength == 0 || result.size() < 2) {
+            return result;
+        }
+        markPrefixMatches(queryLength);
+        Map<JiraIssue, Integer> scores = new HashMap<>(result.size() * 2);
+        for (JiraIssue issue : result) {
+            Integer item = indexByKey.get(issue.getKey());
+            scores.put(issue, item != null ? score(item, queryLength) : -1);
+        }
+        // Stabile Sortierung: Gleich bewertete Kandidaten behalten die Reihenfolge des Servers
+        result.sort((a, b) -> Integer.compare(scores.get(b), scores.get(a)));
+        return result;
+    }
+
+    private int score(int item, int queryLength) {
+        int keyScore = subsequenceScore(keys[item], queryLength);
+        int summaryScore = subsequenceScore(summaries[item], queryLength);
+        int score = Math.max(keyScore >= 0 ? keyScore * KEY_WEIGHT : -1, summaryScore);
+        if (prefixStamp[item] == stamp) {
+            score = Math.max(score, 0) + PREFIX_BONUS;
+        }
+        return score;
+    }
+
+    /**
+     * Bewertet, ob die Eingabe als Teilfolge im Text vorkommt.
+     *
+     * @return Die Bewertung oder -1, wenn die Eingabe keine Teilfolge des Textes ist.
+     */
+    private int subsequenceScore(char[] text, int queryLength) {
+        int queryIndex = 0;
+        int score = 0;
+        int previousMatch = -2;
+        for (int i = 0; i < text.length && queryIndex < queryLength; i++) {
+            if (text[i] != queryBuffer[queryIndex]) {
+                continue;
+            }
+            int bonus = 1;
+            if (i == previousMatch + 1) {
+                bonus += CONSECUTIVE_BONUS;
+            }
+            if (i == 0 || !Character.isLetterOrDigit(text[i - 1])) {
+                bonus += WORD_START_BONUS;
+            }
+            score += bonus;
+            previousMatch = i;
+            queryIndex++;
+        }
+        return queryIndex == queryLength ? score : -1;
+    }
+
+    private int prepareQuery(@NotNull String query) {
+        if (queryBuffer.length < query.length()) {
+            queryBuffer = new char[Math.max(query.length(), queryBuffer.length * 2)];
+        }
+        int length = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                queryBuffer[length++] = Character.toLowerCase(c);
+            }
+        }
+        return length;
+    }
+
+    private void markPrefixMatches(int queryLength) {
+        stamp++;
+        TrieNode node = root;
+        for (int i = 0; i < queryLength && node != null; i++) {
+            node = node.children.get(queryBuffer[i]);
+        }
+        if (node != null) {
+            for (int i = 0; i < node.itemCount; i++) {
+                prefixStamp[node.items[i]] = stamp;
+            }
+        }
+    }
+
+    private void insertWords(char[] text, int item) {
+        int start = 0;
+        while (start < text.length) {
+            while (start < text.length && !Character.isLetterOrDigit(text[start])) {
+                start++;
+            }
+            TrieNode node = root;
+            int i = start;
+            while (i < text.length && Character.isLetterOrDigit(text[i])) {
+                node = node.children.computeIfAbsent(text[i], c -> new TrieNode());
+                node.addItem(item);
+                i++;
+            }
+            start = i;
+        }
+        // Keys zusätzlich als Ganzes (inkl. Bindestrich) aufnehmen, z. B. "abc-12"
+        if (text == keys[item]) {
+            TrieNode node = root;
+            for (char c : text) {
+                node = node.children.computeIfAbsent(c, k -> new TrieNode());
+                node.addItem(item);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= issues.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, issues.length * 2);
+        issues = Arrays.copyOf(issues, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity);
+        summaries = Arrays.copyOf(summaries, newCapacity);
+        prefixStamp = Arrays.copyOf(prefixStamp, newCapacity);
+    }
+}
@@ -0,0 +1,60 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import ch.coop.intellij.plugins.services.JiraService;
+import ch.coop.intellij.plugins.vcs.GitMetadataReader;
+import ch.coop.intellij.plugins.vcs.MercurialMetadataReader;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Liefert Projekt, Branch und Issue des geöffneten Projekts für die Platzhalter der URL-Vorlagen.
+ * <p>
+ * Der Branch wird erst bei Bedarf und höchstens einmal direkt aus ".git/HEAD" bzw. ".hg/branch" gelesen, ohne
+ * einen VCS-Prozess zu starten.
+ */
+final class ProjectUrlContext implements SearchPatternResolver.Context {
+    private final Project project;
+    private String branch;
+    private boolean branchLoaded;
+
+    ProjectUrlContext(@Nullable Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public @Nullable String getProjectName() {
+        return project != null ? project.getName() : null;
+    }
+
+    @Override
+    public @Nullable String getBranch() {
+        if (!branchLoaded) {
+            branch = readBranch();
+            branchLoaded = true;
+        }
+        return branch;
+    }
+
+    @Override
+    public @Nullable String getIssue() {
+        String currentBranch = getBranch();
+        return currentBranch != null ? JiraService.findIssueKey(currentBranch) : null;
+    }
+
+    @Nullable
+    private String readBranch() {
+        if (project == null || project.getBasePath() == null) {
+            return null;
+        }
+        Path basePath = Paths.get(project.getBasePath());
+        String gitBranch = GitMetadataReader.readCurrentBranch(basePath);
+        if (gitBranch != null) {
+            // Leer bei einem "detached HEAD"
+            return gitBranch.isEmpty() ? null : gitBranch;
+        }
+        return MercurialMetadataReader.readCurrentBranch(basePath);
+    }
+}
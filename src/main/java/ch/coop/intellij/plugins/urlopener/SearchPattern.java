@@ -1,5 +1,7 @@
 package ch.coop.intellij.plugins.urlopener;
 
+import java.util.Objects;
+
 public class SearchPattern {
     private String name;
     private String shortcut;
@@ -35,4 +37,59 @@ public class SearchPattern {
     public void setUrl(String url) {
         this.url = url;
     }
-}
\ No newline at end of file
+
+    /**
+     * Erstellt eine unveränderliche Kopie, z. B. für einen {@code SettingsSnapshot}. Die Setter der Kopie werfen
+     * eine {@link UnsupportedOperationException}; zum Bearbeiten mit {@link #SearchPattern(String, String, String)}
+     * eine neue Instanz erstellen.
+     *
+     * @return Die unveränderliche Kopie.
+     */
+    public SearchPattern immutableCopy() {
+        return new Immutable(name, shortcut, url);
+    }
+
+    private static final class Immutable extends SearchPattern {
+        Immutable(String name, String shortcut, String url) {
+            super(name, shortcut, url);
+        }
+
+        @Override
+        public SearchPattern immutableCopy() {
+            return this;
+        }
+
+        @Override
+        public void setName(String name) {
+            throw new UnsupportedOperationException("Search pattern is read-only");
+        }
+
+        @Override
+        public void setShortcut(String shortcut) {
+            throw new UnsupportedOperationException("Search pattern is read-only");
+        }
+
+        @Override
+        public void setUrl(String url) {
+            throw new UnsupportedOperationException("Search pattern is read-only");
+        }
+    }
+
+    // Wertsemantik, damit die Einstellungsseite Tabelle und gespeicherte Suchmuster vergleichen kann
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchPattern)) {
+            return false;
+        }
+        SearchPattern other = (SearchPattern) o;
+        return Objects.equals(name, other.name) && Objects.equals(shortcut, other.shortcut) && Objects.equals(url, other.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, shortcut, url);
+    }
+}
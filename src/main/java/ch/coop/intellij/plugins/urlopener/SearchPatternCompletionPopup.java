@@ -0,0 +1,142 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import com.intellij.openapi.ui.popup.JBPopup;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.ui.SimpleListCellRenderer;
+import com.intellij.ui.SearchTextField;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBScrollPane;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Vorschlagsliste unter der Suchleiste des URL-Openers.
+ * <p>
+ * Der Fokus bleibt im Textfeld; die Pfeiltasten verschieben die Auswahl, Enter oder ein Klick übernimmt den
+ * Shortcut des ausgewählten Suchmusters. Anfangs ist nichts ausgewählt, damit Enter ohne Navigation weiterhin die
+ * Eingabe selbst ausführt; Tab übernimmt auch ohne Auswahl den besten Treffer.
+ */
+class SearchPatternCompletionPopup {
+    private static final int MAX_VISIBLE_ROWS = 8;
+
+    private final SearchTextField searchTextField;
+    private final Consumer<SearchPattern> onAccept;
+    private final DefaultListModel<SearchPattern> model = new DefaultListModel<>();
+    private final JBList<SearchPattern> list = new JBList<>(model);
+    private JBPopup popup;
+
+    SearchPatternCompletionPopup(@NotNull SearchTextField searchTextField, @NotNull Consumer<SearchPattern> onAccept) {
+        this.searchTextField = searchTextField;
+        this.onAccept = onAccept;
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setCellRenderer(new SimpleListCellRenderer<>() {
+            @Override
+            public void customize(@NotNull JList<? extends SearchPattern> list, SearchPattern value, int index, boolean selected, boolean hasFocus) {
+                setText(value != null ? value.getShortcut() + "  " + value.getName() : "");
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                accept();
+            }
+        });
+    }
+
+    /**
+     * Zeigt die Vorschläge an oder schliesst die Liste, wenn es keine gibt.
+     *
+     * @param suggestions Die Vorschläge in Rangfolge.
+     */
+    void show(@NotNull List<SearchPattern> suggestions) {
+        if (suggestions.isEmpty()) {
+            hide();
+            return;
+        }
+        model.clear();
+        suggestions.forEach(model::addElement);
+        list.setVisibleRowCount(Math.min(suggestions.size(), MAX_VISIBLE_ROWS));
+        list.clearSelection();
+
+        if (popup == null || !popup.isVisible()) {
+            popup = JBPopupFactory.getInstance()
+                    .createComponentPopupBuilder(new JBScrollPane(list), null)
+                    .setRequestFocus(false)
+                    .setFocusable(false)
+                    .setCancelOnClickOutside(true)
+                    .setResizable(false)
+                    .createPopup();
+            popup.showUnderneathOf(searchTextField);
+        }
+    }
+
+    void hide() {
+        if (popup != null) {
+            popup.cancel();
+            popup = null;
+        }
+    }
+
+    boolean isVisible() {
+        return popup != null && popup.isVisible();
+    }
+
+    /**
+     * Verschiebt die Auswahl um {@code delta} Zeilen. Ohne Auswahl beginnt sie abwärts bei der ersten und aufwärts
+     * bei der letzten Zeile.
+     */
+    void moveSelection(int delta) {
+        if (model.isEmpty()) {
+            return;
+        }
+        int current = list.getSelectedIndex();
+        int index = current < 0
+                ? (delta > 0 ? 0 : model.size() - 1)
+                : Math.floorMod(current + delta, model.size());
+        list.setSelectedIndex(index);
+        list.ensureIndexIsVisible(index);
+    }
+
+    /**
+     * Übernimmt den ausgewählten Vorschlag. Ohne Auswahl bleibt die Liste offen.
+     *
+     * @return true, wenn ein Vorschlag übernommen wurde.
+     */
+    boolean accept() {
+        return accept(getSelected());
+    }
+
+    /**
+     * Übernimmt den ausgewählten Vorschlag oder, wenn keiner ausgewählt ist, den besten Treffer.
+     *
+     * @return true, wenn ein Vorschlag übernommen wurde.
+     */
+    boolean acceptSelectedOrFirst() {
+        SearchPattern selected = getSelected();
+        if (selected == null && isVisible() && !model.isEmpty()) {
+            selected = model.getElementAt(0);
+        }
+        return accept(selected);
+    }
+
+    private boolean accept(@Nullable SearchPattern pattern) {
+        if (pattern == null) {
+            return false;
+        }
+        hide();
+        onAccept.accept(pattern);
+        return true;
+    }
+
+    @Nullable
+    private SearchPattern getSelected() {
+        return isVisible() ? list.getSelectedValue() : null;
+    }
+}
@@ -0,0 +1,230 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Unveränderlicher Index über die Suchmuster, wird nur bei geänderten Einstellungen neu aufgebaut.
+ * <p>
+ * Ein Shortcut wird über eine Hash-Tabelle in konstanter Zeit aufgelöst, Präfixe über ein sortiertes Array binär
+ * gesucht. Nur wenn die Präfixsuche nicht genug Vorschläge liefert, werden Namen und unscharfe Treffer linear
+ * geprüft. So bleibt die Auflösung auch bei mehreren hundert Suchmustern gleich schnell. Die URLs werden beim
+ * Aufbau einmal zu {@link UrlTemplate}s kompiliert.
+ */
+public final class SearchPatternIndex {
+    // Trefferklassen, höhere zuerst; innerhalb einer Klasse entscheidet die Häufigkeit der Nutzung
+    private static final int MATCH_EXACT_SHORTCUT = 4;
+    private static final int MATCH_SHORTCUT_PREFIX = 3;
+    private static final int MATCH_NAME_PREFIX = 2;
+    private static final int MATCH_FUZZY = 1;
+    private static final int NO_MATCH = 0;
+
+    private final List<SearchPattern> patterns;
+    private final SearchPattern defaultPattern;
+    private final Map<String, SearchPattern> byShortcut;
+    // Shortcuts in Kleinbuchstaben, sortiert, mit dem Index des Suchmusters in gleicher Reihenfolge
+    private final String[] sortedShortcuts;
+    private final int[] sortedPatternIndexes;
+    private final String[] lowerCaseNames;
+    // Kompilierte URL-Vorlagen; ungültige Vorlagen fehlen
+    private final Map<SearchPattern, UrlTemplate> templates;
+
+    /**
+     * Ein Vorschlag mit seiner Trefferklasse.
+     */
+    private static final class Candidate {
+        final SearchPattern pattern;
+        final int match;
+        final double frecency;
+
+        Candidate(@NotNull SearchPattern pattern, int match, double frecency) {
+            this.pattern = pattern;
+            this.match = match;
+            this.frecency = frecency;
+        }
+    }
+
+    /**
+     * Baut den Index auf.
+     *
+     * @param patterns     Die Suchmuster in der Reihenfolge der Einstellungen.
+     * @param defaultIndex Der Index des Standard-Suchmusters oder -1.
+     */
+    public SearchPatternIndex(@NotNull List<SearchPattern> patterns, int defaultIndex) {
+        this.patterns = List.copyOf(patterns);
+        this.defaultPattern = defaultIndex >= 0 && defaultIndex < patterns.size() ? patterns.get(defaultIndex) : null;
+
+        byShortcut = new HashMap<>(patterns.size() * 2);
+        templates = new IdentityHashMap<>(patterns.size() * 2);
+        Integer[] order = new Integer[patterns.size()];
+        lowerCaseNames = new String[patterns.size()];
+        for (int i = 0; i < patterns.size(); i++) {
+            SearchPattern pattern = patterns.get(i);
+            // Bei doppelten Shortcuts gilt wie bisher das erste Suchmuster
+            byShortcut.putIfAbsent(pattern.getShortcut(), pattern);
+            if (pattern.getUrl() != null) {
+                try {
+                    templates.put(pattern, UrlTemplate.compile(pattern.getUrl()));
+                } catch (IllegalArgumentException ignored) {
+                    // Wird bei der Auflösung über getTemplateError gemeldet
+                }
+            }
+            lowerCaseNames[i] = pattern.getName().toLowerCase(Locale.ROOT);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> patterns.get(i).getShortcut().toLowerCase(Locale.ROOT)));
+        sortedShortcuts = new String[order.length];
+        sortedPatternIndexes = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedShortcuts[i] = patterns.get(order[i]).getShortcut().toLowerCase(Locale.ROOT);
+            sortedPatternIndexes[i] = order[i];
+        }
+    }
+
+    /**
+     * Löst einen Shortcut exakt (Gross-/Kleinschreibung beachtend) auf.
+     *
+     * @param shortcut Der Shortcut.
+     * @return Das Suchmuster oder null, wenn es keines mit diesem Shortcut gibt.
+     */
+    @Nullable
+    public SearchPattern findByShortcut(@NotNull String shortcut) {
+        return byShortcut.get(shortcut);
+    }
+
+    @Nullable
+    public SearchPattern getDefaultPattern() {
+        return defaultPattern;
+    }
+
+    /**
+     * Gibt die kompilierte URL-Vorlage eines Suchmusters aus diesem Index zurück.
+     *
+     * @param pattern Das Suchmuster.
+     * @return Die Vorlage oder null, wenn die URL ungültig ist.
+     */
+    @Nullable
+    public UrlTemplate getTemplate(@NotNull SearchPattern pattern) {
+        return templates.get(pattern);
+    }
+
+    /**
+     * Gibt den Grund zurück, weshalb die URL eines Suchmusters ungültig ist.
+     */
+    @NotNull
+    public String getTemplateError(@NotNull SearchPattern pattern) {
+        if (pattern.getUrl() == null) {
+            return "The URL is empty.";
+        }
+        try {
+            UrlTemplate.compile(pattern.getUrl());
+            return "The URL is valid.";
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @NotNull
+    public List<SearchPattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Schlägt Suchmuster für eine begonnene Eingabe vor.
+     * <p>
+     * Zuerst ein exakt getippter Shortcut, dann Suchmuster, deren Shortcut mit der Eingabe beginnt, dann solche, deren Name oder ein Wort des Namens
+     * damit beginnt, zuletzt unscharfe Treffer (die Zeichen der Eingabe kommen der Reihe nach im Shortcut oder Namen
+     * vor). Innerhalb jeder Gruppe werden häufig und kürzlich verwendete Suchmuster zuerst genannt.
+     *
+     * @param query    Die Eingabe, Gross-/Kleinschreibung wird ignoriert.
+     * @param limit    Die maximale Anzahl Vorschläge.
+     * @param frecency Liefert die Nutzungsbewertung eines Suchmusters.
+     * @return Die Vorschläge in Rangfolge.
+     */
+    @NotNull
+    public List<SearchPattern> complete(@NotNull String query, int limit, @NotNull ToDoubleFunction<SearchPattern> frecency) {
+        String lowerCaseQuery = query.trim().toLowerCase(Locale.ROOT);
+        List<Candidate> candidates = new ArrayList<>();
+        boolean[] taken = new boolean[patterns.size()];
+
+        // Präfixe der Shortcuts: zusammenhängender Bereich im sortierten Array
+        int index = Arrays.binarySearch(sortedShortcuts, lowerCaseQuery);
+        int first = index >= 0 ? index : -index - 1;
+        // Bei gleichen Shortcuts liefert die binäre Suche irgendeinen davon
+        while (first > 0 && sortedShortcuts[first - 1].equals(lowerCaseQuery)) {
+            first--;
+        }
+        for (int i = first; i < sortedShortcuts.length && sortedShortcuts[i].startsWith(lowerCaseQuery); i++) {
+            int patternIndex = sortedPatternIndexes[i];
+            taken[patternIndex] = true;
+            if (isShadowed(patterns.get(patternIndex))) {
+                continue;
+            }
+            int match = sortedShortcuts[i].length() == lowerCaseQuery.length() ? MATCH_EXACT_SHORTCUT : MATCH_SHORTCUT_PREFIX;
+            candidates.add(new Candidate(patterns.get(patternIndex), match, frecency.applyAsDouble(patterns.get(patternIndex))));
+        }
+
+        if (candidates.size() < limit && !lowerCaseQuery.isEmpty()) {
+            for (int i = 0; i < patterns.size(); i++) {
+                if (taken[i] || isShadowed(patterns.get(i))) {
+                    continue;
+                }
+                int match = matchName(lowerCaseNames[i], lowerCaseQuery);
+                if (match == NO_MATCH && isSubsequence(lowerCaseQuery, patterns.get(i).getShortcut().toLowerCase(Locale.ROOT))) {
+                    match = MATCH_FUZZY;
+                }
+                if (match != NO_MATCH) {
+                    candidates.add(new Candidate(patterns.get(i), match, frecency.applyAsDouble(patterns.get(i))));
+                }
+            }
+        }
+
+        candidates.sort(Comparator.<Candidate>comparingInt(c -> -c.match)
+                .thenComparingDouble(c -> -c.frecency)
+                .thenComparing(c -> c.pattern.getShortcut()));
+        List<SearchPattern> result = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && i < limit; i++) {
+            result.add(candidates.get(i).pattern);
+        }
+        return result;
+    }
+
+    // Bei doppelten Shortcuts ist nur das erste Suchmuster erreichbar
+    private boolean isShadowed(@NotNull SearchPattern pattern) {
+        return byShortcut.get(pattern.getShortcut()) != pattern;
+    }
+
+    private static int matchName(@NotNull String name, @NotNull String query) {
+        if (name.startsWith(query)) {
+            return MATCH_NAME_PREFIX;
+        }
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            if (name.startsWith(query, i + 1)) {
+                return MATCH_NAME_PREFIX;
+            }
+        }
+        return isSubsequence(query, name) ? MATCH_FUZZY : NO_MATCH;
+    }
+
+    private static boolean isSubsequence(@NotNull String query, @NotNull String text) {
+        int position = 0;
+        for (int i = 0; i < query.length(); i++) {
+            position = text.indexOf(query.charAt(i), position);
+            if (position < 0) {
+                return false;
+            }
+            position++;
+        }
+        return true;
+    }
+}
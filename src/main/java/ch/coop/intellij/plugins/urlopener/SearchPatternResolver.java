@@ -0,0 +1,167 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Löst eine Eingabe der URL-Opener-Suchleiste ("shortcut searchTerm" oder nur "searchTerm") in eine URL auf.
+ * <p>
+ * Reine Funktion ohne Abhängigkeit zur IDE, damit sie auch in Benchmarks aufgerufen werden kann.
+ */
+public final class SearchPatternResolver {
+
+    /**
+     * Liefert die Werte für {@code {project}}, {@code {branch}} und {@code {issue}}. Die Methoden werden nur
+     * aufgerufen, wenn die Vorlage den Platzhalter verwendet.
+     */
+    public interface Context {
+        Context NONE = new Context() {
+            @Override
+            public @Nullable String getProjectName() {
+                return null;
+            }
+
+            @Override
+            public @Nullable String getBranch() {
+                return null;
+            }
+
+            @Override
+            public @Nullable String getIssue() {
+                return null;
+            }
+        };
+
+        @Nullable
+        String getProjectName();
+
+        @Nullable
+        String getBranch();
+
+        @Nullable
+        String getIssue();
+    }
+
+    /**
+     * Ergebnis der Auflösung: entweder eine URL oder eine Fehlermeldung.
+     */
+    public static final class Resolution {
+        private final String url;
+        private final SearchPattern pattern;
+        private final String error;
+
+        private Resolution(@Nullable String url, @Nullable SearchPattern pattern, @Nullable String error) {
+            this.url = url;
+            this.pattern = pattern;
+            this.error = error;
+        }
+
+        @Nullable
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return Das verwendete Suchmuster, null bei einem Fehler.
+         */
+        @Nullable
+        public SearchPattern getPattern() {
+            return pattern;
+        }
+
+        @Nullable
+        public String getError() {
+            return error;
+        }
+    }
+
+    private SearchPatternResolver() {
+    }
+
+    /**
+     * Löst eine Eingabe auf.
+     *
+     * @param input Die Eingabe aus der Suchleiste.
+     * @param index Der Index der konfigurierten Suchmuster.
+     * @return Die URL oder eine Fehlermeldung.
+     */
+    @NotNull
+    public static Resolution resolve(@NotNull String input, @NotNull SearchPatternIndex index) {
+        return resolve(input, index, Context.NONE);
+    }
+
+    /**
+     * Löst eine Eingabe auf.
+     *
+     * @param input   Die Eingabe aus der Suchleiste.
+     * @param index   Der Index der konfigurierten Suchmuster.
+     * @param context Liefert Projekt, Branch und Issue für die entsprechenden Platzhalter.
+     * @return Die URL oder eine Fehlermeldung.
+     */
+    @NotNull
+    public static Resolution resolve(@NotNull String input, @NotNull SearchPatternIndex index, @NotNull Context context) {
+        String[] parts = input.split(" ", 2);
+        String shortcut = "";
+        String searchTerm = "";
+
+        if (parts.length == 1) {
+            // Fall: Nur ein Suchbegriff (leerer Shortcut)
+            searchTerm = parts[0];
+        } else if (parts.length == 2) {
+            // Fall: Shortcut und Suchbegriff
+            shortcut = parts[0];
+            searchTerm = parts[1];
+        } else {
+            return error("Invalid input format. Use 'shortcut searchTerm' or just 'searchTerm'.");
+        }
+
+        // Fall: Leerer Shortcut (Standard-URL verwenden)
+        if (shortcut.isEmpty()) {
+            SearchPattern defaultPattern = index.getDefaultPattern();
+            if (defaultPattern == null) {
+                return error("No default URL is configured.");
+            }
+            return render(defaultPattern, index, searchTerm, context, "The default URL");
+        }
+
+        // Fall: Shortcut wurde angegeben
+        SearchPattern pattern = index.findByShortcut(shortcut);
+        if (pattern == null) {
+            return error("No URL found for shortcut: " + shortcut);
+        }
+        return render(pattern, index, searchTerm, context, "The URL for shortcut '" + shortcut + "'");
+    }
+
+    @NotNull
+    private static Resolution render(@NotNull SearchPattern pattern, @NotNull SearchPatternIndex index,
+                                     @NotNull String searchTerm, @NotNull Context context, @NotNull String subject) {
+        UrlTemplate template = index.getTemplate(pattern);
+        if (template == null) {
+            return error(subject + " is invalid: " + index.getTemplateError(pattern));
+        }
+        // Projekt, Branch und Issue nur ermitteln, wenn die Vorlage sie braucht
+        String project = template.uses(UrlTemplate.Placeholder.PROJECT) ? context.getProjectName() : null;
+        String branch = template.uses(UrlTemplate.Placeholder.BRANCH) ? context.getBranch() : null;
+        String issue = template.uses(UrlTemplate.Placeholder.ISSUE) ? context.getIssue() : null;
+        if (template.uses(UrlTemplate.Placeholder.PROJECT) && project == null) {
+            return error(subject + " needs a project, but none is open.");
+        }
+        if (template.uses(UrlTemplate.Placeholder.BRANCH) && branch == null) {
+            return error(subject + " needs the current branch, but it could not be determined.");
+        }
+        if (template.uses(UrlTemplate.Placeholder.ISSUE) && issue == null) {
+            return error(subject + " needs a Jira issue, but the current branch does not contain one.");
+        }
+        return url(pattern, template.render(searchTerm, project, branch, issue));
+    }
+
+    @NotNull
+    private static Resolution url(@NotNull SearchPattern pattern, @NotNull String url) {
+        return new Resolution(url, pattern, null);
+    }
+
+    @NotNull
+    private static Resolution error(@NotNull String error) {
+        return new Resolution(null, null, error);
+    }
+}
@@ -0,0 +1,107 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.RoamingType;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merkt sich, wie häufig und wie kürzlich die Suchmuster verwendet wurden ("Frecency"), um die Vorschläge der
+ * Suchleiste zu ordnen.
+ * <p>
+ * Jede Verwendung zählt 1, der Wert halbiert sich alle sieben Tage. So rutschen früher oft verwendete, inzwischen
+ * aber unbenutzte Suchmuster langsam nach hinten.
+ */
+@State(
+        name = "CoopSearchPatternUsage",
+        storages = {@Storage(value = "coop-search-pattern-usage.xml", roamingType = RoamingType.DISABLED)}
+)
+public final class SearchPatternUsage implements PersistentStateComponent<SearchPatternUsage.State> {
+    private static final long HALF_LIFE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final int MAX_ENTRIES = 1_000;
+
+    /**
+     * Nutzung eines Shortcuts: Bewertung zum Zeitpunkt der letzten Verwendung.
+     */
+    public static class Entry {
+        public double score;
+        public long lastUsed;
+    }
+
+    /**
+     * Persistenter Zustand: Nutzung pro Shortcut.
+     */
+    public static class State {
+        public Map<String, Entry> shortcuts = new HashMap<>();
+    }
+
+    private State state = new State();
+
+    /**
+     * Gibt die Instanz zurück.
+     *
+     * @return Die Nutzungsstatistik der Suchmuster.
+     */
+    public static SearchPatternUsage getInstance() {
+        return ApplicationManager.getApplication().getService(SearchPatternUsage.class);
+    }
+
+    @Override
+    public synchronized @NotNull State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull State state) {
+        this.state = state;
+    }
+
+    /**
+     * Vermerkt eine Verwendung.
+     *
+     * @param shortcut Der Shortcut des verwendeten Suchmusters.
+     */
+    public synchronized void recordUse(@NotNull String shortcut) {
+        long now = System.currentTimeMillis();
+        Entry entry = state.shortcuts.computeIfAbsent(shortcut, key -> new Entry());
+        entry.score = decayed(entry, now) + 1;
+        entry.lastUsed = now;
+        if (state.shortcuts.size() > MAX_ENTRIES) {
+            prune(now);
+        }
+    }
+
+    /**
+     * Gibt die aktuelle Bewertung eines Suchmusters zurück.
+     *
+     * @param pattern Das Suchmuster.
+     * @return Die Bewertung, 0 für nie verwendete Suchmuster.
+     */
+    public synchronized double getScore(@NotNull SearchPattern pattern) {
+        Entry entry = state.shortcuts.get(pattern.getShortcut());
+        return entry != null ? decayed(entry, System.currentTimeMillis()) : 0;
+    }
+
+    private void prune(long now) {
+        // Die am wenigsten genutzten Einträge verwerfen, z. B. von längst gelöschten Suchmustern
+        List<Map.Entry<String, Entry>> entries = new ArrayList<>(state.shortcuts.entrySet());
+        entries.sort(Comparator.comparingDouble(e -> decayed(e.getValue(), now)));
+        for (int i = 0; i < entries.size() - MAX_ENTRIES; i++) {
+            state.shortcuts.remove(entries.get(i).getKey());
+        }
+    }
+
+    private static double decayed(@NotNull Entry entry, long now) {
+        long age = Math.max(0, now - entry.lastUsed);
+        return entry.score * Math.pow(0.5, (double) age / HALF_LIFE_MILLIS);
+    }
+}
@@ -3,19 +3,24 @@ package ch.coop.intellij.plugins.urlopener;
 import ch.coop.intellij.plugins.CoopPluginSettings;
 import ch.coop.intellij.plugins.helper.OpenSettingsAction;
 import com.intellij.ide.BrowserUtil;
+import com.intellij.ide.DataManager;
 import com.intellij.openapi.actionSystem.*;
 import com.intellij.openapi.actionSystem.ex.CustomComponentAction;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.SearchTextField;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.util.List;
 
 public class URLOpenerAction extends AnAction implements CustomComponentAction {
+    private static final int MAX_SUGGESTIONS = 20;
 
     @Override
     public void actionPerformed(@NotNull AnActionEvent e) {
@@ -29,6 +34,19 @@ public class URLOpenerAction extends AnAction implements CustomComponentAction {
         SearchTextField searchTextField = new SearchTextField();
         searchTextField.setPreferredSize(new java.awt.Dimension(200, 30)); // Größe anpassen
 
+        // Übernimmt den Shortcut des gewählten Vorschlags, danach folgt der Suchbegriff
+        SearchPatternCompletionPopup completionPopup = new SearchPatternCompletionPopup(searchTextField,
+                pattern -> searchTextField.setText(pattern.getShortcut() + " "));
+
+        searchTextField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                updateSuggestions(searchTextField.getText(), completionPopup);
+            }
+        });
+
+        // Tab soll beim Listener ankommen, um den besten Vorschlag zu übernehmen; den Fokuswechsel übernimmt dieser selbst
+        searchTextField.getTextEditor().setFocusTraversalKeysEnabled(false);
         searchTextField.getTextEditor().addKeyListener(new KeyListener() {
             @Override
             public void keyTyped(KeyEvent e) {
@@ -36,10 +54,54 @@ public class URLOpenerAction extends AnAction implements CustomComponentAction {
 
             @Override
             public void keyPressed(KeyEvent e) {
+                if (completionPopup.isVisible()) {
+                    switch (e.getKeyCode()) {
+                        case KeyEvent.VK_UP -> {
+                            completionPopup.moveSelection(-1);
+                            e.consume();
+                            return;
+                        }
+                        case KeyEvent.VK_DOWN -> {
+                            completionPopup.moveSelection(1);
+                            e.consume();
+                            return;
+                        }
+                        case KeyEvent.VK_ESCAPE -> {
+                            completionPopup.hide();
+                            e.consume();
+                            return;
+                        }
+                        case KeyEvent.VK_TAB -> {
+                            if (!e.isShiftDown() && completionPopup.acceptSelectedOrFirst()) {
+                                e.consume();
+                                return;
+                            }
+                        }
+                        case KeyEvent.VK_ENTER -> {
+                            // Nur eine mit den Pfeiltasten gewählte Zeile übernehmen, sonst die Eingabe ausführen
+                            if (completionPopup.accept()) {
+                                e.consume();
+                                return;
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                }
+                if (e.getKeyCode() == KeyEvent.VK_TAB) {
+                    if (e.isShiftDown()) {
+                        e.getComponent().transferFocusBackward();
+                    } else {
+                        e.getComponent().transferFocus();
+                    }
+                    e.consume();
+                    return;
+                }
                 if (e.getKeyCode() == KeyEvent.VK_ENTER) { // Reagiere auf die Enter-Taste
                     String input = searchTextField.getText();
                     if (input != null && !input.isEmpty()) {
-                        handleInput(input);
+                        completionPopup.hide();
+                        handleInput(input, mainPanel);
                         searchTextField.setText("");
                     }
                 }
@@ -67,62 +129,36 @@ public class URLOpenerAction extends AnAction implements CustomComponentAction {
         return mainPanel;
     }
 
-    private void handleInput(String input) {
-        String[] parts = input.split(" ", 2);
-        String shortcut = "";
-        String searchTerm = "";
-
-        if (parts.length == 1) {
-            // Fall: Nur ein Suchbegriff (leerer Shortcut)
-            searchTerm = parts[0];
-        } else if (parts.length == 2) {
-            // Fall: Shortcut und Suchbegriff
-            shortcut = parts[0];
-            searchTerm = parts[1];
-        } else {
-            Messages.showErrorDialog("Invalid input format. Use 'shortcut searchTerm' or just 'searchTerm'.", "Error");
+    /**
+     * Zeigt passende Suchmuster an, solange nur der Shortcut getippt wird (noch kein Leerzeichen).
+     */
+    private void updateSuggestions(String text, SearchPatternCompletionPopup completionPopup) {
+        if (text == null || text.isEmpty() || text.indexOf(' ') >= 0) {
+            completionPopup.hide();
             return;
         }
-
-        List<SearchPattern> searchPatterns = CoopPluginSettings.getInstance().getSearchPatterns();
-
-        // Fall: Leerer Shortcut (Standard-URL verwenden)
-        if (shortcut.isEmpty()) {
-            int defaultIndex = CoopPluginSettings.getInstance().getDefaultSearchPatternIndex();
-            if (defaultIndex >= 0 && defaultIndex < searchPatterns.size()) {
-                SearchPattern defaultPattern = searchPatterns.get(defaultIndex);
-                if (isValidUrl(defaultPattern.getUrl())) {
-                    String url = defaultPattern.getUrl().replace("%s", searchTerm);
-                    BrowserUtil.browse(url);
-                    return;
-                } else {
-                    Messages.showErrorDialog("The default URL is invalid. It must contain '%s'.", "Error");
-                    return;
-                }
-            } else {
-                Messages.showErrorDialog("No default URL is configured.", "Error");
-                return;
-            }
+        SearchPatternUsage usage = SearchPatternUsage.getInstance();
+        List<SearchPattern> suggestions = CoopPluginSettings.getInstance().getSearchPatternIndex()
+                .complete(text, MAX_SUGGESTIONS, usage::getScore);
+        // Ein exakt getippter, einziger Treffer braucht keine Liste mehr
+        if (suggestions.size() == 1 && suggestions.get(0).getShortcut().equals(text)) {
+            completionPopup.hide();
+            return;
         }
+        completionPopup.show(suggestions);
+    }
 
-        // Fall: Shortcut wurde angegeben
-        for (SearchPattern pattern : searchPatterns) {
-            if (pattern.getShortcut().equals(shortcut)) {
-                if (!isValidUrl(pattern.getUrl())) {
-                    Messages.showErrorDialog("The URL for shortcut '" + shortcut + "' is invalid. It must contain '%s'.", "Error");
-                    return;
-                }
-                String url = pattern.getUrl().replace("%s", searchTerm);
-                BrowserUtil.browse(url);
-                return;
+    private void handleInput(String input, JComponent component) {
+        Project project = CommonDataKeys.PROJECT.getData(DataManager.getInstance().getDataContext(component));
+        SearchPatternResolver.Resolution resolution = SearchPatternResolver.resolve(
+                input, CoopPluginSettings.getInstance().getSearchPatternIndex(), new ProjectUrlContext(project));
+        if (resolution.getUrl() != null) {
+            if (resolution.getPattern() != null) {
+                SearchPatternUsage.getInstance().recordUse(resolution.getPattern().getShortcut());
             }
+            BrowserUtil.browse(resolution.getUrl());
+        } else {
+            Messages.showErrorDialog(resolution.getError(), "Error");
         }
-
-        // Shortcut nicht gefunden
-        Messages.showErrorDialog("No URL found for shortcut: " + shortcut, "Error");
-    }
-
-    private boolean isValidUrl(String url) {
-        return url != null && url.contains("%s");
     }
 }
\ No newline at end of file
@@ -0,0 +1,264 @@
+package ch.coop.intellij.plugins.urlopener;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Kompilierte URL-Vorlage eines Suchmusters, z. B. {@code https://jira.example.com/browse/{issue}} oder
+ * {@code https://github.example.com/{project}/tree/{branch}}.
+ * <p>
+ * Platzhalter: {@code {term}} (Suchbegriff), {@code {project}} (Name des Projekts), {@code {branch}} (aktueller
+ * Branch) und {@code {issue}} (Jira-Issue aus dem Branch-Namen). Das bisherige {@code %s} steht weiterhin für den
+ * Suchbegriff. Jeder Platzhalter wird passend kodiert; mit '|' lässt sich die Kodierung ändern:
+ * <ul>
+ *     <li>{@code component}: alles ausser Buchstaben, Ziffern und {@code -._~} wird prozentkodiert (Standard für
+ *     {@code term}, {@code project} und {@code issue}).</li>
+ *     <li>{@code path}: wie {@code component}, '/' bleibt aber erhalten (Standard für {@code branch}).</li>
+ *     <li>{@code raw}: unverändert einsetzen.</li>
+ * </ul>
+ * Die Vorlage wird einmal in Literale und Platzhalter zerlegt; {@link #render} schreibt alles in einen einzigen,
+ * passend vorbelegten StringBuilder.
+ */
+public final class UrlTemplate {
+    private static final String LEGACY_TERM = "%s";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Die Werte, die in eine URL eingesetzt werden können.
+     */
+    public enum Placeholder {
+        TERM("term", Encoding.COMPONENT),
+        PROJECT("project", Encoding.COMPONENT),
+        BRANCH("branch", Encoding.PATH),
+        ISSUE("issue", Encoding.COMPONENT);
+
+        private final String name;
+        private final Encoding defaultEncoding;
+
+        Placeholder(@NotNull String name, @NotNull Encoding defaultEncoding) {
+            this.name = name;
+            this.defaultEncoding = defaultEncoding;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+    }
+
+    private enum Encoding {
+        COMPONENT("component"),
+        PATH("path"),
+        RAW("raw");
+
+        private final String name;
+
+        Encoding(@NotNull String name) {
+            this.name = name;
+        }
+    }
+
+    private final String source;
+    // literals[i] steht vor placeholders[i], das letzte Literal nach dem letzten Platzhalter
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final Encoding[] encodings;
+    private final int literalLength;
+    private final Set<Placeholder> used;
+
+    private UrlTemplate(@NotNull String source, @NotNull String[] literals, @NotNull Placeholder[] placeholders,
+                        @NotNull Encoding[] encodings) {
+        this.source = source;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.encodings = encodings;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        this.used = placeholders.length == 0 ? EnumSet.noneOf(Placeholder.class) : EnumSet.of(placeholders[0], placeholders);
+    }
+
+    /**
+     * Übersetzt eine URL-Vorlage.
+     *
+     * @param template Die URL mit Platzhaltern.
+     * @return Die kompilierte Vorlage.
+     * @throws IllegalArgumentException Wenn die Vorlage keinen oder einen unbekannten Platzhalter enthält oder die
+     *                                  Klammern nicht stimmen.
+     */
+    @NotNull
+    public static UrlTemplate compile(@NotNull String template) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        List<Encoding> encodings = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                int close = template.indexOf('}', i + 1);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed '{' at position " + (i + 1));
+                }
+                String[] parts = template.substring(i + 1, close).split("\\|", -1);
+                if (parts.length > 2) {
+                    throw new IllegalArgumentException("Only one encoding per placeholder is allowed: '{" + template.substring(i + 1, close) + "}'.");
+                }
+                Placeholder placeholder = parsePlaceholder(parts[0].trim());
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(placeholder);
+                encodings.add(parts.length == 2 ? parseEncoding(parts[1].trim()) : placeholder.defaultEncoding);
+                i = close + 1;
+            } else if (c == '}') {
+                throw new IllegalArgumentException("Unexpected '}' at position " + (i + 1));
+            } else if (template.startsWith(LEGACY_TERM, i)) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                placeholders.add(Placeholder.TERM);
+                encodings.add(Placeholder.TERM.defaultEncoding);
+                i += LEGACY_TERM.length();
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (placeholders.isEmpty()) {
+            throw new IllegalArgumentException("The URL must contain a placeholder, e.g. '{term}' or '%s'.");
+        }
+        literals.add(literal.toString());
+        return new UrlTemplate(template, literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]),
+                encodings.toArray(new Encoding[0]));
+    }
+
+    /**
+     * Erzeugt die URL. Werte für Platzhalter, die die Vorlage nicht verwendet, dürfen null sein.
+     *
+     * @param term    Der Suchbegriff.
+     * @param project Der Name des Projekts.
+     * @param branch  Der aktuelle Branch.
+     * @param issue   Die Jira-Issue-ID.
+     * @return Die URL.
+     * @throws IllegalArgumentException Wenn ein verwendeter Platzhalter keinen Wert hat.
+     */
+    @NotNull
+    public String render(@Nullable String term, @Nullable String project, @Nullable String branch, @Nullable String issue) {
+        int capacity = literalLength;
+        for (Placeholder placeholder : placeholders) {
+            String value = value(placeholder, term, project, branch, issue);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for '{" + placeholder.name + "}'.");
+            }
+            // Prozentkodierte ASCII-Zeichen brauchen drei Zeichen; Umlaute kommen in Suchbegriffen selten vor
+            capacity += value.length() * 3;
+        }
+
+        StringBuilder out = new StringBuilder(capacity);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            appendEncoded(out, value(placeholders[i], term, project, branch, issue), encodings[i]);
+        }
+        out.append(literals[placeholders.length]);
+        return out.toString();
+    }
+
+    /**
+     * Prüft, ob die Vorlage den Platzhalter verwendet.
+     */
+    public boolean uses(@NotNull Placeholder placeholder) {
+        return used.contains(placeholder);
+    }
+
+    @NotNull
+    public String getSource() {
+        return source;
+    }
+
+    @Nullable
+    private static String value(@NotNull Placeholder placeholder, @Nullable String term, @Nullable String project,
+                                @Nullable String branch, @Nullable String issue) {
+        switch (placeholder) {
+            case TERM:
+                return term;
+            case PROJECT:
+                return project;
+            case BRANCH:
+                return branch;
+            case ISSUE:
+                return issue;
+            default:
+                throw new IllegalStateException("Unknown placeholder " + placeholder);
+        }
+    }
+
+    @NotNull
+    private static Placeholder parsePlaceholder(@NotNull String name) {
+        for (Placeholder placeholder : Placeholder.values()) {
+            if (placeholder.name.equals(name)) {
+                return placeholder;
+            }
+        }
+        throw new IllegalArgumentException("Unknown placeholder '{" + name + "}'. Use {term}, {project}, {branch} or {issue}.");
+    }
+
+    @NotNull
+    private static Encoding parseEncoding(@NotNull String name) {
+        for (Encoding encoding : Encoding.values()) {
+            if (encoding.name.equals(name)) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unknown encoding '" + name + "'. Use component, path or raw.");
+    }
+
+    /**
+     * Prozentkodiert den Wert nach RFC 3986 als UTF-8. Leerzeichen werden zu "%20", nicht zu '+', damit das
+     * Ergebnis auch in Pfaden gültig ist.
+     */
+    private static void appendEncoded(@NotNull StringBuilder out, @NotNull String value, @NotNull Encoding encoding) {
+        if (encoding == Encoding.RAW) {
+            out.append(value);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c) || (c == '/' && encoding == Encoding.PATH)) {
+                out.append(c);
+            } else if (c < 0x80) {
+                appendByte(out, c);
+            } else if (c < 0x800) {
+                appendByte(out, 0xC0 | (c >> 6));
+                appendByte(out, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                appendByte(out, 0xF0 | (codePoint >> 18));
+                appendByte(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendByte(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(out, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Einzelne Surrogate werden wie von String.getBytes durch '?' ersetzt
+                appendByte(out, '?');
+            } else {
+                appendByte(out, 0xE0 | (c >> 12));
+                appendByte(out, 0x80 | ((c >> 6) & 0x3F));
+                appendByte(out, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+
+    private static void appendByte(@NotNull StringBuilder out, int b) {
+        out.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+}
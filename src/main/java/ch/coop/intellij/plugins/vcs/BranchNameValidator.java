@@ -0,0 +1,189 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Prüft Branch-Namen nach den Regeln von "git check-ref-format --branch" und "hg branch".
+ * <p>
+ * Der Name wird in einem einzigen Durchlauf geprüft, ohne Regex und ohne Objekte zu erzeugen; die Meldungen sind
+ * Konstanten. So kann die Prüfung bei jedem Tastendruck laufen, und ungültige Namen fallen auf, bevor ein
+ * "git checkout -b" scheitert.
+ */
+public final class BranchNameValidator {
+    private static final String EMPTY = "must not be empty";
+    private static final String CONTROL_CHARACTER = "must not contain control characters";
+    private static final String DOUBLE_DOT = "must not contain '..'";
+    private static final String AT_BRACE = "must not contain '@{'";
+    private static final String LEADING_DASH = "must not start with '-'";
+    private static final String SINGLE_AT = "must not be '@'";
+    private static final String HEAD = "must not be 'HEAD'";
+    private static final String SLASH_AT_START = "must not start with '/'";
+    private static final String SLASH_AT_END = "must not end with '/'";
+    private static final String DOUBLE_SLASH = "must not contain '//'";
+    private static final String COMPONENT_STARTS_WITH_DOT = "no part between '/' may start with '.'";
+    private static final String COMPONENT_ENDS_WITH_LOCK = "no part between '/' may end with '.lock'";
+    private static final String DOT_AT_END = "must not end with '.'";
+
+    private static final String HG_RESERVED = "must not be 'tip', '.' or 'null'";
+    private static final String HG_INTEGER = "must not be an integer";
+    private static final String HG_WHITESPACE = "must not start or end with whitespace";
+    private static final String HG_FORBIDDEN_CHARACTER = "must not contain ':', line breaks or NUL characters";
+
+    // Meldungen für die in Git verbotenen druckbaren Zeichen, nach Zeichen indiziert
+    private static final String[] GIT_FORBIDDEN_CHARACTERS = new String[128];
+
+    static {
+        for (char c : new char[]{' ', '~', '^', ':', '?', '*', '[', '\\'}) {
+            GIT_FORBIDDEN_CHARACTERS[c] = c == ' ' ? "must not contain spaces" : "must not contain '" + c + "'";
+        }
+    }
+
+    private BranchNameValidator() {
+    }
+
+    /**
+     * Prüft einen Branch-Namen für das angegebene VCS.
+     *
+     * @param name    Der Branch-Name.
+     * @param vcsType Das VCS des Repositorys.
+     * @return Die Fehlermeldung oder null, wenn der Name gültig ist.
+     */
+    @Nullable
+    public static String validate(@NotNull CharSequence name, @NotNull VcsType vcsType) {
+        return vcsType == VcsType.GIT ? validateGit(name) : validateMercurial(name);
+    }
+
+    /**
+     * Prüft einen Branch-Namen nach den Regeln von "git check-ref-format --branch".
+     *
+     * @param name Der Branch-Name ohne "refs/heads/".
+     * @return Die Fehlermeldung oder null, wenn Git den Namen akzeptiert.
+     */
+    @Nullable
+    public static String validateGit(@NotNull CharSequence name) {
+        int length = name.length();
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (name.charAt(0) == '-') {
+            return LEADING_DASH;
+        }
+        if (length == 1 && name.charAt(0) == '@') {
+            return SINGLE_AT;
+        }
+        if (contentEquals(name, "HEAD")) {
+            return HEAD;
+        }
+
+        int componentStart = 0;
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < 0x20 || c == 0x7f) {
+                return CONTROL_CHARACTER;
+            }
+            if (c < GIT_FORBIDDEN_CHARACTERS.length && GIT_FORBIDDEN_CHARACTERS[c] != null) {
+                return GIT_FORBIDDEN_CHARACTERS[c];
+            }
+            switch (c) {
+                case '/':
+                    if (i == 0) {
+                        return SLASH_AT_START;
+                    }
+                    if (previous == '/') {
+                        return DOUBLE_SLASH;
+                    }
+                    if (endsWithLock(name, componentStart, i)) {
+                        return COMPONENT_ENDS_WITH_LOCK;
+                    }
+                    componentStart = i + 1;
+                    break;
+                case '.':
+                    if (previous == '.') {
+                        return DOUBLE_DOT;
+                    }
+                    if (i == componentStart) {
+                        return COMPONENT_STARTS_WITH_DOT;
+                    }
+                    break;
+                case '{':
+                    if (previous == '@') {
+                        return AT_BRACE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            previous = c;
+        }
+
+        if (previous == '/') {
+            return SLASH_AT_END;
+        }
+        if (previous == '.') {
+            return DOT_AT_END;
+        }
+        if (endsWithLock(name, componentStart, length)) {
+            return COMPONENT_ENDS_WITH_LOCK;
+        }
+        return null;
+    }
+
+    /**
+     * Prüft einen Branch-Namen nach den Regeln von "hg branch".
+     *
+     * @param name Der Branch-Name.
+     * @return Die Fehlermeldung oder null, wenn Mercurial den Namen akzeptiert.
+     */
+    @Nullable
+    public static String validateMercurial(@NotNull CharSequence name) {
+        int length = name.length();
+        if (length == 0) {
+            return EMPTY;
+        }
+        if (contentEquals(name, "tip") || contentEquals(name, ".") || contentEquals(name, "null")) {
+            return HG_RESERVED;
+        }
+        if (Character.isWhitespace(name.charAt(0)) || Character.isWhitespace(name.charAt(length - 1))) {
+            return HG_WHITESPACE;
+        }
+
+        // hg lehnt Namen ab, die sich als Zahl lesen lassen, weil sie mit Revisionsnummern kollidieren
+        boolean integer = true;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c == ':' || c == '\n' || c == '\r' || c == 0) {
+                return HG_FORBIDDEN_CHARACTER;
+            }
+            if (!(c >= '0' && c <= '9') && !(i == 0 && length > 1 && (c == '+' || c == '-'))) {
+                integer = false;
+            }
+        }
+        return integer ? HG_INTEGER : null;
+    }
+
+    private static boolean endsWithLock(@NotNull CharSequence name, int componentStart, int componentEnd) {
+        int suffixStart = componentEnd - 5;
+        if (suffixStart < componentStart) {
+            return false;
+        }
+        return name.charAt(suffixStart) == '.'
+                && name.charAt(suffixStart + 1) == 'l'
+                && name.charAt(suffixStart + 2) == 'o'
+                && name.charAt(suffixStart + 3) == 'c'
+                && name.charAt(suffixStart + 4) == 'k';
+    }
+
+    private static boolean contentEquals(@NotNull CharSequence name, @NotNull String value) {
+        if (name.length() != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (name.charAt(i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,18 +1,27 @@
 package ch.coop.intellij.plugins.vcs;
 
-import ch.coop.intellij.plugins.helper.RepoHelper;
+import ch.coop.intellij.plugins.helper.CommandLine;
+import ch.coop.intellij.plugins.helper.CommandRunner;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 
 public class GitHandler implements VcsHandler {
     private static final Logger LOG = Logger.getInstance(GitHandler.class);
 
+    // Netzwerkoperationen dürfen deutlich länger dauern als lokale Befehle
+    private static final long PUSH_TIMEOUT_MILLIS = 5 * 60_000;
+
+    @Override
+    public @NotNull VcsType getVcsType() {
+        return VcsType.GIT;
+    }
+
     @Override
     public boolean isSupported(@NotNull Project project) {
         return isGitAvailable() && new File(project.getBasePath(), ".git").exists();
@@ -20,42 +29,40 @@ public class GitHandler implements VcsHandler {
 
     @Override
     public List<String> getRepositoryPaths(@NotNull Project project) {
-        return RepoHelper.getRepositoryPaths(project, ".git");
+        return RepositoryCatalog.getInstance(project).getRepositoryPaths(VcsType.GIT);
     }
 
     @Override
-    public void createBranch(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath, boolean push) throws VcsCommandException {
-        LOG.info("Creating branch '" + branchName + "' in repository '" + repositoryPath + "'.");
+    public void createBranch(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath,
+                             @Nullable String baseBranch, boolean push) throws VcsCommandException {
+        LOG.info("Creating branch '" + branchName + "' in repository '" + repositoryPath + "'"
+                + (baseBranch != null ? " from '" + baseBranch + "'." : "."));
 
         try {
-            // Branch erstellen
-            int exitCode = RepoHelper.executeCommand(new String[]{"git", "checkout", "-b", branchName}, repositoryPath);
-            if (exitCode != 0) {
-                throw VcsCommandException.forCommandFailure("git checkout -b " + branchName, "Exit code: " + exitCode);
+            // Branch erstellen; "--no-track", damit ein Remote-Basisbranch nicht zum Upstream des neuen Branches wird
+            if (baseBranch != null) {
+                CommandRunner.runChecked(gitCommand(repositoryPath, "checkout", "--no-track", "-b", branchName, baseBranch));
+            } else {
+                CommandRunner.runChecked(gitCommand(repositoryPath, "checkout", "-b", branchName));
             }
+            GitRefIndex.getInstance().invalidate(repositoryPath);
+            // Der Push läuft im Hintergrund, damit der Benutzer nicht auf das Netzwerk wartet
             if (push) {
-                pushBranch(branchName, repositoryPath);
+                VcsPushQueue.getInstance().enqueue(getVcsType(), repositoryPath, branchName);
             }
         } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to create branch: " + e.getMessage(), e);
         }
     }
 
-    /**
-     * Pusht den erstellten Branch in das Remote-Repository.
-     *
-     * @param branchName     Der Name des Branches, der gepusht werden soll.
-     * @param repositoryPath Der Pfad zum Repository.
-     * @throws VcsCommandException Wenn der Push fehlschlägt.
-     */
-    private void pushBranch(@NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException {
+    @Override
+    public void pushBranch(@NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException {
         LOG.info("Pushing branch '" + branchName + "' to remote repository.");
 
         try {
-            int exitCode = RepoHelper.executeCommand(new String[]{"git", "push", "origin", branchName}, repositoryPath);
-            if (exitCode != 0) {
-                throw VcsCommandException.forCommandFailure("git push origin " + branchName, "Exit code: " + exitCode);
-            }
+            CommandRunner.runChecked(gitCommand(repositoryPath, "push", "origin", branchName)
+                    .withTimeout(PUSH_TIMEOUT_MILLIS)
+                    .withLineListener((line, errorStream) -> LOG.debug("git push: " + line)));
         } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to push branch: " + e.getMessage(), e);
         }
@@ -64,13 +71,18 @@ public class GitHandler implements VcsHandler {
     @Override
     public void undoVcsCommand(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException {
         LOG.info("Deleting branch '" + branchName + "' in repository '" + repositoryPath + "'.");
+        // Ein noch ausstehender Push des Branches ist hinfällig
+        VcsPushQueue.getInstance().cancel(repositoryPath, branchName);
 
         try {
-            // Branch löschen
-            int exitCode = RepoHelper.executeCommand(new String[]{"git", "branch", "-D", branchName}, repositoryPath);
-            if (exitCode != 0) {
-                throw VcsCommandException.forCommandFailure("git branch -D " + branchName, "Exit code: " + exitCode);
+            // Ein ausgecheckter Branch kann nicht gelöscht werden, daher zuerst auf den vorherigen zurückwechseln
+            if (branchName.equals(GitMetadataReader.readCurrentBranch(Paths.get(repositoryPath)))) {
+                CommandRunner.runChecked(gitCommand(repositoryPath, "checkout", "-"));
             }
+
+            // Branch löschen
+            CommandRunner.runChecked(gitCommand(repositoryPath, "branch", "-D", branchName));
+            GitRefIndex.getInstance().invalidate(repositoryPath);
         } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to execute Git command: " + e.getMessage(), e);
         }
@@ -78,21 +90,64 @@ public class GitHandler implements VcsHandler {
 
     @Override
     public @Nullable String getCurrentBranch(@NotNull Project project, @NotNull String repositoryPath) throws VcsCommandException {
+        // Zuerst direkt aus .git/HEAD lesen, nur bei unbekanntem Layout auf die Kommandozeile ausweichen
+        String branch = GitMetadataReader.readCurrentBranch(Paths.get(repositoryPath));
+        if (branch != null) {
+            return branch;
+        }
+
         try {
-            Process process = Runtime.getRuntime().exec(new String[]{"git", "branch", "--show-current"}, null, new File(repositoryPath));
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                String errorOutput = RepoHelper.readProcessOutput(process.getErrorStream());
-                throw VcsCommandException.forCommandFailure("git branch --show-current", errorOutput);
-            }
-            return RepoHelper.readProcessOutput(process.getInputStream()).trim();
-        } catch (IOException | InterruptedException e) {
+            return CommandRunner.runChecked(readOnlyGitCommand(repositoryPath, "branch", "--show-current")).getStdout().trim();
+        } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to execute Git command: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Prüft, ob eine Revision auf einen Commit zeigt: Branch, Tag, (abgekürzte) Commit-ID oder ein Ausdruck wie
+     * "main~2". Startet einen Git-Prozess, daher nicht im EDT aufrufen.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param revision       Die zu prüfende Revision.
+     * @return true, wenn Git die Revision zu einem Commit auflösen kann, sonst false.
+     * @throws VcsCommandException Wenn Git nicht ausgeführt werden konnte.
+     */
+    public static boolean revisionExists(@NotNull String repositoryPath, @NotNull String revision) throws VcsCommandException {
+        // Eine Revision mit führendem "-" würde als Option gelesen
+        if (revision.startsWith("-")) {
+            return false;
+        }
+        return CommandRunner.run(readOnlyGitCommand(repositoryPath, "rev-parse", "--verify", "--quiet", revision + "^{commit}")).isSuccess();
+    }
+
     private boolean isGitAvailable() {
-        return RepoHelper.isVcsToolAvailable(new String[]{"git", "--version"});
+        return VcsToolRegistry.getInstance().isAvailable(VcsType.GIT);
+    }
+
+    private static String git() {
+        return VcsToolRegistry.getInstance().getExecutable(VcsType.GIT);
+    }
+
+    /**
+     * Erstellt einen git-Befehl, der nie interaktiv nach Zugangsdaten fragt.
+     */
+    @NotNull
+    private static CommandLine gitCommand(@NotNull String repositoryPath, @NotNull String... arguments) {
+        String[] command = new String[arguments.length + 1];
+        command[0] = git();
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+        return new CommandLine(command)
+                .withWorkingDirectory(repositoryPath)
+                .withEnvironment("GIT_TERMINAL_PROMPT", "0");
+    }
+
+    /**
+     * Erstellt einen lesenden git-Befehl, der keine optionalen Locks (z. B. auf den Index) nimmt
+     * und so nicht mit parallel laufenden Schreibzugriffen der IDE kollidiert.
+     */
+    @NotNull
+    private static CommandLine readOnlyGitCommand(@NotNull String repositoryPath, @NotNull String... arguments) {
+        return gitCommand(repositoryPath, arguments).withEnvironment("GIT_OPTIONAL_LOCKS", "0");
     }
 
 }
\ No newline at end of file
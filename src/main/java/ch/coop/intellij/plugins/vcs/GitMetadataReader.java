@@ -0,0 +1,257 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Liest Git-Metadaten (aktueller Branch, Remotes, Upstreams) direkt aus dem Repository-Verzeichnis, ohne einen
+ * Git-Prozess zu starten. Unterstützt werden normale Repositorys sowie Worktrees und Submodule, bei denen ".git"
+ * eine Datei mit "gitdir:"-Verweis ist. Bei unbekannten Layouts geben die Methoden null zurück, damit der
+ * Aufrufer auf die Kommandozeile ausweichen kann.
+ */
+public final class GitMetadataReader {
+    private static final String HEAD_REF_PREFIX = "ref: refs/heads/";
+    private static final String GITDIR_PREFIX = "gitdir:";
+
+    private GitMetadataReader() {
+    }
+
+    /**
+     * Ermittelt das Git-Verzeichnis eines Repositorys und löst dabei "gitdir:"-Verweise auf.
+     *
+     * @param repositoryPath Der Pfad zum Repository (Arbeitsverzeichnis).
+     * @return Das Git-Verzeichnis oder null, wenn keines gefunden wurde.
+     */
+    @Nullable
+    public static Path resolveGitDir(@NotNull Path repositoryPath) {
+        Path dotGit = repositoryPath.resolve(".git");
+        if (Files.isDirectory(dotGit)) {
+            return dotGit;
+        }
+        if (!Files.isRegularFile(dotGit)) {
+            return null;
+        }
+        String content = readFirstLine(dotGit);
+        if (content == null || !content.startsWith(GITDIR_PREFIX)) {
+            return null;
+        }
+        Path gitDir = repositoryPath.resolve(content.substring(GITDIR_PREFIX.length()).trim()).normalize();
+        return Files.isDirectory(gitDir) ? gitDir : null;
+    }
+
+    /**
+     * Ermittelt das gemeinsame Git-Verzeichnis. Bei Worktrees liegen Konfiguration und Refs nicht im
+     * Worktree-spezifischen Verzeichnis, sondern in dem über "commondir" referenzierten Verzeichnis.
+     *
+     * @param gitDir Das Git-Verzeichnis des Repositorys oder Worktrees.
+     * @return Das gemeinsame Git-Verzeichnis.
+     */
+    @NotNull
+    public static Path resolveCommonDir(@NotNull Path gitDir) {
+        Path commonDirFile = gitDir.resolve("commondir");
+        if (Files.isRegularFile(commonDirFile)) {
+            String commonDir = readFirstLine(commonDirFile);
+            if (commonDir != null && !commonDir.isEmpty()) {
+                Path resolved = gitDir.resolve(commonDir).normalize();
+                if (Files.isDirectory(resolved)) {
+                    return resolved;
+                }
+            }
+        }
+        return gitDir;
+    }
+
+    /**
+     * Liest den aktuellen Branch aus ".git/HEAD".
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Der Name des Branches, ein leerer String bei einem "detached HEAD" (wie "git branch --show-current")
+     * oder null, wenn HEAD nicht gelesen werden konnte.
+     */
+    @Nullable
+    public static String readCurrentBranch(@NotNull Path repositoryPath) {
+        Path gitDir = resolveGitDir(repositoryPath);
+        if (gitDir == null) {
+            return null;
+        }
+        String head = readFirstLine(gitDir.resolve("HEAD"));
+        if (head == null) {
+            return null;
+        }
+        if (head.startsWith(HEAD_REF_PREFIX)) {
+            return head.substring(HEAD_REF_PREFIX.length()).trim();
+        }
+        if (isObjectId(head)) {
+            return "";
+        }
+        return null; // Unbekanntes Format, z. B. symbolischer Verweis ausserhalb von refs/heads
+    }
+
+    /**
+     * Liest die konfigurierten Remotes aus ".git/config".
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Die Remotes (Name → URL) in der Reihenfolge der Konfiguration, leer wenn keine gefunden wurden.
+     */
+    @NotNull
+    public static Map<String, String> readRemotes(@NotNull Path repositoryPath) {
+        Map<String, String> remotes = new LinkedHashMap<>();
+        Map<String, Map<String, String>> config = readConfig(repositoryPath);
+        for (Map.Entry<String, Map<String, String>> section : config.entrySet()) {
+            String remote = subsectionName(section.getKey(), "remote");
+            if (remote != null) {
+                remotes.put(remote, section.getValue().getOrDefault("url", ""));
+            }
+        }
+        return remotes;
+    }
+
+    /**
+     * Ermittelt den Upstream eines Branches aus ".git/config" (z. B. "origin/main").
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param branchName     Der Name des lokalen Branches.
+     * @return Der Upstream im Format "remote/branch" oder null, wenn keiner konfiguriert ist.
+     */
+    @Nullable
+    public static String readUpstream(@NotNull Path repositoryPath, @NotNull String branchName) {
+        Map<String, String> branch = readConfig(repositoryPath).get("branch \"" + branchName + "\"");
+        if (branch == null) {
+            return null;
+        }
+        String remote = branch.get("remote");
+        String merge = branch.get("merge");
+        if (remote == null || merge == null) {
+            return null;
+        }
+        String mergeBranch = merge.startsWith("refs/heads/") ? merge.substring("refs/heads/".length()) : merge;
+        return ".".equals(remote) ? mergeBranch : remote + "/" + mergeBranch;
+    }
+
+    /**
+     * Liest die Git-Konfiguration des Repositorys. Abschnittsnamen werden als {@code name} bzw.
+     * {@code name "subsection"} abgelegt, Schlüssel in Kleinbuchstaben. Bei mehrfach vorhandenen Schlüsseln
+     * gilt der erste Wert.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Die Konfiguration nach Abschnitten, leer wenn sie nicht gelesen werden konnte.
+     */
+    @NotNull
+    static Map<String, Map<String, String>> readConfig(@NotNull Path repositoryPath) {
+        Map<String, Map<String, String>> config = new LinkedHashMap<>();
+        Path gitDir = resolveGitDir(repositoryPath);
+        if (gitDir == null) {
+            return config;
+        }
+        Path configFile = resolveCommonDir(gitDir).resolve("config");
+        if (!Files.isRegularFile(configFile)) {
+            return config;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            Map<String, String> section = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == ';') {
+                    continue;
+                }
+                if (line.charAt(0) == '[') {
+                    int end = line.lastIndexOf(']');
+                    if (end < 0) {
+                        section = null;
+                        continue;
+                    }
+                    section = config.computeIfAbsent(normalizeSectionName(line.substring(1, end)), k -> new LinkedHashMap<>());
+                    continue;
+                }
+                if (section == null) {
+                    continue;
+                }
+                int equals = line.indexOf('=');
+                String key = (equals < 0 ? line : line.substring(0, equals)).trim().toLowerCase();
+                String value = equals < 0 ? "true" : unquote(stripComment(line.substring(equals + 1).trim()));
+                section.putIfAbsent(key, value);
+            }
+        } catch (IOException e) {
+            return new LinkedHashMap<>();
+        }
+        return config;
+    }
+
+    @NotNull
+    private static String normalizeSectionName(@NotNull String header) {
+        int quote = header.indexOf('"');
+        if (quote < 0) {
+            // Veraltete Schreibweise [section.subsection]
+            int dot = header.indexOf('.');
+            if (dot < 0) {
+                return header.trim().toLowerCase();
+            }
+            return header.substring(0, dot).trim().toLowerCase() + " \"" + header.substring(dot + 1).trim() + "\"";
+        }
+        String name = header.substring(0, quote).trim().toLowerCase();
+        String subsection = header.substring(quote + 1, header.lastIndexOf('"') > quote ? header.lastIndexOf('"') : header.length());
+        return name + " \"" + subsection.replace("\\\"", "\"").replace("\\\\", "\\") + "\"";
+    }
+
+    @Nullable
+    private static String subsectionName(@NotNull String sectionName, @NotNull String section) {
+        String prefix = section + " \"";
+        if (sectionName.startsWith(prefix) && sectionName.endsWith("\"")) {
+            return sectionName.substring(prefix.length(), sectionName.length() - 1);
+        }
+        return null;
+    }
+
+    @NotNull
+    private static String stripComment(@NotNull String value) {
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '#' || c == ';')) {
+                return value.substring(0, i).trim();
+            }
+        }
+        return value;
+    }
+
+    @NotNull
+    private static String unquote(@NotNull String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    private static boolean isObjectId(@NotNull String value) {
+        if (value.length() != 40 && value.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    static String readFirstLine(@NotNull Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            return line != null ? line.trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
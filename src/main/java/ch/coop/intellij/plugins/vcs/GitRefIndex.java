@@ -0,0 +1,267 @@
+package ch.coop.intellij.plugins.vcs;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Index der Branches und Tags aller Git-Repositorys, für Existenzprüfung und Autovervollständigung ohne
+ * "git branch -a".
+ * <p>
+ * Pro Repository wird ein {@link GitRefSnapshot} aus den losen Refs und der abgebildeten packed-refs-Datei
+ * aufgebaut. Die Ref-Verzeichnisse werden mit einem {@link WatchService} beobachtet; jede Änderung (Commit,
+ * Fetch, neuer Branch, "git pack-refs") markiert den Stand als veraltet, beim nächsten Zugriff wird er im
+ * Hintergrund neu aufgebaut. Bis dahin liefert {@link #getSnapshot} den bisherigen Stand und blockiert nie.
+ */
+public final class GitRefIndex implements Disposable {
+    private static final Logger LOG = Logger.getInstance(GitRefIndex.class);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Watch> watchKeys = new ConcurrentHashMap<>();
+    private final WatchService watchService;
+
+    private static final class Entry {
+        final Path repositoryPath;
+        volatile GitRefSnapshot snapshot;
+        volatile boolean dirty = true;
+        final AtomicBoolean loading = new AtomicBoolean();
+
+        Entry(@NotNull Path repositoryPath) {
+            this.repositoryPath = repositoryPath;
+        }
+    }
+
+    /**
+     * Ein beobachtetes Verzeichnis. Im Git-Verzeichnis selbst ändern sich laufend Dateien (index, HEAD, logs),
+     * dort ist nur "packed-refs" von Interesse.
+     */
+    private static final class Watch {
+        final Entry entry;
+        final boolean packedRefsOnly;
+
+        Watch(@NotNull Entry entry, boolean packedRefsOnly) {
+            this.entry = entry;
+            this.packedRefsOnly = packedRefsOnly;
+        }
+    }
+
+    public GitRefIndex() {
+        WatchService service = null;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            WatchService watcher = service;
+            AppExecutorUtil.getAppExecutorService().execute(() -> watch(watcher));
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.warn("File watching is not available, the branch index is refreshed after own branch operations only", e);
+        }
+        watchService = service;
+    }
+
+    /**
+     * Gibt die Instanz des Index zurück.
+     *
+     * @return Der Branch-Index.
+     */
+    public static GitRefIndex getInstance() {
+        return ApplicationManager.getApplication().getService(GitRefIndex.class);
+    }
+
+    /**
+     * Gibt den aktuellen Stand eines Repositorys zurück, ohne zu blockieren. Ist der Stand veraltet oder noch nicht
+     * geladen, wird er im Hintergrund (neu) aufgebaut.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Der letzte bekannte Stand oder null, wenn noch keiner geladen wurde.
+     */
+    @Nullable
+    public GitRefSnapshot getSnapshot(@NotNull String repositoryPath) {
+        Entry entry = entry(repositoryPath);
+        if (entry.dirty && entry.loading.compareAndSet(false, true)) {
+            AppExecutorUtil.getAppExecutorService().execute(() -> {
+                try {
+                    loadIfDirty(entry);
+                } finally {
+                    entry.loading.set(false);
+                }
+            });
+        }
+        return entry.snapshot;
+    }
+
+    /**
+     * Gibt den aktuellen Stand eines Repositorys zurück und baut ihn bei Bedarf sofort auf. Nicht im EDT aufrufen.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Der aktuelle Stand oder null, wenn das Repository nicht gelesen werden konnte.
+     */
+    @Nullable
+    public GitRefSnapshot loadSnapshot(@NotNull String repositoryPath) {
+        Entry entry = entry(repositoryPath);
+        loadIfDirty(entry);
+        return entry.snapshot;
+    }
+
+    /**
+     * Markiert den Stand eines Repositorys als veraltet, z. B. nachdem das Plugin selbst einen Branch erstellt hat.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     */
+    public void invalidate(@NotNull String repositoryPath) {
+        Entry entry = entries.get(normalize(repositoryPath));
+        if (entry != null) {
+            entry.dirty = true;
+        }
+    }
+
+    @NotNull
+    private Entry entry(@NotNull String repositoryPath) {
+        return entries.computeIfAbsent(normalize(repositoryPath), path -> new Entry(Paths.get(path)));
+    }
+
+    private void loadIfDirty(@NotNull Entry entry) {
+        // Ein laufender Aufbau im Hintergrund wird abgewartet statt doppelt ausgeführt
+        synchronized (entry) {
+            if (entry.dirty) {
+                load(entry);
+            }
+        }
+    }
+
+    private void load(@NotNull Entry entry) {
+        // Vor dem Lesen zurücksetzen, damit Änderungen während des Aufbaus einen weiteren Durchlauf auslösen
+        entry.dirty = false;
+        Path gitDir = GitMetadataReader.resolveGitDir(entry.repositoryPath);
+        if (gitDir == null) {
+            entry.snapshot = null;
+            return;
+        }
+        Path commonDir = GitMetadataReader.resolveCommonDir(gitDir);
+        long start = System.nanoTime();
+        try {
+            List<String> looseRefs = new ArrayList<>();
+            collectLooseRefs(commonDir, commonDir.resolve("refs/heads"), looseRefs, entry);
+            collectLooseRefs(commonDir, commonDir.resolve("refs/remotes"), looseRefs, entry);
+            collectLooseRefs(commonDir, commonDir.resolve("refs/tags"), looseRefs, entry);
+            // "refs" meldet das erste Anlegen von "refs/remotes" und "refs/tags", das Git-Verzeichnis ein neues packed-refs
+            register(commonDir.resolve("refs"), entry, false);
+            register(commonDir, entry, true);
+
+            String[] sortedLooseRefs = looseRefs.toArray(new String[0]);
+            Arrays.sort(sortedLooseRefs);
+            PackedRefs packedRefs = PackedRefs.load(commonDir.resolve("packed-refs"));
+            entry.snapshot = new GitRefSnapshot(sortedLooseRefs, packedRefs,
+                    GitMetadataReader.readRemotes(entry.repositoryPath).keySet());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Indexed " + sortedLooseRefs.length + " loose refs of " + entry.repositoryPath + " in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (IOException e) {
+            LOG.info("Could not index the branches of " + entry.repositoryPath + ": " + e.getMessage());
+            entry.dirty = true;
+        }
+    }
+
+    private void collectLooseRefs(@NotNull Path commonDir, @NotNull Path directory, @NotNull List<String> result,
+                                  @NotNull Entry entry) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                register(dir, entry, false);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                String name = file.getFileName().toString();
+                // Sperrdateien von laufenden Git-Befehlen sind keine Refs
+                if (attrs.isRegularFile() && !name.endsWith(".lock")) {
+                    result.add(commonDir.relativize(file).toString().replace('\\', '/'));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(@NotNull Path directory, @NotNull Entry entry, boolean packedRefsOnly) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(key, new Watch(entry, packedRefsOnly));
+        } catch (IOException | ClosedWatchServiceException e) {
+            LOG.debug("Cannot watch " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void watch(@NotNull WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Watch watch = watchKeys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (watch != null && (!watch.packedRefsOnly
+                            || event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || "packed-refs".equals(String.valueOf(event.context())))) {
+                        watch.entry.dirty = true;
+                    }
+                }
+                if (!key.reset()) {
+                    watchKeys.remove(key); // Verzeichnis gelöscht, wird beim Neuaufbau wieder registriert
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Dienst wird beendet
+        }
+    }
+
+    @NotNull
+    private static String normalize(@NotNull String repositoryPath) {
+        return Paths.get(repositoryPath).toAbsolutePath().normalize().toString();
+    }
+
+    @Override
+    public void dispose() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                LOG.debug("Closing the watch service failed: " + e.getMessage());
+            }
+        }
+        entries.clear();
+        watchKeys.clear();
+    }
+}
@@ -0,0 +1,138 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Unveränderlicher Stand der Branches und Tags eines Git-Repositorys: lose Refs aus "refs/heads", "refs/remotes" und
+ * "refs/tags" sowie die gepackten Refs aus "packed-refs".
+ * <p>
+ * Alle Abfragen sind binäre Suchen und laufen ohne Git-Prozess, daher auch bei jedem Tastendruck im Dialog.
+ */
+public final class GitRefSnapshot {
+    static final String HEADS = "refs/heads/";
+    static final String REMOTES = "refs/remotes/";
+    static final String TAGS = "refs/tags/";
+
+    private final String[] looseRefs;
+    private final PackedRefs packedRefs;
+    private final List<String> remotes;
+
+    GitRefSnapshot(@NotNull String[] sortedLooseRefs, @NotNull PackedRefs packedRefs, @NotNull Collection<String> remotes) {
+        this.looseRefs = sortedLooseRefs;
+        this.packedRefs = packedRefs;
+        this.remotes = List.copyOf(remotes);
+    }
+
+    /**
+     * Prüft, ob ein lokaler Branch existiert.
+     *
+     * @param branchName Der Branch-Name ohne "refs/heads/".
+     */
+    public boolean branchExists(@NotNull String branchName) {
+        return refExists(HEADS + branchName);
+    }
+
+    /**
+     * Prüft, ob ein lokaler Branch, ein Remote-Branch (z. B. "origin/main") oder ein Tag dieses Namens existiert.
+     * Vollständige Ref-Namen wie "refs/tags/v1.0" werden ebenfalls erkannt. Commit-IDs und Ausdrücke wie "main~2"
+     * kennt der Index nicht; sie lassen sich nur mit Git prüfen.
+     *
+     * @param name Der Kurz- oder vollständige Name der Ref.
+     */
+    public boolean isKnownRef(@NotNull String name) {
+        return refExists(HEADS + name) || refExists(REMOTES + name) || refExists(TAGS + name)
+                || (name.startsWith("refs/") && refExists(name));
+    }
+
+    /**
+     * Prüft, ob "git checkout -b" einen Branch dieses Namens anlegen könnte.
+     * <p>
+     * Neben gleichnamigen Branches scheitert Git auch, wenn ein Branch ein Verzeichnis des neuen Namens belegt
+     * ("feature" verhindert "feature/x") oder umgekehrt.
+     *
+     * @param branchName Der neue Branch-Name.
+     * @return Eine Fehlermeldung oder null, wenn kein Konflikt besteht.
+     */
+    @Nullable
+    public String findBranchConflict(@NotNull String branchName) {
+        if (branchExists(branchName)) {
+            return "branch '" + branchName + "' already exists";
+        }
+        for (int slash = branchName.indexOf('/'); slash > 0; slash = branchName.indexOf('/', slash + 1)) {
+            String parent = branchName.substring(0, slash);
+            if (branchExists(parent)) {
+                return "existing branch '" + parent + "' conflicts with '" + branchName + "'";
+            }
+        }
+        String children = HEADS + branchName + "/";
+        if (looseContainsPrefix(children) || packedRefs.containsPrefix(children)) {
+            return "existing branches under '" + branchName + "/' conflict with '" + branchName + "'";
+        }
+        return null;
+    }
+
+    /**
+     * Schlägt Branches für die Eingabe vor: lokale Branches und Remote-Branches, die mit der Eingabe beginnen,
+     * sowie Remote-Branches, deren Name ohne Remote mit der Eingabe beginnt ("feat" findet "origin/feature").
+     *
+     * @param prefix Die bisherige Eingabe.
+     * @param limit  Die maximale Anzahl Vorschläge.
+     * @return Die Kurznamen, lokale Branches zuerst, jeweils sortiert.
+     */
+    @NotNull
+    public List<String> complete(@NotNull String prefix, int limit) {
+        TreeSet<String> local = new TreeSet<>();
+        collect(HEADS + prefix, limit, local);
+        TreeSet<String> remote = new TreeSet<>();
+        collect(REMOTES + prefix, limit, remote);
+        for (String name : remotes) {
+            if (!prefix.startsWith(name + "/")) {
+                collect(REMOTES + name + "/" + prefix, limit, remote);
+            }
+        }
+
+        List<String> result = new ArrayList<>(Math.min(limit, local.size() + remote.size()));
+        for (String ref : local) {
+            if (result.size() >= limit) {
+                return result;
+            }
+            result.add(ref.substring(HEADS.length()));
+        }
+        for (String ref : remote) {
+            if (result.size() >= limit) {
+                return result;
+            }
+            // Symbolischer Verweis auf den Standard-Branch des Remotes, kein eigener Branch
+            if (!ref.endsWith("/HEAD")) {
+                result.add(ref.substring(REMOTES.length()));
+            }
+        }
+        return result;
+    }
+
+    private boolean refExists(@NotNull String refName) {
+        return Arrays.binarySearch(looseRefs, refName) >= 0 || packedRefs.contains(refName);
+    }
+
+    private void collect(@NotNull String prefix, int limit, @NotNull Collection<String> result) {
+        int index = Arrays.binarySearch(looseRefs, prefix);
+        int count = 0;
+        for (int i = index >= 0 ? index : -index - 1; i < looseRefs.length && count < limit && looseRefs[i].startsWith(prefix); i++, count++) {
+            result.add(looseRefs[i]);
+        }
+        packedRefs.collect(prefix, limit, result);
+    }
+
+    private boolean looseContainsPrefix(@NotNull String prefix) {
+        int index = Arrays.binarySearch(looseRefs, prefix);
+        int insertion = index >= 0 ? index : -index - 1;
+        return insertion < looseRefs.length && looseRefs[insertion].startsWith(prefix);
+    }
+}
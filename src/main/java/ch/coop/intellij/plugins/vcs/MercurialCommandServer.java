@@ -0,0 +1,268 @@
+package ch.coop.intellij.plugins.vcs;
+
+import ch.coop.intellij.plugins.helper.BoundedTextBuffer;
+import ch.coop.intellij.plugins.helper.CommandResult;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ein laufender Mercurial-Command-Server ("hg serve --cmdserver pipe") für genau ein Repository.
+ * <p>
+ * Das Protokoll ist in der Mercurial-Dokumentation (CommandServer) beschrieben: Jede Nachricht des Servers
+ * besteht aus einem Kanal-Byte, einer 4-Byte-Länge (big-endian) und den Daten. Ein Befehl wird mit
+ * "runcommand\n", der Länge und den durch '\0' getrennten Argumenten gesendet; der Server antwortet auf den
+ * Kanälen 'o' (Ausgabe), 'e' (Fehler) und schliesst mit 'r' (Exit-Code) ab. Eingabeanforderungen ('I', 'L')
+ * werden mit einem leeren Block beantwortet, da alle Befehle nicht interaktiv laufen.
+ * <p>
+ * Ein Server verarbeitet immer nur einen Befehl gleichzeitig. Die Fehlerausgabe des Prozesses (z. B. Meldungen
+ * beim Start ausserhalb des Protokolls) wird begrenzt gepuffert und in Fehlermeldungen übernommen.
+ */
+final class MercurialCommandServer implements Closeable {
+    // Obergrenze der gepufferten Ausgabe pro Kanal, analog zum CommandRunner
+    private static final int MAX_OUTPUT_BYTES = 256 * 1024;
+    private static final int MAX_STDERR_CHARS = 8 * 1024;
+    // Zeitlimit für die Begrüssung, wenn der Befehl selbst kein Timeout hat
+    private static final long DEFAULT_HELLO_TIMEOUT_MILLIS = 30_000;
+
+    private final String executable;
+    private final String repositoryPath;
+    private final Process process;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final BoundedTextBuffer stderr = new BoundedTextBuffer(MAX_STDERR_CHARS);
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    private MercurialCommandServer(@NotNull String executable, @NotNull String repositoryPath, @NotNull Process process) {
+        this.executable = executable;
+        this.repositoryPath = repositoryPath;
+        this.process = process;
+        this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    }
+
+    /**
+     * Startet einen Command-Server und liest die Begrüssung. Antwortet der Server nicht innerhalb des Zeitlimits,
+     * wird er beendet.
+     *
+     * @param executable     Das hg-Programm.
+     * @param repositoryPath Das Repository, in dem die Befehle laufen.
+     * @param timeoutMillis  Zeitlimit für die Begrüssung, 0 für den Standardwert.
+     * @return Der bereite Server.
+     * @throws IOException Wenn der Server nicht startet, nicht rechtzeitig antwortet oder "runcommand" nicht
+     *                     unterstützt.
+     */
+    @NotNull
+    static MercurialCommandServer start(@NotNull String executable, @NotNull String repositoryPath, long timeoutMillis)
+            throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(executable, "serve", "--cmdserver", "pipe", "--config", "ui.interactive=False")
+                .directory(new File(repositoryPath));
+        builder.environment().put("HGPLAIN", "1");
+        builder.environment().put("HGENCODING", "UTF-8");
+
+        MercurialCommandServer server = new MercurialCommandServer(executable, repositoryPath, builder.start());
+        Future<?> errorReader = AppExecutorUtil.getAppExecutorService().submit(server::drainErrorStream);
+
+        long helloTimeout = timeoutMillis > 0 ? timeoutMillis : DEFAULT_HELLO_TIMEOUT_MILLIS;
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+            timedOut.set(true);
+            server.kill();
+        }, helloTimeout, TimeUnit.MILLISECONDS);
+        try {
+            server.readHello();
+            return server;
+        } catch (IOException e) {
+            server.kill();
+            awaitQuietly(errorReader);
+            String reason = timedOut.get() ? "no hello within " + helloTimeout + " ms" : e.getMessage();
+            throw new IOException(reason + server.describeErrorOutput(), e);
+        } finally {
+            watchdog.cancel(false);
+        }
+    }
+
+    private void readHello() throws IOException {
+        int channel = in.read();
+        if (channel != 'o') {
+            throw new IOException("Unexpected hello from command server (channel " + channel + ")");
+        }
+        String hello = new String(readBlock(in.readInt()), StandardCharsets.UTF_8);
+        boolean runCommand = false;
+        for (String line : hello.split("\n")) {
+            if (line.startsWith("capabilities:") && List.of(line.substring("capabilities:".length()).trim().split(" ")).contains("runcommand")) {
+                runCommand = true;
+            }
+        }
+        if (!runCommand) {
+            throw new IOException("Command server does not support runcommand: " + hello);
+        }
+    }
+
+    /**
+     * Sendet den Befehl an den Server, ohne auf die Antwort zu warten.
+     *
+     * @param arguments Die hg-Argumente ohne Programmnamen.
+     * @throws IOException Wenn der Server nicht mehr erreichbar ist; der Befehl wurde dann nicht ausgeführt.
+     */
+    void send(@NotNull List<String> arguments) throws IOException {
+        lastUsedNanos = System.nanoTime();
+        byte[] payload = String.join("\0", arguments).getBytes(StandardCharsets.UTF_8);
+        out.write("runcommand\n".getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Liest die Antwort auf den zuletzt gesendeten Befehl.
+     *
+     * @param startNanos Startzeitpunkt für die Dauer im Ergebnis.
+     * @return Das Ergebnis des Befehls.
+     * @throws IOException Wenn der Server abbricht oder das Protokoll verletzt.
+     */
+    @NotNull
+    CommandResult receive(long startNanos) throws IOException {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        while (true) {
+            int channel = in.read();
+            if (channel < 0) {
+                throw new IOException("Command server terminated unexpectedly" + describeErrorOutput());
+            }
+            int length = in.readInt();
+            switch (channel) {
+                case 'o' -> append(stdout, readBlock(length));
+                case 'e' -> append(stderr, readBlock(length));
+                case 'r' -> {
+                    int exitCode = in.readInt();
+                    lastUsedNanos = System.nanoTime();
+                    return new CommandResult(exitCode,
+                            stdout.toString(StandardCharsets.UTF_8),
+                            stderr.toString(StandardCharsets.UTF_8),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                }
+                case 'I', 'L' -> {
+                    // Leerer Block signalisiert das Ende der Eingabe
+                    out.writeInt(0);
+                    out.flush();
+                }
+                default -> {
+                    // Unbekannte Pflichtkanäle (Grossbuchstaben) dürfen laut Protokoll nicht ignoriert werden
+                    if (Character.isUpperCase(channel)) {
+                        throw new IOException("Unsupported required channel '" + (char) channel + "'");
+                    }
+                    in.skipNBytes(length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Liest die Fehlerausgabe bis zum Prozessende in den begrenzten Puffer, damit der Prozess nie an einer vollen
+     * Pipe hängen bleibt.
+     */
+    private void drainErrorStream() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                stderr.appendLine(line);
+            }
+        } catch (IOException ignored) {
+            // Der Prozess wurde beendet
+        }
+    }
+
+    private static void awaitQuietly(@NotNull Future<?> reader) {
+        try {
+            reader.get(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+            // Die Meldung kommt dann ohne (vollständige) Fehlerausgabe aus
+        }
+    }
+
+    @NotNull
+    private String describeErrorOutput() {
+        String errorOutput = stderr.toString().trim();
+        return errorOutput.isEmpty() ? "" : ": " + errorOutput;
+    }
+
+    @NotNull
+    private byte[] readBlock(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid block length " + length);
+        }
+        return in.readNBytes(length);
+    }
+
+    private static void append(@NotNull ByteArrayOutputStream target, @NotNull byte[] data) {
+        int remaining = MAX_OUTPUT_BYTES - target.size();
+        if (remaining > 0) {
+            target.write(data, 0, Math.min(remaining, data.length));
+        }
+    }
+
+    @NotNull
+    String getExecutable() {
+        return executable;
+    }
+
+    @NotNull
+    String getRepositoryPath() {
+        return repositoryPath;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Beendet den Server sofort, z. B. bei Timeout oder Abbruch eines laufenden Befehls.
+     */
+    void kill() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    @Override
+    public void close() {
+        // Schliessen von stdin beendet den Server regulär
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Server ist bereits beendet
+        }
+        try {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                kill();
+            }
+        } catch (InterruptedException e) {
+            kill();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
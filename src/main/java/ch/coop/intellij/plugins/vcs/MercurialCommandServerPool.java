@@ -0,0 +1,229 @@
+package ch.coop.intellij.plugins.vcs;
+
+import ch.coop.intellij.plugins.helper.CommandResult;
+import ch.coop.intellij.plugins.metrics.PluginMetrics;
+import ch.coop.intellij.plugins.metrics.VcsCommandEvent;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pool von Mercurial-Command-Servern, höchstens ein ruhender Server pro Repository.
+ * <p>
+ * Ein hg-Aufruf über die Kommandozeile bezahlt jedes Mal den Start des Python-Interpreters und der Extensions.
+ * Über einen warmen Command-Server dauert derselbe Befehl nur noch einige Millisekunden. Server, die länger
+ * nicht benutzt wurden, werden beendet. Kann kein Server gestartet werden, liefert {@link #run} null und der
+ * Aufrufer weicht auf die Kommandozeile aus.
+ */
+public final class MercurialCommandServerPool implements Disposable {
+    private static final Logger LOG = Logger.getInstance(MercurialCommandServerPool.class);
+
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long RETRY_AFTER_FAILURE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int MAX_IDLE_SERVERS = 8;
+    private static final long WATCHDOG_INTERVAL_MILLIS = 100;
+
+    // Ruhende Server pro Repository; ein laufender Befehl hat seinen Server ausgeliehen
+    private final Map<String, MercurialCommandServer> idleServers = new HashMap<>();
+    // Repositorys, in denen der Start zuletzt fehlschlug, mit dem Zeitpunkt des nächsten Versuchs
+    private final Map<String, Long> retryAfter = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> reaper;
+    private boolean disposed;
+
+    public MercurialCommandServerPool() {
+        reaper = AppExecutorUtil.getAppScheduledExecutorService()
+                .scheduleWithFixedDelay(this::reapIdleServers, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Gibt die Instanz des Pools zurück.
+     *
+     * @return Der Command-Server-Pool.
+     */
+    public static MercurialCommandServerPool getInstance() {
+        return ApplicationManager.getApplication().getService(MercurialCommandServerPool.class);
+    }
+
+    /**
+     * Führt einen hg-Befehl über einen Command-Server aus.
+     *
+     * @param executable     Das hg-Programm.
+     * @param repositoryPath Das Repository, in dem der Befehl läuft.
+     * @param timeoutMillis  Maximale Laufzeit, 0 für unbegrenzt.
+     * @param arguments      Die hg-Argumente ohne Programmnamen.
+     * @return Das Ergebnis, oder null, wenn kein Server verfügbar ist und der Befehl nicht ausgeführt wurde.
+     * @throws VcsCommandException       Wenn der Server während des Befehls abbricht oder das Timeout überschritten wird.
+     * @throws ProcessCanceledException Wenn der Befehl über den Fortschrittsindikator abgebrochen wurde.
+     */
+    @Nullable
+    public CommandResult run(@NotNull String executable, @NotNull String repositoryPath, long timeoutMillis,
+                             @NotNull List<String> arguments) throws VcsCommandException {
+        String displayCommand = "hg " + String.join(" ", arguments);
+        long start = System.nanoTime();
+        MercurialCommandServer server = acquire(executable, repositoryPath, timeoutMillis);
+        if (server == null) {
+            return null;
+        }
+        try {
+            server.send(arguments);
+        } catch (IOException e) {
+            // Der Befehl kam nicht beim Server an, ein Rückfall auf die Kommandozeile ist gefahrlos
+            LOG.info("Mercurial command server for " + repositoryPath + " is gone: " + e.getMessage());
+            server.kill();
+            return null;
+        }
+
+        AtomicReference<String> abortReason = new AtomicReference<>();
+        ProgressIndicator indicator = ProgressManager.getGlobalProgressIndicator();
+        long deadline = timeoutMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : Long.MAX_VALUE;
+        ScheduledFuture<?> watchdog = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(() -> {
+            if (indicator != null && indicator.isCanceled()) {
+                abortReason.compareAndSet(null, "cancel");
+                server.kill();
+            } else if (System.nanoTime() - deadline > 0) {
+                abortReason.compareAndSet(null, "timeout");
+                server.kill();
+            }
+        }, WATCHDOG_INTERVAL_MILLIS, WATCHDOG_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+        VcsCommandEvent event = new VcsCommandEvent();
+        event.begin();
+        int exitCode = -1;
+        try {
+            CommandResult result = server.receive(start);
+            exitCode = result.getExitCode();
+            release(server);
+            return result;
+        } catch (IOException e) {
+            server.kill();
+            if ("cancel".equals(abortReason.get())) {
+                throw new ProcessCanceledException();
+            }
+            if ("timeout".equals(abortReason.get())) {
+                throw VcsCommandException.forTimeout(displayCommand, timeoutMillis, null);
+            }
+            throw new VcsCommandException("Mercurial command server failed while executing '" + displayCommand + "': " + e.getMessage(), e);
+        } finally {
+            watchdog.cancel(false);
+            PluginMetrics.recordDuration(PluginMetrics.VCS_COMMAND_PREFIX + "hg-server", System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.command = displayCommand;
+                event.workingDirectory = repositoryPath;
+                event.exitCode = exitCode;
+                event.commandServer = true;
+                event.commit();
+            }
+        }
+    }
+
+    @Nullable
+    private MercurialCommandServer acquire(@NotNull String executable, @NotNull String repositoryPath, long timeoutMillis) {
+        synchronized (this) {
+            if (disposed) {
+                return null;
+            }
+            MercurialCommandServer server = idleServers.remove(repositoryPath);
+            if (server != null && server.isAlive() && server.getExecutable().equals(executable)) {
+                return server;
+            }
+            if (server != null) {
+                closeInBackground(server);
+            }
+        }
+
+        Long retryAt = retryAfter.get(repositoryPath);
+        if (retryAt != null && System.currentTimeMillis() < retryAt) {
+            return null;
+        }
+        try {
+            MercurialCommandServer server = MercurialCommandServer.start(executable, repositoryPath, timeoutMillis);
+            retryAfter.remove(repositoryPath);
+            return server;
+        } catch (IOException e) {
+            LOG.info("Could not start Mercurial command server for " + repositoryPath + ", using the command line: " + e.getMessage());
+            retryAfter.put(repositoryPath, System.currentTimeMillis() + RETRY_AFTER_FAILURE_MILLIS);
+            return null;
+        }
+    }
+
+    private void release(@NotNull MercurialCommandServer server) {
+        List<MercurialCommandServer> surplus = new ArrayList<>();
+        synchronized (this) {
+            if (disposed) {
+                surplus.add(server);
+            } else {
+                // Bei parallelen Befehlen im selben Repository bleibt nur ein Server warm
+                MercurialCommandServer previous = idleServers.put(server.getRepositoryPath(), server);
+                if (previous != null) {
+                    surplus.add(previous);
+                }
+                while (idleServers.size() > MAX_IDLE_SERVERS) {
+                    surplus.add(idleServers.remove(leastRecentlyUsed()));
+                }
+            }
+        }
+        surplus.forEach(MercurialCommandServerPool::closeInBackground);
+    }
+
+    @NotNull
+    private String leastRecentlyUsed() {
+        String oldest = null;
+        long oldestNanos = Long.MAX_VALUE;
+        for (MercurialCommandServer server : idleServers.values()) {
+            if (server.getLastUsedNanos() < oldestNanos) {
+                oldestNanos = server.getLastUsedNanos();
+                oldest = server.getRepositoryPath();
+            }
+        }
+        return oldest;
+    }
+
+    private void reapIdleServers() {
+        long now = System.nanoTime();
+        List<MercurialCommandServer> expired = new ArrayList<>();
+        synchronized (this) {
+            Iterator<MercurialCommandServer> iterator = idleServers.values().iterator();
+            while (iterator.hasNext()) {
+                MercurialCommandServer server = iterator.next();
+                if (!server.isAlive() || TimeUnit.NANOSECONDS.toMillis(now - server.getLastUsedNanos()) > IDLE_TIMEOUT_MILLIS) {
+                    iterator.remove();
+                    expired.add(server);
+                }
+            }
+        }
+        expired.forEach(MercurialCommandServer::close);
+    }
+
+    private static void closeInBackground(@NotNull MercurialCommandServer server) {
+        AppExecutorUtil.getAppExecutorService().execute(server::close);
+    }
+
+    @Override
+    public void dispose() {
+        reaper.cancel(false);
+        List<MercurialCommandServer> servers;
+        synchronized (this) {
+            disposed = true;
+            servers = new ArrayList<>(idleServers.values());
+            idleServers.clear();
+        }
+        servers.forEach(MercurialCommandServer::kill);
+    }
+}
@@ -1,20 +1,29 @@
 package ch.coop.intellij.plugins.vcs;
 
 
-import ch.coop.intellij.plugins.CoopPluginSettings;
-import ch.coop.intellij.plugins.helper.RepoHelper;
+import ch.coop.intellij.plugins.helper.CommandLine;
+import ch.coop.intellij.plugins.helper.CommandResult;
+import ch.coop.intellij.plugins.helper.CommandRunner;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
 
 public class MercurialHandler implements VcsHandler {
     private static final Logger LOG = Logger.getInstance(MercurialHandler.class);
 
+    // Netzwerkoperationen dürfen deutlich länger dauern als lokale Befehle
+    private static final long PUSH_TIMEOUT_MILLIS = 5 * 60_000;
+
+    @Override
+    public @NotNull VcsType getVcsType() {
+        return VcsType.MERCURIAL;
+    }
+
     @Override
     public boolean isSupported(@NotNull Project project) {
         return isMercurialAvailable() && new File(project.getBasePath(), ".hg").exists();
@@ -22,44 +31,38 @@ public class MercurialHandler implements VcsHandler {
 
     @Override
     public List<String> getRepositoryPaths(@NotNull Project project) {
-        return RepoHelper.getRepositoryPaths(project, ".hg");
+        return RepositoryCatalog.getInstance(project).getRepositoryPaths(VcsType.MERCURIAL);
     }
 
     @Override
-    public void createBranch(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath, boolean push) throws VcsCommandException {
+    public void createBranch(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath,
+                             @Nullable String baseBranch, boolean push) throws VcsCommandException {
         LOG.info("Creating branch '" + branchName + "' in repository '" + repositoryPath + "'.");
+        // Ein Wechsel des Arbeitsverzeichnisses liesse sich beim Zurückrollen nicht sauber rückgängig machen
+        if (baseBranch != null) {
+            throw new VcsCommandException("A base branch is only supported for Git repositories.");
+        }
 
         try {
             // Branch erstellen
-            int exitCode = RepoHelper.executeCommand(new String[]{"hg", "branch", branchName}, repositoryPath);
-            if (exitCode != 0) {
-                throw VcsCommandException.forCommandFailure("hg branch " + branchName, "Exit code: " + exitCode);
-            }
+            runHg(repositoryPath, CommandLine.DEFAULT_TIMEOUT_MILLIS, "branch", branchName);
 
-            // Branch pushen, wenn in den Einstellungen aktiviert
-            CoopPluginSettings settings = CoopPluginSettings.getInstance();
-            if (settings.getState().autoPush) {
-                pushBranch(branchName, repositoryPath);
+            // Ein neuer benannter Branch existiert erst mit dem ersten Commit; "hg push -b" würde bis dahin immer
+            // scheitern. Er wird daher nicht eingereiht, sondern mit dem ersten Push nach dem Commit übertragen.
+            if (push) {
+                LOG.info("Not pushing Mercurial branch '" + branchName + "': it has no changesets yet.");
             }
         } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to execute Mercurial command: " + e.getMessage(), e);
         }
     }
 
-    /**
-     * Pusht den erstellten Branch in das Remote-Repository.
-     *
-     * @param branchName     Der Name des Branches, der gepusht werden soll.
-     * @param repositoryPath Der Pfad zum Repository.
-     * @throws VcsCommandException Wenn der Push fehlschlägt.
-     */
-    private void pushBranch(@NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException {
+    @Override
+    public void pushBranch(@NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException {
         LOG.info("Pushing branch '" + branchName + "' to remote repository.");
         try {
-            int exitCode = RepoHelper.executeCommand(new String[]{"hg", "push", "--new-branch"}, repositoryPath);
-            if (exitCode != 0) {
-                throw VcsCommandException.forCommandFailure("hg push --new-branch", "Exit code: " + exitCode);
-            }
+            // Nur den neuen Branch pushen, nicht alle ausgehenden Changesets des Repositorys
+            runHg(repositoryPath, PUSH_TIMEOUT_MILLIS, "push", "-b", branchName, "--new-branch");
         } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to push branch: " + e.getMessage(), e);
         }
@@ -68,13 +71,12 @@ public class MercurialHandler implements VcsHandler {
     @Override
     public void undoVcsCommand(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException {
         LOG.info("Deleting branch '" + branchName + "' in repository '" + repositoryPath + "'.");
+        // Ein noch ausstehender Push des Branches ist hinfällig
+        VcsPushQueue.getInstance().cancel(repositoryPath, branchName);
 
         try {
-            // Branch löschen
-            int exitCode = RepoHelper.executeCommand(new String[]{"hg", "branch", "--close-branch", branchName}, repositoryPath);
-            if (exitCode != 0) {
-                throw VcsCommandException.forCommandFailure("hg branch --close-branch " + branchName, "Exit code: " + exitCode);
-            }
+            // Ein neuer Branch existiert bis zum ersten Commit nur im Arbeitsverzeichnis, daher den Namen zurücksetzen
+            runHg(repositoryPath, CommandLine.DEFAULT_TIMEOUT_MILLIS, "branch", "--clean");
         } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to execute Mercurial command: " + e.getMessage(), e);
         }
@@ -82,21 +84,61 @@ public class MercurialHandler implements VcsHandler {
 
     @Override
     public @Nullable String getCurrentBranch(@NotNull Project project, @NotNull String repositoryPath) throws VcsCommandException {
+        // Zuerst direkt aus .hg/branch lesen, nur bei unbekanntem Layout auf die Kommandozeile ausweichen
+        String branch = MercurialMetadataReader.readCurrentBranch(Paths.get(repositoryPath));
+        if (branch != null) {
+            return branch;
+        }
+
         try {
-            Process process = Runtime.getRuntime().exec(new String[]{"hg", "branch"}, null, new File(repositoryPath));
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                String errorOutput = RepoHelper.readProcessOutput(process.getErrorStream());
-                throw VcsCommandException.forCommandFailure("hg branch", errorOutput);
-            }
-            return RepoHelper.readProcessOutput(process.getInputStream()).trim();
-        } catch (IOException | InterruptedException e) {
+            return runHg(repositoryPath, CommandLine.DEFAULT_TIMEOUT_MILLIS, "branch").getStdout().trim();
+        } catch (VcsCommandException e) {
             throw new VcsCommandException("Failed to execute Mercurial command: " + e.getMessage(), e);
         }
     }
 
     private boolean isMercurialAvailable() {
-        return RepoHelper.isVcsToolAvailable(new String[]{"hg", "--version"});
+        return VcsToolRegistry.getInstance().isAvailable(VcsType.MERCURIAL);
+    }
+
+    private static String hg() {
+        return VcsToolRegistry.getInstance().getExecutable(VcsType.MERCURIAL);
+    }
+
+    /**
+     * Führt einen hg-Befehl aus, bevorzugt über einen warmen Command-Server, sonst über die Kommandozeile.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param timeoutMillis  Maximale Laufzeit des Befehls.
+     * @param arguments      Die hg-Argumente ohne Programmnamen.
+     * @return Das Ergebnis eines erfolgreichen Befehls.
+     * @throws VcsCommandException Wenn der Befehl fehlschlägt.
+     */
+    @NotNull
+    private static CommandResult runHg(@NotNull String repositoryPath, long timeoutMillis, @NotNull String... arguments) throws VcsCommandException {
+        CommandResult result = MercurialCommandServerPool.getInstance().run(hg(), repositoryPath, timeoutMillis, List.of(arguments));
+        if (result == null) {
+            result = CommandRunner.run(hgCommand(repositoryPath, arguments).withTimeout(timeoutMillis));
+        }
+        if (!result.isSuccess()) {
+            throw VcsCommandException.forCommandFailure("hg " + String.join(" ", arguments), result.getExitCode(), result.getErrorMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Erstellt einen hg-Befehl mit HGPLAIN, damit Benutzerkonfiguration (Aliase, Farben, Lokalisierung)
+     * die Ausgabe nicht verändert, und ohne interaktive Rückfragen.
+     */
+    @NotNull
+    private static CommandLine hgCommand(@NotNull String repositoryPath, @NotNull String... arguments) {
+        String[] command = new String[arguments.length + 2];
+        command[0] = hg();
+        command[1] = "--noninteractive";
+        System.arraycopy(arguments, 0, command, 2, arguments.length);
+        return new CommandLine(command)
+                .withWorkingDirectory(repositoryPath)
+                .withEnvironment("HGPLAIN", "1");
     }
 
 }
\ No newline at end of file
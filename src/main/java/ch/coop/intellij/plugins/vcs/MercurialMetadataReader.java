@@ -0,0 +1,58 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Liest Mercurial-Metadaten (aktueller Branch, aktives Bookmark) direkt aus dem ".hg"-Verzeichnis, ohne einen
+ * hg-Prozess zu starten.
+ */
+public final class MercurialMetadataReader {
+    private static final String DEFAULT_BRANCH = "default";
+
+    private MercurialMetadataReader() {
+    }
+
+    /**
+     * Liest den aktuellen Branch aus ".hg/branch". Fehlt die Datei, befindet sich das Arbeitsverzeichnis auf dem
+     * Branch "default" (wie bei "hg branch").
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Der Name des Branches oder null, wenn kein ".hg"-Verzeichnis gefunden wurde.
+     */
+    @Nullable
+    public static String readCurrentBranch(@NotNull Path repositoryPath) {
+        Path hgDir = repositoryPath.resolve(".hg");
+        if (!Files.isDirectory(hgDir)) {
+            return null;
+        }
+        Path branchFile = hgDir.resolve("branch");
+        if (!Files.exists(branchFile)) {
+            return DEFAULT_BRANCH;
+        }
+        String branch = GitMetadataReader.readFirstLine(branchFile);
+        if (branch == null) {
+            return null; // Datei vorhanden, aber nicht lesbar
+        }
+        return branch.isEmpty() ? DEFAULT_BRANCH : branch;
+    }
+
+    /**
+     * Liest das aktive Bookmark aus ".hg/bookmarks.current".
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Der Name des aktiven Bookmarks oder null, wenn keines aktiv ist.
+     */
+    @Nullable
+    public static String readActiveBookmark(@NotNull Path repositoryPath) {
+        Path bookmarkFile = repositoryPath.resolve(".hg").resolve("bookmarks.current");
+        if (!Files.isRegularFile(bookmarkFile)) {
+            return null;
+        }
+        String bookmark = GitMetadataReader.readFirstLine(bookmarkFile);
+        return bookmark == null || bookmark.isEmpty() ? null : bookmark;
+    }
+}
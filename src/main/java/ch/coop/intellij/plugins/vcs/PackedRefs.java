@@ -0,0 +1,252 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Liest ".git/packed-refs" und sucht darin binär, ohne die Datei in Strings zu zerlegen.
+ * <p>
+ * Die Datei ist seit Git 2.x nach Ref-Namen sortiert (Kopfzeile "# pack-refs with: ... sorted"). Sie wird in den
+ * Speicher abgebildet, eine Suche springt wie in Git selbst über Byte-Offsets zum nächsten Zeilenanfang und
+ * vergleicht die Ref-Namen byteweise. So kostet eine Abfrage auch bei 50'000 Remote-Refs nur einige Dutzend
+ * Vergleiche. Ältere, unsortierte Dateien werden einmal eingelesen und sortiert.
+ */
+final class PackedRefs {
+    // Kleine Dateien lohnen das Abbilden nicht
+    private static final int MAP_THRESHOLD_BYTES = 32 * 1024;
+    // Unter Windows kann Git eine abgebildete Datei nicht ersetzen, dort wird immer kopiert
+    private static final boolean MAPPING_ALLOWED = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    static final PackedRefs EMPTY = new PackedRefs(ByteBuffer.allocate(0), 0, null);
+
+    private final ByteBuffer buffer;
+    private final int recordsStart;
+    // Nur bei unsortierten Dateien gesetzt
+    private final String[] sortedNames;
+
+    private PackedRefs(@NotNull ByteBuffer buffer, int recordsStart, @Nullable String[] sortedNames) {
+        this.buffer = buffer;
+        this.recordsStart = recordsStart;
+        this.sortedNames = sortedNames;
+    }
+
+    /**
+     * Liest eine packed-refs-Datei.
+     *
+     * @param file Die Datei.
+     * @return Die Refs, leer wenn die Datei nicht existiert.
+     * @throws IOException Wenn die Datei nicht gelesen werden kann.
+     */
+    @NotNull
+    static PackedRefs load(@NotNull Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("packed-refs is too large: " + size + " bytes");
+            }
+            if (MAPPING_ALLOWED && size >= MAP_THRESHOLD_BYTES) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            }
+        } catch (NoSuchFileException e) {
+            return EMPTY;
+        }
+
+        int recordsStart = 0;
+        boolean sorted = false;
+        if (buffer.limit() > 0 && buffer.get(0) == '#') {
+            recordsStart = endOfLine(buffer, 0, buffer.limit());
+            String header = decode(buffer, 0, recordsStart);
+            sorted = (" " + header.trim() + " ").contains(" sorted ");
+        }
+        if (sorted) {
+            return new PackedRefs(buffer, recordsStart, null);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int record = recordsStart; record < buffer.limit(); record = endOfRecord(buffer, record, buffer.limit())) {
+            int nameStart = nameStart(buffer, record, buffer.limit());
+            if (nameStart >= 0) {
+                names.add(decode(buffer, nameStart, lineEnd(buffer, nameStart, buffer.limit())));
+            }
+        }
+        // String.compareTo entspricht für die in Ref-Namen üblichen Zeichen der Byte-Reihenfolge von Git
+        String[] sortedNames = names.toArray(new String[0]);
+        Arrays.sort(sortedNames);
+        return new PackedRefs(buffer, recordsStart, sortedNames);
+    }
+
+    /**
+     * Prüft, ob ein Ref existiert.
+     *
+     * @param refName Der vollständige Ref-Name, z. B. "refs/heads/main".
+     */
+    boolean contains(@NotNull String refName) {
+        if (sortedNames != null) {
+            return Arrays.binarySearch(sortedNames, refName) >= 0;
+        }
+        byte[] key = refName.getBytes(StandardCharsets.UTF_8);
+        int record = lowerBound(key);
+        return record < buffer.limit() && compareName(record, key, false) == 0;
+    }
+
+    /**
+     * Sammelt Ref-Namen mit dem angegebenen Präfix in Sortierreihenfolge.
+     *
+     * @param prefix Das Präfix, z. B. "refs/remotes/origin/feat".
+     * @param limit  Die maximale Anzahl Namen.
+     * @param result Die Sammlung, in die die Namen eingefügt werden.
+     */
+    void collect(@NotNull String prefix, int limit, @NotNull Collection<String> result) {
+        int count = 0;
+        if (sortedNames != null) {
+            int index = Arrays.binarySearch(sortedNames, prefix);
+            for (int i = index >= 0 ? index : -index - 1; i < sortedNames.length && count < limit; i++, count++) {
+                if (!sortedNames[i].startsWith(prefix)) {
+                    return;
+                }
+                result.add(sortedNames[i]);
+            }
+            return;
+        }
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int end = buffer.limit();
+        for (int record = lowerBound(key); record < end && count < limit; record = endOfRecord(buffer, record, end), count++) {
+            if (compareName(record, key, true) != 0) {
+                return;
+            }
+            int nameStart = nameStart(buffer, record, end);
+            result.add(decode(buffer, nameStart, lineEnd(buffer, nameStart, end)));
+        }
+    }
+
+    /**
+     * Prüft, ob ein Ref mit dem Präfix beginnt.
+     */
+    boolean containsPrefix(@NotNull String prefix) {
+        List<String> first = new ArrayList<>(1);
+        collect(prefix, 1, first);
+        return !first.isEmpty();
+    }
+
+    /**
+     * Sucht den ersten Datensatz, dessen Name nicht kleiner als {@code key} ist (Vorgehen wie
+     * "find_reference_location" in Git).
+     */
+    private int lowerBound(@NotNull byte[] key) {
+        int lo = recordsStart;
+        int hi = buffer.limit();
+        while (lo < hi) {
+            int mid = lo + (hi - lo) / 2;
+            int record = startOfRecord(buffer, lo, mid);
+            int cmp = compareName(record, key, false);
+            if (cmp < 0) {
+                lo = endOfRecord(buffer, record, hi);
+            } else if (cmp > 0) {
+                hi = record;
+            } else {
+                return record;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Vergleicht den Namen eines Datensatzes mit {@code key}. Mit {@code prefixOnly} gilt ein Name, der mit
+     * {@code key} beginnt, als gleich.
+     */
+    private int compareName(int record, @NotNull byte[] key, boolean prefixOnly) {
+        int end = buffer.limit();
+        int position = nameStart(buffer, record, end);
+        if (position < 0) {
+            return -1;
+        }
+        for (int i = 0; i < key.length; i++, position++) {
+            if (position >= end || buffer.get(position) == '\n') {
+                return -1; // Name ist kürzer als der Schlüssel
+            }
+            int cmp = Integer.compare(buffer.get(position) & 0xff, key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        if (prefixOnly) {
+            return 0;
+        }
+        return position >= end || buffer.get(position) == '\n' ? 0 : 1;
+    }
+
+    /**
+     * Geht vom Offset {@code position} zurück zum Anfang des Datensatzes, überspringt dabei "^"-Zeilen (peeled Tags).
+     */
+    private static int startOfRecord(@NotNull ByteBuffer buffer, int lo, int position) {
+        while (position > lo && (buffer.get(position - 1) != '\n' || buffer.get(position) == '^')) {
+            position--;
+        }
+        return position;
+    }
+
+    /**
+     * Gibt den Anfang des nächsten Datensatzes zurück, inklusive der zugehörigen "^"-Zeilen.
+     */
+    private static int endOfRecord(@NotNull ByteBuffer buffer, int record, int end) {
+        int position = endOfLine(buffer, record, end);
+        while (position < end && buffer.get(position) == '^') {
+            position = endOfLine(buffer, position, end);
+        }
+        return position;
+    }
+
+    private static int endOfLine(@NotNull ByteBuffer buffer, int position, int end) {
+        int lineEnd = lineEnd(buffer, position, end);
+        return lineEnd < end ? lineEnd + 1 : end;
+    }
+
+    private static int lineEnd(@NotNull ByteBuffer buffer, int position, int end) {
+        while (position < end && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Gibt den Anfang des Ref-Namens nach "&lt;objekt-id&gt; " zurück, oder -1 bei einer ungültigen Zeile.
+     */
+    private static int nameStart(@NotNull ByteBuffer buffer, int record, int end) {
+        for (int position = record; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b == ' ') {
+                return position + 1;
+            }
+            if (b == '\n') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    @NotNull
+    private static String decode(@NotNull ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,379 @@
+package ch.coop.intellij.plugins.vcs;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import ch.coop.intellij.plugins.helper.RepoHelper;
+import ch.coop.intellij.plugins.helper.RepositoryScanner;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistenter Katalog der Repositorys eines Projekts.
+ * <p>
+ * Die Repository-Verzeichnisse werden durch einen vollständigen Scan ermittelt und zusammen mit den dabei
+ * verwendeten Scan-Einstellungen im Workspace gespeichert. Danach wird der Katalog über VFS-Ereignisse
+ * ({@link RepositoryCatalogListener}) aktuell gehalten, sodass der Branch-Dialog die Repositorys ohne erneuten
+ * Dateisystem-Scan anzeigen kann. Neue Verzeichnisse werden dabei einzeln durchsucht und in den Katalog
+ * übernommen ({@link #scheduleSubtreeScan(String)}); ein vollständiger Scan ist nur nach geänderten
+ * Scan-Einstellungen nötig.
+ * <p>
+ * Scans laufen immer im Hintergrund: fehlt der Katalog oder wurde er mit anderen Scan-Einstellungen erstellt,
+ * liefert {@link #getRepositories()} den bisherigen Stand und stösst einen Scan an. Mehrere Anforderungen während
+ * eines laufenden Scans werden zu einem einzigen nachfolgenden Scan zusammengefasst.
+ */
+@State(
+        name = "CoopRepositoryCatalog",
+        storages = {@Storage(StoragePathMacros.WORKSPACE_FILE)}
+)
+public final class RepositoryCatalog implements PersistentStateComponent<RepositoryCatalog.State> {
+    private static final Logger LOG = Logger.getInstance(RepositoryCatalog.class);
+
+    /**
+     * Ein Eintrag im Katalog: Repository-Pfad und VCS-Typ.
+     */
+    public static class Entry {
+        public String path;
+        public String vcs;
+
+        @SuppressWarnings("unused") // Wird für die Serialisierung benötigt
+        public Entry() {
+        }
+
+        public Entry(String path, String vcs) {
+            this.path = path;
+            this.vcs = vcs;
+        }
+    }
+
+    /**
+     * Persistenter Zustand des Katalogs.
+     */
+    public static class State {
+        public List<Entry> repositories = new ArrayList<>();
+        // Die Scan-Einstellungen des letzten vollständigen Scans, null wenn noch nie gescannt wurde
+        public String scanSettings;
+    }
+
+    private final Project project;
+    private final Map<String, VcsType> repositories = new LinkedHashMap<>();
+    private String scanSettings;
+    // Angeforderter, noch nicht gestarteter Scan und ob gerade ein Scan läuft
+    private CompletableFuture<Void> pendingScan;
+    private boolean scanRunning;
+    // Neue Verzeichnisse, die noch einzeln durchsucht werden müssen, und ob dafür eine Aufgabe läuft
+    private final Set<String> pendingSubtrees = new LinkedHashSet<>();
+    private boolean subtreeScanRunning;
+    // Scanner für die aktuellen Scan-Einstellungen, wird bei geänderten Einstellungen neu erstellt
+    private RepositoryScanner scanner;
+    private String scannerSettings;
+
+    public RepositoryCatalog(@NotNull Project project) {
+        this.project = project;
+    }
+
+    /**
+     * Gibt die Instanz des Katalogs für das Projekt zurück.
+     *
+     * @param project Das aktuelle Projekt.
+     * @return Der Repository-Katalog des Projekts.
+     */
+    public static RepositoryCatalog getInstance(@NotNull Project project) {
+        return project.getService(RepositoryCatalog.class);
+    }
+
+    @Override
+    public synchronized @NotNull State getState() {
+        State state = new State();
+        for (Map.Entry<String, VcsType> entry : repositories.entrySet()) {
+            state.repositories.add(new Entry(entry.getKey(), entry.getValue().name()));
+        }
+        state.scanSettings = scanSettings;
+        return state;
+    }
+
+    @Override
+    public synchronized void loadState(@NotNull State state) {
+        repositories.clear();
+        for (Entry entry : state.repositories) {
+            VcsType type = parseVcsType(entry.vcs);
+            if (entry.path != null && type != null) {
+                repositories.put(entry.path, type);
+            }
+        }
+        scanSettings = state.scanSettings;
+    }
+
+    /**
+     * Gibt die Repository-Verzeichnisse eines VCS-Typs zurück. Ist der Katalog nicht aktuell, wird ein Scan im
+     * Hintergrund angestossen und der bisherige Stand geliefert.
+     *
+     * @param type Der VCS-Typ.
+     * @return Eine Liste der Repository-Verzeichnisse.
+     */
+    @NotNull
+    public List<String> getRepositoryPaths(@NotNull VcsType type) {
+        List<String> paths = new ArrayList<>();
+        for (Map.Entry<String, VcsType> entry : getRepositories().entrySet()) {
+            if (entry.getValue() == type) {
+                paths.add(entry.getKey());
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Gibt alle Repository-Verzeichnisse mit ihrem VCS-Typ zurück, ohne das Dateisystem zu durchsuchen. Ist der
+     * Katalog nicht aktuell (siehe {@link #isUpToDate()}) und kein Scan unterwegs, wird ein Scan im Hintergrund
+     * angestossen und der bisherige Stand geliefert.
+     *
+     * @return Die Repository-Verzeichnisse mit ihrem VCS-Typ, in Katalogreihenfolge.
+     */
+    @NotNull
+    public synchronized Map<String, VcsType> getRepositories() {
+        if (!isUpToDate() && pendingScan == null && !scanRunning) {
+            scheduleRescan();
+        }
+        return new LinkedHashMap<>(repositories);
+    }
+
+    /**
+     * Prüft, ob der Katalog mit den aktuellen Scan-Einstellungen erstellt wurde.
+     *
+     * @return true, wenn kein Scan nötig ist.
+     */
+    public synchronized boolean isUpToDate() {
+        return currentScanSettings().equals(scanSettings);
+    }
+
+    /**
+     * Gibt den VCS-Typ eines Repository-Verzeichnisses zurück.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @return Der VCS-Typ oder null, wenn das Verzeichnis nicht im Katalog ist.
+     */
+    @Nullable
+    public synchronized VcsType getVcsType(@NotNull String repositoryPath) {
+        return repositories.get(normalizePath(repositoryPath));
+    }
+
+    /**
+     * Fordert einen vollständigen Scan im Hintergrund an. Läuft bereits ein Scan, folgt nach dessen Ende genau ein
+     * weiterer, damit auch Änderungen während des laufenden Scans erfasst werden.
+     *
+     * @return Wird abgeschlossen, sobald der angeforderte Scan den Katalog ersetzt hat.
+     */
+    @NotNull
+    public synchronized CompletableFuture<Void> scheduleRescan() {
+        if (pendingScan == null) {
+            pendingScan = new CompletableFuture<>();
+            if (!scanRunning) {
+                startScan();
+            }
+        }
+        return pendingScan;
+    }
+
+    /**
+     * Durchsucht das Projekt vollständig (in einem einzigen Durchlauf für alle VCS-Typen) und ersetzt den
+     * Inhalt des Katalogs. Blockiert; auf dem EDT stattdessen {@link #scheduleRescan()} verwenden.
+     */
+    public void rescan() {
+        // Vor dem Scan lesen: ändern sich die Einstellungen währenddessen, gilt der Katalog danach als veraltet
+        String settings = currentScanSettings();
+        Map<String, VcsType> found = new LinkedHashMap<>();
+        for (Map.Entry<String, VcsType> entry : RepoHelper.getRepositories(project).entrySet()) {
+            found.put(normalizePath(entry.getKey()), entry.getValue());
+        }
+        synchronized (this) {
+            repositories.clear();
+            repositories.putAll(found);
+            scanSettings = settings;
+        }
+        LOG.info("Repository catalog rescanned: " + found.size() + " repositories found.");
+    }
+
+    /**
+     * Fordert an, ein neu angelegtes, verschobenes oder umbenanntes Verzeichnis im Hintergrund zu durchsuchen und
+     * die gefundenen Repositorys in den Katalog zu übernehmen. Verzeichnisse, die ein vollständiger Scan nicht
+     * betreten würde (ausgeschlossen, zu tief oder ohne verschachtelte Repositorys innerhalb eines bekannten
+     * Repositorys), werden sofort verworfen, sodass z. B. Build-Ausgaben keinen Scan auslösen.
+     *
+     * @param directoryPath Der Pfad zum Verzeichnis.
+     */
+    public synchronized void scheduleSubtreeScan(@NotNull String directoryPath) {
+        String basePath = project.getBasePath();
+        if (basePath == null || !isUpToDate()) {
+            return; // Der ausstehende vollständige Scan erfasst das Verzeichnis ohnehin
+        }
+        String directory = normalizePath(directoryPath);
+        if (!getScanner().isScanned(Paths.get(normalizePath(basePath)), Paths.get(directory))) {
+            return;
+        }
+        if (!CoopPluginSettings.getInstance().getSnapshot().nestedRepositories && isInsideRepository(directory)) {
+            return;
+        }
+        if (pendingSubtrees.add(directory) && !subtreeScanRunning) {
+            subtreeScanRunning = true;
+            AppExecutorUtil.getAppExecutorService().execute(this::scanPendingSubtrees);
+        }
+    }
+
+    /**
+     * Durchsucht die angeforderten Verzeichnisse nacheinander und ersetzt jeweils die Einträge darunter.
+     */
+    private void scanPendingSubtrees() {
+        while (true) {
+            String directory;
+            RepositoryScanner subtreeScanner;
+            synchronized (this) {
+                if (pendingSubtrees.isEmpty() || project.isDisposed()) {
+                    pendingSubtrees.clear();
+                    subtreeScanRunning = false;
+                    return;
+                }
+                directory = pendingSubtrees.iterator().next();
+                pendingSubtrees.remove(directory);
+                subtreeScanner = getScanner();
+            }
+            String basePath = project.getBasePath();
+            if (basePath == null) {
+                continue;
+            }
+            try {
+                Map<Path, String> found = subtreeScanner.scanSubtree(Paths.get(normalizePath(basePath)), Paths.get(directory));
+                synchronized (this) {
+                    removeRepositoriesUnder(directory);
+                    for (Map.Entry<Path, String> entry : found.entrySet()) {
+                        repositories.put(normalizePath(entry.getKey().toString()), VcsType.forMarkerName(entry.getValue()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Repository scan of '" + directory + "' failed", e);
+            }
+        }
+    }
+
+    private boolean isInsideRepository(@NotNull String directory) {
+        for (String repository : repositories.keySet()) {
+            if (directory.startsWith(repository.endsWith(File.separator) ? repository : repository + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gibt den Scanner für die aktuellen Scan-Einstellungen zurück. Muss mit gehaltener Sperre aufgerufen werden.
+     */
+    @NotNull
+    private RepositoryScanner getScanner() {
+        String settings = currentScanSettings();
+        if (scanner == null || !settings.equals(scannerSettings)) {
+            scanner = RepoHelper.createScanner();
+            scannerSettings = settings;
+        }
+        return scanner;
+    }
+
+    /**
+     * Nimmt ein Repository in den Katalog auf.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param type           Der VCS-Typ.
+     */
+    public synchronized void addRepository(@NotNull String repositoryPath, @NotNull VcsType type) {
+        repositories.putIfAbsent(normalizePath(repositoryPath), type);
+    }
+
+    /**
+     * Entfernt ein Repository aus dem Katalog, sofern es vom angegebenen Typ ist.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param type           Der VCS-Typ.
+     */
+    public synchronized void removeRepository(@NotNull String repositoryPath, @NotNull VcsType type) {
+        repositories.remove(normalizePath(repositoryPath), type);
+    }
+
+    /**
+     * Entfernt alle Repositorys, die sich im angegebenen Verzeichnis oder darunter befinden.
+     *
+     * @param directoryPath Der Pfad zum gelöschten oder verschobenen Verzeichnis.
+     */
+    public synchronized void removeRepositoriesUnder(@NotNull String directoryPath) {
+        String directory = normalizePath(directoryPath);
+        String prefix = directory.endsWith(File.separator) ? directory : directory + File.separator;
+        repositories.keySet().removeIf(path -> path.equals(directory) || path.startsWith(prefix));
+    }
+
+    /**
+     * Startet den angeforderten Scan. Muss mit gehaltener Sperre aufgerufen werden.
+     */
+    private void startScan() {
+        CompletableFuture<Void> future = pendingScan;
+        pendingScan = null;
+        scanRunning = true;
+        AppExecutorUtil.getAppExecutorService().execute(() -> {
+            try {
+                if (!project.isDisposed()) {
+                    rescan();
+                }
+                future.complete(null);
+            } catch (RuntimeException e) {
+                LOG.warn("Repository scan failed", e);
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (RepositoryCatalog.this) {
+                    scanRunning = false;
+                    if (pendingScan != null) {
+                        startScan();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Fasst die Einstellungen zusammen, die das Ergebnis eines Scans bestimmen.
+     */
+    @NotNull
+    private static String currentScanSettings() {
+        SettingsSnapshot settings = CoopPluginSettings.getInstance().getSnapshot();
+        return settings.repositoryScanExcludes + '\n' + settings.repositoryScanMaxDepth + '\n' + settings.nestedRepositories;
+    }
+
+    @Nullable
+    private static VcsType parseVcsType(@Nullable String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return VcsType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    static String normalizePath(@NotNull String path) {
+        return new File(path).getAbsolutePath();
+    }
+}
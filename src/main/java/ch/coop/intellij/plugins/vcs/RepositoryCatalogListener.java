@@ -0,0 +1,111 @@
+package ch.coop.intellij.plugins.vcs;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Hält den {@link RepositoryCatalog} über VFS-Ereignisse aktuell.
+ * <p>
+ * Ein neues oder gelöschtes Repository-Verzeichnis (".git" oder ".hg") wird direkt im Katalog nachgeführt. Wird
+ * dagegen ein anderes Verzeichnis im Projekt angelegt, verschoben oder umbenannt, können darunter Repositorys liegen,
+ * für die kein eigenes Ereignis kommt (z. B. nach einem Clone oder beim Umbenennen eines übergeordneten
+ * Verzeichnisses). Dann wird nur dieses Verzeichnis durchsucht, sofern es nicht ausgeschlossen ist (siehe
+ * {@link RepositoryCatalog#scheduleSubtreeScan(String)}). Änderungen innerhalb der Repository-Verzeichnisse selbst
+ * werden ignoriert.
+ */
+public class RepositoryCatalogListener implements BulkFileListener {
+    private final Project project;
+
+    public RepositoryCatalogListener(@NotNull Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void after(@NotNull List<? extends VFileEvent> events) {
+        if (project.isDisposed()) {
+            return;
+        }
+        RepositoryCatalog catalog = RepositoryCatalog.getInstance(project);
+        for (VFileEvent event : events) {
+            if (event instanceof VFileCreateEvent) {
+                pathCreated(catalog, event.getPath(), ((VFileCreateEvent) event).isDirectory());
+            } else if (event instanceof VFileDeleteEvent) {
+                pathDeleted(catalog, event.getPath());
+            } else if (event instanceof VFileMoveEvent) {
+                VFileMoveEvent moveEvent = (VFileMoveEvent) event;
+                pathDeleted(catalog, moveEvent.getOldPath());
+                pathCreated(catalog, moveEvent.getNewPath(), isDirectory(event));
+            } else if (event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent) event).isRename()) {
+                VFilePropertyChangeEvent renameEvent = (VFilePropertyChangeEvent) event;
+                pathDeleted(catalog, renameEvent.getOldPath());
+                pathCreated(catalog, renameEvent.getNewPath(), isDirectory(event));
+            }
+        }
+    }
+
+    /**
+     * Führt ein neues Repository-Verzeichnis im Katalog nach bzw. lässt ein anderes neues Verzeichnis durchsuchen.
+     */
+    private void pathCreated(@NotNull RepositoryCatalog catalog, @NotNull String path, boolean directory) {
+        File file = new File(path);
+        if (file.getParent() == null || !isInProject(file.getParent()) || isInsideMarker(file.getParent())) {
+            return;
+        }
+        VcsType type = VcsType.forMarkerName(file.getName());
+        if (type != null) {
+            catalog.addRepository(file.getParent(), type);
+        } else if (directory) {
+            catalog.scheduleSubtreeScan(path);
+        }
+    }
+
+    private void pathDeleted(@NotNull RepositoryCatalog catalog, @NotNull String path) {
+        File file = new File(path);
+        VcsType type = VcsType.forMarkerName(file.getName());
+        if (type != null && file.getParent() != null) {
+            catalog.removeRepository(file.getParent(), type);
+        } else {
+            catalog.removeRepositoriesUnder(path);
+        }
+    }
+
+    private static boolean isDirectory(@NotNull VFileEvent event) {
+        VirtualFile file = event.getFile();
+        return file != null && file.isDirectory();
+    }
+
+    /**
+     * Prüft, ob der Pfad in einem Repository-Verzeichnis (".git" oder ".hg") liegt, wo Git und Mercurial laufend
+     * Verzeichnisse anlegen.
+     */
+    private static boolean isInsideMarker(@NotNull String path) {
+        for (Path segment : Paths.get(path)) {
+            if (VcsType.forMarkerName(segment.toString()) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInProject(@NotNull String path) {
+        String basePath = project.getBasePath();
+        if (basePath == null) {
+            return false;
+        }
+        String base = RepositoryCatalog.normalizePath(basePath);
+        String candidate = RepositoryCatalog.normalizePath(path);
+        return candidate.equals(base) || candidate.startsWith(base + File.separator);
+    }
+}
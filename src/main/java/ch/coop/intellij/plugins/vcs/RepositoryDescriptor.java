@@ -0,0 +1,60 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Beschreibt ein gefundenes Repository: Pfad, VCS-Typ und den zuständigen VCS-Handler.
+ */
+public final class RepositoryDescriptor {
+    private final String path;
+    private final VcsType vcsType;
+    private final VcsHandler handler;
+
+    public RepositoryDescriptor(@NotNull String path, @NotNull VcsType vcsType, @NotNull VcsHandler handler) {
+        this.path = path;
+        this.vcsType = vcsType;
+        this.handler = handler;
+    }
+
+    @NotNull
+    public String getPath() {
+        return path;
+    }
+
+    @NotNull
+    public VcsType getVcsType() {
+        return vcsType;
+    }
+
+    @NotNull
+    public VcsHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RepositoryDescriptor)) {
+            return false;
+        }
+        RepositoryDescriptor that = (RepositoryDescriptor) o;
+        return path.equals(that.path) && vcsType == that.vcsType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, vcsType);
+    }
+
+    /**
+     * Gibt den Pfad zurück, damit der Deskriptor direkt in Auswahllisten angezeigt werden kann.
+     */
+    @Override
+    public String toString() {
+        return path;
+    }
+}
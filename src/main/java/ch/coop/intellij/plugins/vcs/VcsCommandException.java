@@ -6,13 +6,29 @@ package ch.coop.intellij.plugins.vcs;
 public class VcsCommandException extends Exception {
     private static final long serialVersionUID = 1L;
 
+    private final int exitCode;
+    private final String errorOutput;
+
     /**
      * Constructs a new VcsCommandException with the specified detail message.
      *
      * @param message The detail message.
      */
     public VcsCommandException(String message) {
+        this(message, -1, null);
+    }
+
+    /**
+     * Constructs a new VcsCommandException for a command that ran but failed.
+     *
+     * @param message The detail message.
+     * @param exitCode The exit code of the command, or -1 if it did not terminate normally.
+     * @param errorOutput The captured error output of the command.
+     */
+    public VcsCommandException(String message, int exitCode, String errorOutput) {
         super(message);
+        this.exitCode = exitCode;
+        this.errorOutput = errorOutput;
     }
 
     /**
@@ -23,6 +39,31 @@ public class VcsCommandException extends Exception {
      */
     public VcsCommandException(String message, Throwable cause) {
         super(message, cause);
+        if (cause instanceof VcsCommandException) {
+            this.exitCode = ((VcsCommandException) cause).exitCode;
+            this.errorOutput = ((VcsCommandException) cause).errorOutput;
+        } else {
+            this.exitCode = -1;
+            this.errorOutput = null;
+        }
+    }
+
+    /**
+     * Returns the exit code of the failed command.
+     *
+     * @return The exit code, or -1 if unknown.
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * Returns the captured error output (stderr) of the failed command.
+     *
+     * @return The error output, or null if none was captured.
+     */
+    public String getErrorOutput() {
+        return errorOutput;
     }
 
     /**
@@ -36,6 +77,34 @@ public class VcsCommandException extends Exception {
         return new VcsCommandException("Failed to execute command '" + command + "': " + errorOutput);
     }
 
+    /**
+     * Creates a VcsCommandException for a command that exited with a non-zero exit code.
+     *
+     * @param command The failed command.
+     * @param exitCode The exit code of the command.
+     * @param errorOutput The captured error output of the command.
+     * @return A VcsCommandException with a user-friendly error message.
+     */
+    public static VcsCommandException forCommandFailure(String command, int exitCode, String errorOutput) {
+        return new VcsCommandException("Failed to execute command '" + command + "': " + errorOutput, exitCode, errorOutput);
+    }
+
+    /**
+     * Creates a VcsCommandException for a command that exceeded its timeout.
+     *
+     * @param command The command that was terminated.
+     * @param timeoutMillis The timeout in milliseconds.
+     * @param errorOutput The error output captured until the command was terminated.
+     * @return A VcsCommandException with a user-friendly error message.
+     */
+    public static VcsCommandException forTimeout(String command, long timeoutMillis, String errorOutput) {
+        String message = "Command '" + command + "' did not finish within " + timeoutMillis + " ms";
+        if (errorOutput != null && !errorOutput.isBlank()) {
+            message += ": " + errorOutput.trim();
+        }
+        return new VcsCommandException(message, -1, errorOutput);
+    }
+
     /**
      * Creates a VcsCommandException for an unavailable path.
      *
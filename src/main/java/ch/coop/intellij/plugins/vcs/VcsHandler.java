@@ -7,6 +7,14 @@ import org.jetbrains.annotations.Nullable;
 import java.util.List;
 
 public interface VcsHandler {
+    /**
+     * Gibt den VCS-Typ zurück, für den dieser Handler zuständig ist.
+     *
+     * @return Der VCS-Typ.
+     */
+    @NotNull
+    VcsType getVcsType();
+
     /**
      * Überprüft, ob das VCS-System im Projekt unterstützt wird.
      *
@@ -29,9 +37,21 @@ public interface VcsHandler {
      * @param project        Das aktuelle Projekt.
      * @param branchName     Der Name des neuen Branches.
      * @param repositoryPath Der Pfad zum Repository.
+     * @param baseBranch     Der Branch, von dem abgezweigt wird, oder null für den aktuellen Stand.
+     * @param push           true, wenn der Branch anschliessend im Hintergrund gepusht werden soll.
      * @throws VcsCommandException Wenn der Befehl fehlschlägt.
      */
-    void createBranch(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath, boolean push) throws VcsCommandException;
+    void createBranch(@NotNull Project project, @NotNull String branchName, @NotNull String repositoryPath,
+                      @Nullable String baseBranch, boolean push) throws VcsCommandException;
+
+    /**
+     * Pusht einen Branch in das Remote-Repository. Wird von der {@link VcsPushQueue} im Hintergrund aufgerufen.
+     *
+     * @param branchName     Der Name des Branches, der gepusht werden soll.
+     * @param repositoryPath Der Pfad zum Repository.
+     * @throws VcsCommandException Wenn der Push fehlschlägt.
+     */
+    void pushBranch(@NotNull String branchName, @NotNull String repositoryPath) throws VcsCommandException;
 
     /**
      * Führt einen VCS-Befehl aus, um einen Branch zu löschen oder rückgängig zu machen.
@@ -5,15 +5,23 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 public class VcsHandlerManager {
     private final List<VcsHandler> handlers = new ArrayList<>();
+    private final Map<VcsType, VcsHandler> handlersByType = new EnumMap<>(VcsType.class);
 
     public VcsHandlerManager() {
         // Registriere die unterstützten VCS-Handler
-        handlers.add(new GitHandler());
-        handlers.add(new MercurialHandler());
+        register(new GitHandler());
+        register(new MercurialHandler());
+    }
+
+    private void register(@NotNull VcsHandler handler) {
+        handlers.add(handler);
+        handlersByType.put(handler.getVcsType(), handler);
     }
 
     /**
@@ -25,6 +33,36 @@ public class VcsHandlerManager {
         return handlers;
     }
 
+    /**
+     * Gibt den VCS-Handler für einen VCS-Typ zurück.
+     *
+     * @param type Der VCS-Typ.
+     * @return Der zuständige VCS-Handler oder null, wenn keiner registriert ist.
+     */
+    @Nullable
+    public VcsHandler getHandler(@NotNull VcsType type) {
+        return handlersByType.get(type);
+    }
+
+    /**
+     * Gibt alle Repositorys des Projekts mit ihrem zuständigen VCS-Handler zurück. Die Repositorys stammen aus dem
+     * {@link RepositoryCatalog}, es werden also keine zusätzlichen Dateisystemzugriffe ausgeführt.
+     *
+     * @param project Das aktuelle Projekt.
+     * @return Eine Liste der Repository-Deskriptoren.
+     */
+    @NotNull
+    public List<RepositoryDescriptor> getRepositories(@NotNull Project project) {
+        List<RepositoryDescriptor> repositories = new ArrayList<>();
+        for (Map.Entry<String, VcsType> entry : RepositoryCatalog.getInstance(project).getRepositories().entrySet()) {
+            VcsHandler handler = handlersByType.get(entry.getValue());
+            if (handler != null) {
+                repositories.add(new RepositoryDescriptor(entry.getKey(), entry.getValue(), handler));
+            }
+        }
+        return repositories;
+    }
+
     /**
      * Gibt den unterstützten VCS-Handler für das Projekt zurück.
      *
@@ -51,7 +89,7 @@ public class VcsHandlerManager {
     public String getDetectedVcsName(@NotNull Project project) {
         VcsHandler handler = getSupportedHandler(project);
         if (handler != null) {
-            return handler.getClass().getSimpleName().replace("Handler", "");
+            return handler.getVcsType().getDisplayName();
         }
         return "No VCS detected";
     }
@@ -0,0 +1,325 @@
+package ch.coop.intellij.plugins.vcs;
+
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationAction;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.RoamingType;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warteschlange für Pushes, die im Hintergrund ausgeführt werden.
+ * <p>
+ * Ein neu erstellter Branch wird lokal sofort angelegt und hier eingereiht. Schlägt ein Push vorübergehend fehl
+ * (Netzwerk nicht erreichbar, Zeitüberschreitung oder gesperrtes Repository), wird er mit exponentiell wachsendem
+ * Abstand erneut versucht. Alle anderen Fehler (z. B. fehlende Berechtigung oder unbekannte Revision) lassen sich
+ * durch Warten nicht beheben und werden sofort gemeldet. Ausstehende Pushes werden gespeichert und nach einem
+ * Neustart der IDE fortgesetzt. Erfolg und endgültiges Scheitern werden gemeldet.
+ */
+@State(
+        name = "CoopPushQueue",
+        storages = {@Storage(value = "coop-push-queue.xml", roamingType = RoamingType.DISABLED)}
+)
+public final class VcsPushQueue implements PersistentStateComponent<VcsPushQueue.State>, Disposable {
+    private static final Logger LOG = Logger.getInstance(VcsPushQueue.class);
+
+    public static final String NOTIFICATION_GROUP = "Coop Plugins";
+
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int MAX_PARALLEL_PUSHES = 2;
+    // Fehlermeldungen von git und hg, nach denen sich ein erneuter Versuch lohnt (kleingeschrieben)
+    private static final List<String> TRANSIENT_ERRORS = List.of(
+            "did not finish within", "timed out", "could not resolve host", "temporary failure in name resolution",
+            "name or service not known", "connection refused", "connection reset", "connection closed",
+            "network is unreachable", "no route to host", "remote end hung up unexpectedly", "early eof",
+            "http 502", "http 503", "http 504", "503 service unavailable",
+            "index.lock", "unable to lock", "cannot lock ref", "waiting for lock", "lock held by");
+
+    /**
+     * Ein ausstehender Push.
+     */
+    public static class Entry {
+        public String repositoryPath;
+        public String vcs;
+        public String branchName;
+        public int attempts;
+        public long nextAttemptAt;
+        public String lastError;
+
+        @SuppressWarnings("unused") // Wird für die Serialisierung benötigt
+        public Entry() {
+        }
+
+        Entry(@NotNull String repositoryPath, @NotNull String vcs, @NotNull String branchName) {
+            this.repositoryPath = repositoryPath;
+            this.vcs = vcs;
+            this.branchName = branchName;
+        }
+
+        @NotNull
+        Entry copy() {
+            Entry copy = new Entry(repositoryPath, vcs, branchName);
+            copy.attempts = attempts;
+            copy.nextAttemptAt = nextAttemptAt;
+            copy.lastError = lastError;
+            return copy;
+        }
+
+        boolean matches(@NotNull String repositoryPath, @NotNull String branchName) {
+            return this.repositoryPath.equals(repositoryPath) && this.branchName.equals(branchName);
+        }
+    }
+
+    /**
+     * Persistenter Zustand der Warteschlange.
+     */
+    public static class State {
+        public List<Entry> pending = new ArrayList<>();
+    }
+
+    // Alle ausstehenden Pushes, auch die gerade laufenden; geschützt durch this
+    private final List<Entry> pending = new ArrayList<>();
+    private final List<Entry> running = new ArrayList<>();
+    private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Coop Push Queue", MAX_PARALLEL_PUSHES);
+    private ScheduledFuture<?> wakeUp;
+    private boolean disposed;
+
+    /**
+     * Gibt die Instanz der Warteschlange zurück.
+     *
+     * @return Die Push-Warteschlange.
+     */
+    public static VcsPushQueue getInstance() {
+        return ApplicationManager.getApplication().getService(VcsPushQueue.class);
+    }
+
+    @Override
+    public synchronized @NotNull State getState() {
+        State state = new State();
+        for (Entry entry : pending) {
+            state.pending.add(entry.copy());
+        }
+        return state;
+    }
+
+    @Override
+    public void loadState(@NotNull State state) {
+        synchronized (this) {
+            pending.clear();
+            for (Entry entry : state.pending) {
+                if (entry.repositoryPath != null && entry.branchName != null && isKnownType(entry.vcs)) {
+                    pending.add(entry.copy());
+                }
+            }
+        }
+        if (!state.pending.isEmpty()) {
+            LOG.info("Resuming " + state.pending.size() + " pending pushes.");
+        }
+        schedule();
+    }
+
+    /**
+     * Reiht einen Push ein; er wird sofort im Hintergrund gestartet.
+     *
+     * @param type           Der VCS-Typ des Repositorys.
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param branchName     Der Name des Branches.
+     */
+    public void enqueue(@NotNull VcsType type, @NotNull String repositoryPath, @NotNull String branchName) {
+        synchronized (this) {
+            if (pending.stream().anyMatch(entry -> entry.matches(repositoryPath, branchName))) {
+                return;
+            }
+            pending.add(new Entry(repositoryPath, type.name(), branchName));
+        }
+        schedule();
+    }
+
+    /**
+     * Entfernt einen noch nicht ausgeführten Push, z. B. wenn der Branch wieder gelöscht wurde.
+     * Ein gerade laufender Push wird nicht abgebrochen.
+     *
+     * @param repositoryPath Der Pfad zum Repository.
+     * @param branchName     Der Name des Branches.
+     */
+    public synchronized void cancel(@NotNull String repositoryPath, @NotNull String branchName) {
+        pending.removeIf(entry -> !running.contains(entry) && entry.matches(repositoryPath, branchName));
+    }
+
+    /**
+     * Gibt die Anzahl ausstehender Pushes zurück.
+     *
+     * @return Die Anzahl der Pushes, die noch nicht erfolgreich waren.
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Startet alle fälligen Pushes und plant das Aufwachen für den nächsten Wiederholungsversuch.
+     */
+    private synchronized void schedule() {
+        if (disposed) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        long now = System.currentTimeMillis();
+        long nextDue = Long.MAX_VALUE;
+        for (Entry entry : pending) {
+            if (running.contains(entry)) {
+                continue;
+            }
+            if (entry.nextAttemptAt <= now) {
+                running.add(entry);
+                executor.execute(() -> push(entry));
+            } else {
+                nextDue = Math.min(nextDue, entry.nextAttemptAt);
+            }
+        }
+        if (nextDue != Long.MAX_VALUE) {
+            wakeUp = AppExecutorUtil.getAppScheduledExecutorService().schedule(this::schedule, nextDue - now, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void push(@NotNull Entry entry) {
+        try {
+            if (!new File(entry.repositoryPath).isDirectory()) {
+                LOG.warn("Dropping push of '" + entry.branchName + "': repository " + entry.repositoryPath + " no longer exists.");
+                remove(entry);
+                return;
+            }
+            VcsHandler handler = new VcsHandlerManager().getHandler(VcsType.valueOf(entry.vcs));
+            handler.pushBranch(entry.branchName, entry.repositoryPath);
+            remove(entry);
+            notify("Branch pushed", "Branch '" + entry.branchName + "' was pushed from " + entry.repositoryPath + ".", NotificationType.INFORMATION, null);
+        } catch (Exception e) {
+            // Auch unerwartete Fehler beenden den Eintrag, sonst würde er sofort erneut gestartet
+            retryOrGiveUp(entry, e);
+        } finally {
+            synchronized (this) {
+                running.remove(entry);
+            }
+            schedule();
+        }
+    }
+
+    private void retryOrGiveUp(@NotNull Entry entry, @NotNull Exception e) {
+        String error = describe(e);
+        synchronized (this) {
+            entry.attempts++;
+            entry.lastError = error;
+            if (isTransient(e) && entry.attempts < MAX_ATTEMPTS) {
+                long delay = backoffMillis(entry.attempts);
+                entry.nextAttemptAt = System.currentTimeMillis() + delay;
+                LOG.info("Push of '" + entry.branchName + "' in " + entry.repositoryPath + " failed (attempt " + entry.attempts
+                        + "), retrying in " + delay / 1000 + " s: " + error);
+                return;
+            }
+            pending.remove(entry);
+        }
+
+        LOG.warn("Giving up push of '" + entry.branchName + "' in " + entry.repositoryPath + " after " + entry.attempts + " attempts: " + error);
+        VcsType type = VcsType.valueOf(entry.vcs);
+        String attempts = entry.attempts > 1 ? " after " + entry.attempts + " attempts" : "";
+        notify("Push failed",
+                "Branch '" + entry.branchName + "' could not be pushed from " + entry.repositoryPath + attempts + ": " + error,
+                NotificationType.ERROR,
+                NotificationAction.createSimpleExpiring("Retry", () -> enqueue(type, entry.repositoryPath, entry.branchName)));
+    }
+
+    /**
+     * Prüft, ob ein Fehler vorübergehend ist (Netzwerk, Zeitüberschreitung, Sperre) und ein erneuter Versuch
+     * Erfolg haben kann.
+     */
+    static boolean isTransient(@NotNull Exception e) {
+        if (!(e instanceof VcsCommandException)) {
+            return false;
+        }
+        String errorOutput = ((VcsCommandException) e).getErrorOutput();
+        String text = (e.getMessage() + "\n" + (errorOutput != null ? errorOutput : "")).toLowerCase(Locale.ROOT);
+        for (String pattern : TRANSIENT_ERRORS) {
+            if (text.contains(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static String describe(@NotNull Exception e) {
+        if (e instanceof VcsCommandException) {
+            String errorOutput = ((VcsCommandException) e).getErrorOutput();
+            if (errorOutput != null && !errorOutput.isBlank()) {
+                return errorOutput.trim();
+            }
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * Berechnet die Wartezeit vor dem nächsten Versuch: verdoppelt sich pro Fehlversuch, mit bis zu 20 % Zufallsanteil,
+     * damit nicht alle Pushes nach einem Netzwerkausfall gleichzeitig starten.
+     */
+    static long backoffMillis(int attempts) {
+        long base = INITIAL_BACKOFF_MILLIS << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, MAX_BACKOFF_MILLIS);
+        return capped + ThreadLocalRandom.current().nextLong(capped / 5 + 1);
+    }
+
+    private static boolean isKnownType(String name) {
+        for (VcsType type : VcsType.values()) {
+            if (type.name().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void remove(@NotNull Entry entry) {
+        pending.remove(entry);
+    }
+
+    private static void notify(@NotNull String title, @NotNull String content, @NotNull NotificationType type, @Nullable NotificationAction action) {
+        Notification notification = NotificationGroupManager.getInstance()
+                .getNotificationGroup(NOTIFICATION_GROUP)
+                .createNotification(title, content, type);
+        if (action != null) {
+            notification.addAction(action);
+        }
+        notification.notify(null);
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (this) {
+            disposed = true;
+            if (wakeUp != null) {
+                wakeUp.cancel(false);
+                wakeUp = null;
+            }
+        }
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,16 @@
+package ch.coop.intellij.plugins.vcs;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Lädt die {@link VcsPushQueue} nach dem Start, damit gespeicherte Pushes auch dann fortgesetzt werden, wenn in
+ * dieser Sitzung kein neuer Branch erstellt wird. Der Service wird sonst erst beim ersten Zugriff erzeugt.
+ */
+public class VcsPushQueueStartupActivity implements StartupActivity.DumbAware {
+    @Override
+    public void runActivity(@NotNull Project project) {
+        VcsPushQueue.getInstance();
+    }
+}
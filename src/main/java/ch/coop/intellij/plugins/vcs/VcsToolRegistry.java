@@ -0,0 +1,225 @@
+package ch.coop.intellij.plugins.vcs;
+
+import ch.coop.intellij.plugins.CoopPluginSettings;
+import ch.coop.intellij.plugins.SettingsSnapshot;
+import ch.coop.intellij.plugins.helper.CommandLine;
+import ch.coop.intellij.plugins.helper.CommandResult;
+import ch.coop.intellij.plugins.helper.CommandRunner;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.EnvironmentUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registry der VCS-Kommandozeilenwerkzeuge (git, hg).
+ * <p>
+ * Jedes Werkzeug wird nur einmal geprüft: Der absolute Pfad wird über den PATH aufgelöst, "--version" einmal
+ * ausgeführt und die Version ausgelesen. Das Ergebnis wird zwischengespeichert, bis sich der PATH oder die
+ * konfigurierten Programmpfade ändern.
+ */
+public final class VcsToolRegistry {
+    private static final Logger LOG = Logger.getInstance(VcsToolRegistry.class);
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)+)");
+    // Ein hängendes Programm (z. B. Netzlaufwerk im PATH) soll die Prüfung nicht blockieren
+    private static final long PROBE_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Ergebnis der Prüfung eines VCS-Werkzeugs.
+     */
+    public static final class ToolInfo {
+        private final String executable;
+        private final String version;
+        private final boolean available;
+
+        ToolInfo(@NotNull String executable, @Nullable String version, boolean available) {
+            this.executable = executable;
+            this.version = version;
+            this.available = available;
+        }
+
+        /**
+         * Gibt den absoluten Pfad des Programms zurück oder den konfigurierten Namen, wenn er nicht aufgelöst
+         * werden konnte.
+         */
+        @NotNull
+        public String getExecutable() {
+            return executable;
+        }
+
+        /**
+         * Gibt die ausgelesene Version zurück (z. B. "2.43.0") oder null, wenn sie nicht ermittelt werden konnte.
+         */
+        @Nullable
+        public String getVersion() {
+            return version;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+    }
+
+    // Pro Werkzeug eine Zukunft: Wer sie einträgt, prüft; gleichzeitige Aufrufer warten auf dasselbe Ergebnis
+    private final Map<VcsType, CompletableFuture<ToolInfo>> tools = new ConcurrentHashMap<>();
+    private volatile String cacheKey;
+
+    /**
+     * Gibt die Instanz der Registry zurück.
+     *
+     * @return Die Registry der VCS-Werkzeuge.
+     */
+    public static VcsToolRegistry getInstance() {
+        return ApplicationManager.getApplication().getService(VcsToolRegistry.class);
+    }
+
+    /**
+     * Gibt die (zwischengespeicherten) Informationen zu einem VCS-Werkzeug zurück.
+     *
+     * @param type Der VCS-Typ.
+     * @return Die Informationen zum Werkzeug.
+     */
+    @NotNull
+    public ToolInfo getTool(@NotNull VcsType type) {
+        String currentKey = computeCacheKey();
+        if (!currentKey.equals(cacheKey)) {
+            tools.clear();
+            cacheKey = currentKey;
+        }
+        CompletableFuture<ToolInfo> future = tools.get(type);
+        if (future == null) {
+            CompletableFuture<ToolInfo> created = new CompletableFuture<>();
+            future = tools.putIfAbsent(type, created);
+            if (future == null) {
+                // Die Prüfung startet einen Prozess und läuft daher ausserhalb der Map, ohne deren Sperre zu halten
+                future = created;
+                try {
+                    created.complete(probe(type));
+                } catch (RuntimeException e) {
+                    tools.remove(type, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        return future.join();
+    }
+
+    /**
+     * Überprüft, ob ein VCS-Werkzeug verfügbar ist.
+     *
+     * @param type Der VCS-Typ.
+     * @return true, wenn das Werkzeug verfügbar ist, sonst false.
+     */
+    public boolean isAvailable(@NotNull VcsType type) {
+        return getTool(type).isAvailable();
+    }
+
+    /**
+     * Gibt das auszuführende Programm für einen VCS-Typ zurück, wenn möglich als absoluter Pfad.
+     *
+     * @param type Der VCS-Typ.
+     * @return Der Pfad oder Name des Programms.
+     */
+    @NotNull
+    public String getExecutable(@NotNull VcsType type) {
+        return getTool(type).getExecutable();
+    }
+
+    /**
+     * Verwirft alle zwischengespeicherten Prüfergebnisse.
+     */
+    public void invalidate() {
+        tools.clear();
+        cacheKey = null;
+    }
+
+    @NotNull
+    private ToolInfo probe(@NotNull VcsType type) {
+        String configured = getConfiguredExecutable(type);
+        String executable = resolveExecutable(configured);
+        try {
+            CommandResult result = CommandRunner.run(new CommandLine(executable, "--version").withTimeout(PROBE_TIMEOUT_MILLIS));
+            String version = parseVersion(result.getStdout());
+            LOG.info("Probed " + type.getDisplayName() + " executable '" + executable + "': exit code " + result.getExitCode() + ", version " + version);
+            return new ToolInfo(executable, version, result.isSuccess());
+        } catch (VcsCommandException e) {
+            LOG.info(type.getDisplayName() + " executable '" + executable + "' is not available: " + e.getMessage());
+            return new ToolInfo(executable, null, false);
+        }
+    }
+
+    @Nullable
+    static String parseVersion(@Nullable String output) {
+        if (output == null) {
+            return null;
+        }
+        Matcher matcher = VERSION_PATTERN.matcher(output);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Löst einen Programmnamen über den PATH in einen absoluten Pfad auf.
+     *
+     * @param executable Der Programmname oder -pfad.
+     * @return Der absolute Pfad oder der unveränderte Name, wenn das Programm nicht gefunden wurde.
+     */
+    @NotNull
+    static String resolveExecutable(@NotNull String executable) {
+        File file = new File(executable);
+        if (file.isAbsolute() || executable.contains(File.separator)) {
+            return file.getAbsolutePath();
+        }
+        String path = getPath();
+        if (path == null) {
+            return executable;
+        }
+        String[] extensions = isWindows() ? new String[]{".exe", ".cmd", ".bat", ""} : new String[]{""};
+        for (String directory : path.split(File.pathSeparator)) {
+            if (directory.isEmpty()) {
+                continue;
+            }
+            for (String extension : extensions) {
+                File candidate = new File(directory, executable + extension);
+                if (candidate.isFile() && candidate.canExecute()) {
+                    return candidate.getAbsolutePath();
+                }
+            }
+        }
+        return executable;
+    }
+
+    @NotNull
+    private static String getConfiguredExecutable(@NotNull VcsType type) {
+        SettingsSnapshot state = CoopPluginSettings.getInstance().getSnapshot();
+        String configured = type == VcsType.GIT ? state.gitExecutable : state.hgExecutable;
+        if (configured == null || configured.isBlank()) {
+            return type == VcsType.GIT ? CoopPluginSettings.State.DEFAULT_GIT_EXECUTABLE : CoopPluginSettings.State.DEFAULT_HG_EXECUTABLE;
+        }
+        return configured.trim();
+    }
+
+    @NotNull
+    private static String computeCacheKey() {
+        SettingsSnapshot state = CoopPluginSettings.getInstance().getSnapshot();
+        return Objects.toString(getPath(), "") + '\u0000' + state.gitExecutable + '\u0000' + state.hgExecutable;
+    }
+
+    @Nullable
+    private static String getPath() {
+        String path = EnvironmentUtil.getValue("PATH");
+        return path != null ? path : System.getenv("PATH");
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+    }
+}
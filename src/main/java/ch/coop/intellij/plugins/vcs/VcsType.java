@@ -0,0 +1,52 @@
+package ch.coop.intellij.plugins.vcs;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Die vom Plugin unterstützten VCS-Systeme mit ihrem jeweiligen Repository-Verzeichnis.
+ */
+public enum VcsType {
+    GIT("Git", ".git"),
+    MERCURIAL("Mercurial", ".hg");
+
+    private final String displayName;
+    private final String markerName;
+
+    VcsType(String displayName, String markerName) {
+        this.displayName = displayName;
+        this.markerName = markerName;
+    }
+
+    /**
+     * Gibt den Anzeigenamen des VCS-Systems zurück (z. B. "Git").
+     */
+    @NotNull
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gibt den Namen des Repository-Verzeichnisses zurück (z. B. ".git" oder ".hg").
+     */
+    @NotNull
+    public String getMarkerName() {
+        return markerName;
+    }
+
+    /**
+     * Ermittelt den VCS-Typ anhand des Namens eines Repository-Verzeichnisses.
+     *
+     * @param markerName Der Name des Verzeichnisses (z. B. ".git").
+     * @return Der passende VCS-Typ oder null, wenn der Name kein Repository-Verzeichnis ist.
+     */
+    @Nullable
+    public static VcsType forMarkerName(@Nullable String markerName) {
+        for (VcsType type : values()) {
+            if (type.markerName.equals(markerName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}